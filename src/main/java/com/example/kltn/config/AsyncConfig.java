@@ -0,0 +1,14 @@
+package com.example.kltn.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Bật xử lý @Async cho mọi chế độ chạy (EmailExistenceFilter cần nạp bloom filter ở nền).
+ * Executor là của Spring Boot: platform thread mặc định, virtual thread khi
+ * {@code spring.threads.virtual.enabled=true} (JDK 21).
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
@@ -0,0 +1,66 @@
+package com.example.kltn.config;
+
+import com.example.kltn.entity.Role;
+import com.example.kltn.entity.User;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Cache cấp 2 của Hibernate trên Caffeine (JCache, trong JVM) cho Role, quan hệ User.roles
+ * và truy vấn findByName. Ghi qua Hibernate tự cập nhật/xóa các region này;
+ * TTL chỉ để chặn dữ liệu cũ khi bảng bị sửa trực tiếp ngoài ứng dụng.
+ * Region timestamps của query cache được tạo mặc định, không giới hạn và không hết hạn.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    @Value("${app.cache.hibernate.role-ttl:1h}")
+    private Duration roleTtl;
+
+    @Value("${app.cache.hibernate.user-roles-ttl:30m}")
+    private Duration userRolesTtl;
+
+    @Value("${app.cache.hibernate.user-roles-max-size:100000}")
+    private long userRolesMaxSize;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        // URI riêng cho mỗi context: CacheManager mặc định dùng chung cả JVM, context khác đóng nó sẽ đóng luôn cache ở đây
+        URI uri = URI.create(provider.getDefaultURI() + "#hibernate-" + UUID.randomUUID());
+        CacheManager cacheManager = provider.getCacheManager(uri, getClass().getClassLoader());
+        createIfAbsent(cacheManager, Role.CACHE_REGION, 1_000, roleTtl);
+        createIfAbsent(cacheManager, Role.BY_NAME_QUERY_REGION, 1_000, roleTtl);
+        createIfAbsent(cacheManager, User.ROLES_CACHE_REGION, userRolesMaxSize, userRolesTtl);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static void createIfAbsent(CacheManager cacheManager, String region, long maximumSize, Duration ttl) {
+        if (cacheManager.getCache(region) != null) {
+            return;
+        }
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        cacheManager.createCache(region, configuration);
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.kltn.config;
 
+import com.example.kltn.security.AuthActivityRecorder;
+import com.example.kltn.security.AuthEvent;
 import com.example.kltn.security.CustomOAuth2User;
 import org.springframework.context.annotation.Lazy;
 import com.example.kltn.service.JwtService;
@@ -20,13 +22,16 @@ public class OAuth2SuccessHandler extends SimpleUrlAuthenticationSuccessHandler
 
     private final JwtService jwtService;
     private final UserService userService;
+    private final AuthActivityRecorder authActivityRecorder;
 
     public OAuth2SuccessHandler(
             JwtService jwtService,
-            @Lazy UserService userService
+            @Lazy UserService userService,
+            AuthActivityRecorder authActivityRecorder
     ) {
         this.jwtService = jwtService;
         this.userService = userService;
+        this.authActivityRecorder = authActivityRecorder;
     }
 
     @Override
@@ -39,7 +44,7 @@ public class OAuth2SuccessHandler extends SimpleUrlAuthenticationSuccessHandler
         CustomOAuth2User oauthUser = (CustomOAuth2User) authentication.getPrincipal();
         String email = oauthUser.getEmail();
 
-        String jwtToken = jwtService.generateToken(email);
+        String jwtToken = jwtService.generateToken(oauthUser.getUser());
 
         userService.processOAuthPostLogin(
                 email,
@@ -47,6 +52,8 @@ public class OAuth2SuccessHandler extends SimpleUrlAuthenticationSuccessHandler
                 oauthUser.getAttribute("picture")
         );
 
+        authActivityRecorder.record(AuthEvent.OAUTH2_LOGIN);
+
         String redirectUrl = UriComponentsBuilder
                 .fromUriString("http://localhost:3000/oauth2/redirect")
                 .queryParam("token", jwtToken)
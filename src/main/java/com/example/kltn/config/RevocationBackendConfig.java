@@ -0,0 +1,45 @@
+package com.example.kltn.config;
+
+import com.example.kltn.repository.RevokedTokenRepository;
+import com.example.kltn.security.DatabaseRevocationBackend;
+import com.example.kltn.security.InMemoryRevocationBackend;
+import com.example.kltn.security.MappedFileRevocationBackend;
+import com.example.kltn.security.RevocationBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Chọn backend lưu thu hồi token qua {@code app.security.revocation.backend}:
+ * {@code file} (mặc định, log memory-mapped trên từng node),
+ * {@code database} (dùng chung giữa các node) hoặc {@code memory} (dev/test).
+ */
+@Configuration
+public class RevocationBackendConfig {
+
+    private static final String BACKEND_PROPERTY = "app.security.revocation.backend";
+
+    @Bean
+    @ConditionalOnProperty(name = BACKEND_PROPERTY, havingValue = "file", matchIfMissing = true)
+    public RevocationBackend mappedFileRevocationBackend(
+            @Value("${app.security.revocation.file:./data/revoked-tokens.log}") String file) {
+        return new MappedFileRevocationBackend(Path.of(file));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = BACKEND_PROPERTY, havingValue = "database")
+    public RevocationBackend databaseRevocationBackend(
+            RevokedTokenRepository revokedTokenRepository,
+            @Value("${app.security.revocation.gap-timeout-ms:60000}") long gapTimeoutMillis) {
+        return new DatabaseRevocationBackend(revokedTokenRepository, gapTimeoutMillis);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = BACKEND_PROPERTY, havingValue = "memory")
+    public RevocationBackend inMemoryRevocationBackend() {
+        return new InMemoryRevocationBackend();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.kltn.config;
+
+import com.example.kltn.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Đẩy {@code id_generators.next_val} của users lên trên id lớn nhất hiện có trước khi web server nhận request,
+ * để khối id đầu tiên không trùng các dòng đã tạo bằng AUTO_INCREMENT (hoặc bị chèn trực tiếp bằng SQL).
+ */
+@Component
+@Slf4j
+public class UserIdGeneratorInitializer implements SmartInitializingSingleton {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+
+    public UserIdGeneratorInitializer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        transaction.executeWithoutResult(status -> {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Long.class);
+            // Hibernate (pooled optimizer) cấp khối [next_val - allocationSize + 1, next_val]
+            long floor = (maxId == null ? 0 : maxId) + User.ID_ALLOCATION_SIZE + 1;
+            if (raise(floor) == 0 && !exists()) {
+                try {
+                    jdbcTemplate.update("INSERT INTO " + User.ID_GENERATOR_TABLE + " (name, next_val) VALUES (?, ?)",
+                            User.ID_GENERATOR_KEY, floor);
+                } catch (DuplicateKeyException e) {
+                    // Node khác vừa tạo dòng này
+                    raise(floor);
+                }
+            }
+            log.info("User id generator starts above {}", maxId);
+        });
+    }
+
+    private int raise(long floor) {
+        return jdbcTemplate.update("UPDATE " + User.ID_GENERATOR_TABLE + " SET next_val = ? WHERE name = ? AND next_val < ?",
+                floor, User.ID_GENERATOR_KEY, floor);
+    }
+
+    private boolean exists() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + User.ID_GENERATOR_TABLE + " WHERE name = ?",
+                Integer.class, User.ID_GENERATOR_KEY);
+        return count != null && count > 0;
+    }
+}
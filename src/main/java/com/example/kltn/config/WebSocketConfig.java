@@ -0,0 +1,29 @@
+package com.example.kltn.config;
+
+import com.example.kltn.websocket.JwtHandshakeInterceptor;
+import com.example.kltn.websocket.NotificationHub;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final NotificationHub notificationHub;
+    private final JwtHandshakeInterceptor jwtHandshakeInterceptor;
+
+    @Value("${app.frontend.url:http://localhost:3000}")
+    private String frontendUrl;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(notificationHub, "/ws/notifications")
+                .addInterceptors(jwtHandshakeInterceptor)
+                .setAllowedOrigins(frontendUrl, "http://localhost:3000", "http://127.0.0.1:3000");
+    }
+}
@@ -1,19 +1,28 @@
 package com.example.kltn.controller;
 
 import com.example.kltn.dto.response.ApiResponse;
+import com.example.kltn.dto.response.AuthActivityResponse;
+import com.example.kltn.dto.response.DashboardResponse;
 import com.example.kltn.dto.response.UserResponse;
 import org.springframework.web.bind.annotation.RequestHeader;
+import com.example.kltn.security.AuthActivityRecorder;
+import com.example.kltn.service.DashboardService;
+import com.example.kltn.service.DashboardStreamService;
 import com.example.kltn.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Instant;
 import java.util.Map;
 
 @RestController
@@ -25,23 +34,41 @@ import java.util.Map;
 public class AdminController {
 
     private final UserService userService;
+    private final DashboardService dashboardService;
+    private final DashboardStreamService dashboardStreamService;
+    private final AuthActivityRecorder authActivityRecorder;
 
     @GetMapping("/dashboard")
     @Operation(summary = "Thống kê dashboard admin")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> getDashboard() {
-        // Thông tin thống kê
-        Map<String, Object> dashboardData = Map.of(
-            "totalUsers", 150,
-            "newUsersToday", 5,
-            "activeUsers", 145,
-            "totalRevenue", 50000000,
-            "todayRevenue", 1500000,
-            "pendingOrders", 12,
-            "completedOrders", 98,
-            "lowStockProducts", 8
-        );
-        
-        return ResponseEntity.ok(ApiResponse.success(dashboardData, "Lấy dashboard thành công"));
+    public ResponseEntity<ApiResponse<DashboardResponse>> getDashboard() {
+        return ResponseEntity.ok(ApiResponse.success(dashboardService.getDashboard(), "Lấy dashboard thành công"));
+    }
+
+    @GetMapping(value = "/dashboard/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Nhận thay đổi dashboard qua Server-Sent Events thay vì polling")
+    public SseEmitter streamDashboard() {
+        return dashboardStreamService.subscribe();
+    }
+
+    @GetMapping("/auth-activity")
+    @Operation(summary = "Số lượt đăng nhập, đăng ký, đặt lại mật khẩu... theo phút hoặc theo giờ")
+    public ResponseEntity<ApiResponse<AuthActivityResponse>> getAuthActivity(
+            @RequestParam(defaultValue = "minute") String resolution,
+            @RequestParam(defaultValue = "60") int points) {
+
+        AuthActivityRecorder.Resolution res = AuthActivityRecorder.Resolution.from(resolution);
+        Map<String, long[]> series = authActivityRecorder.series(res, Math.max(points, 1));
+        long bucketMillis = authActivityRecorder.bucketMillis(res);
+        int size = series.values().iterator().next().length;
+        long firstBucket = System.currentTimeMillis() / bucketMillis - size + 1;
+
+        AuthActivityResponse response = AuthActivityResponse.builder()
+                .resolution(res.name())
+                .bucketSeconds(bucketMillis / 1000)
+                .from(Instant.ofEpochMilli(firstBucket * bucketMillis))
+                .series(series)
+                .build();
+        return ResponseEntity.ok(ApiResponse.success(response, "Lấy thống kê xác thực thành công"));
     }
 
     @GetMapping("/me")
@@ -0,0 +1,68 @@
+package com.example.kltn.controller;
+
+import com.example.kltn.dto.request.CreateCampaignRequest;
+import com.example.kltn.dto.response.ApiResponse;
+import com.example.kltn.dto.response.CampaignResponse;
+import com.example.kltn.service.CampaignService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/campaigns")
+@RequiredArgsConstructor
+@Tag(name = "Email Campaign", description = "API gửi email hàng loạt cho quản trị viên")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('ADMIN')")
+public class CampaignController {
+
+    private final CampaignService campaignService;
+
+    @PostMapping
+    @Operation(summary = "Tạo và bắt đầu chiến dịch email (tất cả người dùng hoặc theo role)")
+    public ResponseEntity<ApiResponse<CampaignResponse>> createCampaign(
+            @Valid @RequestBody CreateCampaignRequest request,
+            Authentication authentication) {
+
+        CampaignResponse campaign = campaignService.createCampaign(request, authentication.getName());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(campaign, "Đã bắt đầu gửi chiến dịch"));
+    }
+
+    @GetMapping
+    @Operation(summary = "Danh sách chiến dịch gần đây")
+    public ResponseEntity<ApiResponse<List<CampaignResponse>>> getCampaigns() {
+        return ResponseEntity.ok(ApiResponse.success(campaignService.getRecentCampaigns(),
+                "Lấy danh sách chiến dịch thành công"));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Tiến độ chiến dịch")
+    public ResponseEntity<ApiResponse<CampaignResponse>> getCampaign(@PathVariable Long id) {
+        return ResponseEntity.ok(ApiResponse.success(campaignService.getCampaign(id),
+                "Lấy thông tin chiến dịch thành công"));
+    }
+
+    @PostMapping("/{id}/pause")
+    @Operation(summary = "Tạm dừng chiến dịch")
+    public ResponseEntity<ApiResponse<CampaignResponse>> pauseCampaign(@PathVariable Long id) {
+        return ResponseEntity.ok(ApiResponse.success(campaignService.pauseCampaign(id),
+                "Đã tạm dừng chiến dịch"));
+    }
+
+    @PostMapping("/{id}/resume")
+    @Operation(summary = "Tiếp tục chiến dịch từ checkpoint")
+    public ResponseEntity<ApiResponse<CampaignResponse>> resumeCampaign(@PathVariable Long id) {
+        return ResponseEntity.ok(ApiResponse.success(campaignService.resumeCampaign(id),
+                "Đã tiếp tục chiến dịch"));
+    }
+}
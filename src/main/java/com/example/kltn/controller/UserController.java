@@ -1,18 +1,28 @@
 package com.example.kltn.controller;
 
+import com.example.kltn.dto.request.BulkUserRequest;
 import com.example.kltn.dto.request.ChangePasswordRequest;
 import com.example.kltn.dto.request.UpdateProfileRequest;
 import com.example.kltn.dto.response.ApiResponse;
+import com.example.kltn.dto.response.BulkUpdateResponse;
+import com.example.kltn.dto.response.CursorPage;
 import com.example.kltn.dto.response.UserResponse;
+import com.example.kltn.service.UserBulkService;
+import com.example.kltn.service.UserExportService;
+import com.example.kltn.service.UserImportService;
 import com.example.kltn.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -24,6 +34,9 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final UserExportService userExportService;
+    private final UserImportService userImportService;
+    private final UserBulkService userBulkService;
 
     @GetMapping("/profile")
     @Operation(summary = "Lấy thông tin người dùng hiện tại")
@@ -63,11 +76,45 @@ public class UserController {
     }
 
     @GetMapping("/all")
-    @Operation(summary = "Lấy danh sách tất cả người dùng (Admin only)")
+    @Operation(summary = "Lấy danh sách người dùng theo trang, dùng nextCursor để lấy trang sau (Admin only)")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<List<UserResponse>>> getAllUsers() {
-        List<UserResponse> users = userService.getAllUsers();
-        return ResponseEntity.ok(ApiResponse.success(users, "Lấy danh sách người dùng thành công"));
+    public ResponseEntity<ApiResponse<List<UserResponse>>> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CursorPage<UserResponse> users = userService.getUsers(cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(users.getItems(),
+                "Lấy danh sách người dùng thành công", users.getNextCursor()));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Xuất toàn bộ người dùng dạng NDJSON hoặc CSV (Admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        UserExportService.Format exportFormat = UserExportService.Format.from(format);
+        StreamingResponseBody body = out -> userExportService.exportUsers(exportFormat, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"users." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @Operation(summary = "Nhập người dùng hàng loạt từ NDJSON hoặc CSV, trả về tiến độ và lỗi từng dòng dạng NDJSON (Admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> importUsers(
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletRequest request) {
+
+        UserExportService.Format importFormat = UserExportService.Format.from(format);
+        StreamingResponseBody body = out -> userImportService.importUsers(importFormat, request.getInputStream(), out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 
     @GetMapping("/by-role/{roleName}")
@@ -115,6 +162,30 @@ public class UserController {
         return ResponseEntity.ok(ApiResponse.success(userResponse, "Kích hoạt người dùng thành công"));
     }
 
+    @PutMapping("/bulk/deactivate")
+    @Operation(summary = "Vô hiệu hóa nhiều người dùng theo ids hoặc filter (Admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<BulkUpdateResponse>> bulkDeactivate(@RequestBody BulkUserRequest request) {
+        BulkUpdateResponse response = userBulkService.deactivate(request);
+        return ResponseEntity.ok(ApiResponse.success(response, "Vô hiệu hóa người dùng thành công"));
+    }
+
+    @PutMapping("/bulk/activate")
+    @Operation(summary = "Kích hoạt nhiều người dùng theo ids hoặc filter (Admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<BulkUpdateResponse>> bulkActivate(@RequestBody BulkUserRequest request) {
+        BulkUpdateResponse response = userBulkService.activate(request);
+        return ResponseEntity.ok(ApiResponse.success(response, "Kích hoạt người dùng thành công"));
+    }
+
+    @PutMapping("/bulk/roles")
+    @Operation(summary = "Thay roles cho nhiều người dùng theo ids hoặc filter (Admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<BulkUpdateResponse>> bulkUpdateRoles(@RequestBody BulkUserRequest request) {
+        BulkUpdateResponse response = userBulkService.replaceRoles(request);
+        return ResponseEntity.ok(ApiResponse.success(response, "Cập nhật roles thành công"));
+    }
+
     @GetMapping("/search")
     @Operation(summary = "Tìm kiếm người dùng theo email (Admin only)")
     @PreAuthorize("hasRole('ADMIN')")
@@ -0,0 +1,44 @@
+package com.example.kltn.dto.request;
+
+import com.example.kltn.entity.User;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Chọn người dùng cho thao tác hàng loạt: theo danh sách {@code ids}, hoặc theo {@code filter} khi không có ids.
+ */
+@Data
+public class BulkUserRequest {
+
+    private List<Long> ids;
+
+    private Filter filter;
+
+    // Chỉ dùng khi cập nhật roles, ví dụ: ["ROLE_USER", "ROLE_STAFF"]
+    private List<String> roles;
+
+    @Data
+    public static class Filter {
+
+        // Ví dụ: USER, STAFF hoặc ROLE_STAFF
+        private String role;
+
+        private User.AuthProvider provider;
+
+        private Boolean isActive;
+
+        // Phần sau dấu @, ví dụ: spam-domain.com
+        private String emailDomain;
+
+        private LocalDateTime createdFrom;
+
+        private LocalDateTime createdTo;
+
+        public boolean isEmpty() {
+            return role == null && provider == null && isActive == null && emailDomain == null
+                    && createdFrom == null && createdTo == null;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.kltn.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class CreateCampaignRequest {
+
+    @NotBlank(message = "Tên chiến dịch không được để trống")
+    @Size(max = 255, message = "Tên chiến dịch tối đa 255 ký tự")
+    private String name;
+
+    @NotBlank(message = "Tiêu đề email không được để trống")
+    @Size(max = 255, message = "Tiêu đề email tối đa 255 ký tự")
+    private String subject;
+
+    @NotBlank(message = "Nội dung email không được để trống")
+    private String content;
+
+    // Để trống để gửi cho tất cả người dùng, ví dụ: USER, STAFF
+    private String role;
+}
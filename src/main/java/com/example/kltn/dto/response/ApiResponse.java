@@ -11,6 +11,8 @@ public class ApiResponse<T> {
     private boolean success;
     private String message;
     private T data;
+    // Cursor mờ để lấy trang kế tiếp; null khi đã hết dữ liệu
+    private String nextCursor;
     
     public static <T> ApiResponse<T> success(T data, String message) {
         return ApiResponse.<T>builder()
@@ -20,6 +22,15 @@ public class ApiResponse<T> {
                 .build();
     }
     
+    public static <T> ApiResponse<T> success(T data, String message, String nextCursor) {
+        return ApiResponse.<T>builder()
+                .success(true)
+                .message(message)
+                .data(data)
+                .nextCursor(nextCursor)
+                .build();
+    }
+    
     public static <T> ApiResponse<T> error(String message) {
         return ApiResponse.<T>builder()
                 .success(false)
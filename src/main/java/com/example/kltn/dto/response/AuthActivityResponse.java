@@ -0,0 +1,16 @@
+package com.example.kltn.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@Builder
+public class AuthActivityResponse {
+    private String resolution;
+    private Long bucketSeconds;
+    private Instant from;
+    private Map<String, long[]> series;
+}
@@ -0,0 +1,13 @@
+package com.example.kltn.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BulkUpdateResponse {
+    // Số người dùng được chọn (tồn tại và khớp điều kiện)
+    private Long matched;
+    // Số dòng thực sự thay đổi
+    private Long affected;
+}
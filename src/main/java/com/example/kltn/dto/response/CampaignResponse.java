@@ -0,0 +1,23 @@
+package com.example.kltn.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class CampaignResponse {
+    private Long id;
+    private String name;
+    private String subject;
+    private String roleName;
+    private String status;
+    private Long lastUserId;
+    private Long sentCount;
+    private Long failedCount;
+    private String createdBy;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+}
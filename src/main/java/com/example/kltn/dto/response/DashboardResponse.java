@@ -0,0 +1,20 @@
+package com.example.kltn.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+public class DashboardResponse {
+    private Long totalUsers;
+    private Long newUsersToday;
+    private Long activeUsers;
+    private Long inactiveUsers;
+    private Long verifiedUsers;
+    private Long unverifiedUsers;
+    private Map<String, Long> usersByProvider;
+    private LocalDateTime reconciledAt;
+}
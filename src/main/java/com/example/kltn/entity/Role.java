@@ -5,8 +5,11 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 
 @Entity
 @Table(name = "roles")
@@ -14,7 +17,11 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Role.CACHE_REGION)
 public class Role {
+
+    public static final String CACHE_REGION = "kltn.role";
+    public static final String BY_NAME_QUERY_REGION = "kltn.role.by-name";
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -36,4 +43,24 @@ public class Role {
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
     }
+
+    /**
+     * Bit của role trong {@code users.role_mask} là bit {@code id - 1}, nên chỉ hỗ trợ tối đa 64 role.
+     */
+    public static long bitOf(long roleId) {
+        if (roleId < 1 || roleId > Long.SIZE) {
+            throw new IllegalStateException("Role id " + roleId + " không biểu diễn được trong role_mask");
+        }
+        return 1L << (roleId - 1);
+    }
+
+    public static long maskOf(Collection<Role> roles) {
+        long mask = 0;
+        if (roles != null) {
+            for (Role role : roles) {
+                mask |= bitOf(role.getId());
+            }
+        }
+        return mask;
+    }
 }
\ No newline at end of file
@@ -5,22 +5,40 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_created_at_id", columnList = "created_at, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
-    
+
+    public static final String ROLES_CACHE_REGION = "kltn.user.roles";
+    public static final String ID_GENERATOR_TABLE = "id_generators";
+    public static final String ID_GENERATOR_KEY = "users";
+    public static final int ID_ALLOCATION_SIZE = 100;
+    
+    /**
+     * Id cấp theo khối từ bảng {@code id_generators} (không dùng IDENTITY) để Hibernate gom INSERT thành batch JDBC.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_id")
+    @TableGenerator(name = "user_id", table = User.ID_GENERATOR_TABLE, pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = User.ID_GENERATOR_KEY,
+            allocationSize = User.ID_ALLOCATION_SIZE)
     private Long id;
     
     @Column(unique = true, nullable = false)
@@ -71,15 +89,47 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
-    @ManyToMany(fetch = FetchType.EAGER)
+    /**
+     * Bản sao không chuẩn hóa của {@code user_roles} ({@link Role#bitOf}), để đọc quyền không cần join.
+     * Luôn gán roles qua {@link #setRoles} để hai bên khớp nhau.
+     */
+    @Column(name = "role_mask", nullable = false)
+    @Builder.Default
+    private Long roleMask = 0L;
+    
+    /**
+     * Tăng mỗi khi quyền của user thay đổi (role, khóa tài khoản, mật khẩu); access token mang giá trị lúc cấp
+     * trong claim {@code ver}. Chỉ được ghi bằng UPDATE của {@code UserVersionRegistry}, không qua entity,
+     * để lần lưu entity cũ không ghi đè số đã tăng.
+     */
+    @Column(name = "token_version", nullable = false, updatable = false)
+    @Builder.Default
+    private Integer tokenVersion = 0;
+    
+    @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.ROLES_CACHE_REGION)
     @JoinTable(
         name = "user_roles",
         joinColumns = @JoinColumn(name = "user_id"),
         inverseJoinColumns = @JoinColumn(name = "role_id")
     )
     @Builder.Default
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Set<Role> roles = new HashSet<>();
     
+    public void setRoles(Set<Role> roles) {
+        this.roles = roles;
+        this.roleMask = Role.maskOf(roles);
+    }
+    
+    @PrePersist
+    public void prePersist() {
+        if (Hibernate.isInitialized(roles)) {
+            this.roleMask = Role.maskOf(roles);
+        }
+    }
+    
     @PreUpdate
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
@@ -0,0 +1,28 @@
+package com.example.kltn.event;
+
+import java.util.List;
+
+/**
+ * Thay đổi trên tài khoản cần báo ngay cho các phiên đang mở của user đó.
+ * Được phát sau khi transaction commit, xem {@code NotificationHub}.
+ */
+public record UserAccountEvent(Long userId, Type type, List<String> roles) {
+
+    public enum Type {
+        FORCED_LOGOUT,
+        ROLES_CHANGED,
+        PASSWORD_CHANGED
+    }
+
+    public static UserAccountEvent forcedLogout(Long userId) {
+        return new UserAccountEvent(userId, Type.FORCED_LOGOUT, null);
+    }
+
+    public static UserAccountEvent rolesChanged(Long userId, List<String> roles) {
+        return new UserAccountEvent(userId, Type.ROLES_CHANGED, roles);
+    }
+
+    public static UserAccountEvent passwordChanged(Long userId) {
+        return new UserAccountEvent(userId, Type.PASSWORD_CHANGED, null);
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.kltn.mail;
+
+import com.example.kltn.entity.EmailCampaign;
+import com.example.kltn.repository.EmailCampaignRepository;
+import com.example.kltn.repository.UserRepository;
+import com.example.kltn.repository.projection.CampaignRecipient;
+import com.example.kltn.util.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chạy chiến dịch email: đọc người nhận theo từng chunk keyset ({@code id > lastUserId}),
+ * render và gửi song song trên pool worker với tốc độ giới hạn, rồi lưu checkpoint sau mỗi chunk.
+ * Bộ nhớ chỉ phụ thuộc kích thước chunk, không phụ thuộc số người dùng.
+ * <p>
+ * Mỗi chiến dịch chỉ chạy trên node giành được lease ({@code lease_owner}, {@code lease_until}) bằng
+ * UPDATE có điều kiện; lease được gia hạn cùng checkpoint. Khi node chết, node khác nhận lại chiến dịch
+ * sau khi lease hết hạn và tiếp tục từ checkpoint; chunk đang gửi dở lúc dừng sẽ được gửi lại (at-least-once).
+ */
+@Component
+@Slf4j
+public class CampaignRunner {
+
+    private static final String TEMPLATE = "email/campaign";
+
+    private final EmailCampaignRepository emailCampaignRepository;
+    private final UserRepository userRepository;
+    private final EmailTemplateRenderer templateRenderer;
+    private final JavaMailSender mailSender;
+    private final SmtpTransportPool smtpTransportPool;
+    private final MeterRegistry meterRegistry;
+
+    private final int chunkSize;
+    private final long leaseMillis;
+    private final String fromEmail;
+    private final String frontendUrl;
+    private final RateLimiter rateLimiter;
+
+    private final ExecutorService runners;
+    private final ExecutorService workers;
+    private final Map<Long, AtomicBoolean> running = new ConcurrentHashMap<>();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Timer chunkTimer;
+    private volatile boolean shuttingDown;
+
+    public CampaignRunner(EmailCampaignRepository emailCampaignRepository,
+                          UserRepository userRepository,
+                          EmailTemplateRenderer templateRenderer,
+                          JavaMailSender mailSender,
+                          SmtpTransportPool smtpTransportPool,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.mail.campaign.chunk-size:500}") int chunkSize,
+                          @Value("${app.mail.campaign.worker-threads:0}") int workerThreads,
+                          @Value("${app.mail.campaign.rate-per-second:20}") double ratePerSecond,
+                          @Value("${app.mail.campaign.lease-ms:300000}") long leaseMillis,
+                          @Value("${spring.mail.username}") String fromEmail,
+                          @Value("${app.frontend.url}") String frontendUrl) {
+        this.emailCampaignRepository = emailCampaignRepository;
+        this.userRepository = userRepository;
+        this.templateRenderer = templateRenderer;
+        this.mailSender = mailSender;
+        this.smtpTransportPool = smtpTransportPool;
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+        this.leaseMillis = leaseMillis;
+        this.fromEmail = fromEmail;
+        this.frontendUrl = frontendUrl;
+        this.rateLimiter = new RateLimiter(ratePerSecond);
+
+        this.runners = Executors.newCachedThreadPool(namedThreads("campaign-runner"));
+        this.workers = Executors.newFixedThreadPool(
+                workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors(),
+                namedThreads("campaign-worker"));
+        this.chunkTimer = Timer.builder("mail.campaign.chunk")
+                .description("Thời gian render và gửi một chunk người nhận")
+                .register(meterRegistry);
+        Gauge.builder("mail.campaign.running", running, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Nhận các chiến dịch RUNNING chưa có ai chạy: lúc khởi động và định kỳ, để chiến dịch của node đã chết
+     * được chạy tiếp khi lease của nó hết hạn.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.mail.campaign.lease-check-interval-ms:60000}",
+            fixedDelayString = "${app.mail.campaign.lease-check-interval-ms:60000}")
+    public void resumeRunning() {
+        if (shuttingDown) {
+            return;
+        }
+        for (EmailCampaign campaign : emailCampaignRepository.findByStatus(EmailCampaign.Status.RUNNING)) {
+            if (!running.containsKey(campaign.getId()) && start(campaign)) {
+                log.info("Resuming campaign {} from user id {}", campaign.getId(), campaign.getLastUserId());
+            }
+        }
+    }
+
+    /**
+     * Chạy chiến dịch nếu giành được lease. Trả về false khi node này đang chạy nó
+     * hoặc node khác đang giữ lease còn hạn.
+     */
+    public boolean start(EmailCampaign campaign) {
+        Long id = campaign.getId();
+        AtomicBoolean stopRequested = new AtomicBoolean();
+        if (running.putIfAbsent(id, stopRequested) != null) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (emailCampaignRepository.claim(id, nodeId, now, now.plus(Duration.ofMillis(leaseMillis))) == 0) {
+            running.remove(id, stopRequested);
+            log.debug("Campaign {} is leased by another node", id);
+            return false;
+        }
+        runners.execute(() -> run(campaign, stopRequested));
+        return true;
+    }
+
+    public void stop(Long campaignId) {
+        AtomicBoolean stopRequested = running.get(campaignId);
+        if (stopRequested != null) {
+            stopRequested.set(true);
+        }
+    }
+
+    public boolean isRunning(Long campaignId) {
+        return running.containsKey(campaignId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        running.values().forEach(stopRequested -> stopRequested.set(true));
+        runners.shutdown();
+        workers.shutdown();
+        // Node khác nhận lại ngay thay vì chờ lease hết hạn; chunk đang gửi dở có thể bị gửi lại
+        emailCampaignRepository.releaseLeases(nodeId);
+    }
+
+    private void run(EmailCampaign campaign, AtomicBoolean stopRequested) {
+        Long id = campaign.getId();
+        String tag = String.valueOf(id);
+        Counter sentCounter = meterRegistry.counter("mail.campaign.sent", "campaign", tag);
+        Counter failedCounter = meterRegistry.counter("mail.campaign.failed", "campaign", tag);
+
+        try {
+            EmailTemplateRenderer.PrecompiledTemplate template = templateRenderer.precompile(TEMPLATE,
+                    Locale.getDefault(),
+                    Map.of("subject", campaign.getSubject(),
+                            "content", campaign.getContent(),
+                            "storeUrl", frontendUrl),
+                    Set.of("fullName", "email"));
+
+            long afterId = campaign.getLastUserId();
+            while (!stopRequested.get()) {
+                List<CampaignRecipient> chunk = fetchChunk(campaign, afterId);
+                if (chunk.isEmpty()) {
+                    emailCampaignRepository.complete(id, LocalDateTime.now());
+                    log.info("Campaign {} completed", id);
+                    break;
+                }
+
+                long startedAt = System.nanoTime();
+                int sent = sendChunk(campaign, template, chunk);
+                int failed = chunk.size() - sent;
+                chunkTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                sentCounter.increment(sent);
+                failedCounter.increment(failed);
+
+                afterId = chunk.get(chunk.size() - 1).getId();
+                LocalDateTime now = LocalDateTime.now();
+                if (emailCampaignRepository.checkpoint(id, nodeId, afterId, sent, failed, now,
+                        now.plus(Duration.ofMillis(leaseMillis))) == 0) {
+                    log.warn("Campaign {} lease was taken over by another node, stopping", id);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Campaign {} interrupted, will resume from last checkpoint", id);
+        } catch (Exception e) {
+            log.error("Campaign {} failed", id, e);
+            emailCampaignRepository.transition(id, EmailCampaign.Status.RUNNING,
+                    EmailCampaign.Status.FAILED, LocalDateTime.now());
+        } finally {
+            emailCampaignRepository.releaseLease(id, nodeId);
+            running.remove(id, stopRequested);
+            restartIfResumed(id, stopRequested);
+        }
+    }
+
+    /**
+     * Admin tạm dừng rồi tiếp tục ngay khi runner cũ chưa kịp thoát: start() lúc đó bị bỏ qua,
+     * nên runner cũ tự khởi động lại nếu trạng thái trong DB vẫn là RUNNING.
+     */
+    private void restartIfResumed(Long id, AtomicBoolean stopRequested) {
+        if (!stopRequested.get() || shuttingDown) {
+            return;
+        }
+        emailCampaignRepository.findById(id)
+                .filter(campaign -> campaign.getStatus() == EmailCampaign.Status.RUNNING)
+                .ifPresent(this::start);
+    }
+
+    private List<CampaignRecipient> fetchChunk(EmailCampaign campaign, long afterId) {
+        PageRequest page = PageRequest.of(0, chunkSize);
+        if (campaign.getRoleName() == null) {
+            return userRepository.findActiveRecipientsAfter(afterId, page);
+        }
+        return userRepository.findActiveRecipientsByRoleAfter(campaign.getRoleName(), afterId, page);
+    }
+
+    private int sendChunk(EmailCampaign campaign, EmailTemplateRenderer.PrecompiledTemplate template,
+                          List<CampaignRecipient> chunk) throws InterruptedException {
+        AtomicInteger sent = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(chunk.size());
+        for (CampaignRecipient recipient : chunk) {
+            futures.add(workers.submit(() -> {
+                try {
+                    String html = template.render(Map.of(
+                            "fullName", recipient.getFullName(),
+                            "email", recipient.getEmail()));
+                    MimeMessage message = mailSender.createMimeMessage();
+                    MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+                    helper.setFrom(fromEmail, "Fashion Store");
+                    helper.setTo(recipient.getEmail());
+                    helper.setSubject(campaign.getSubject());
+                    helper.setText(html, true);
+
+                    rateLimiter.acquire();
+                    smtpTransportPool.send(message);
+                    sent.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    log.warn("Campaign {}: failed to send to {}: {}", campaign.getId(), recipient.getEmail(), e.getMessage());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                log.warn("Campaign {}: worker failed", campaign.getId(), e.getCause());
+            }
+        }
+        return sent.get();
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.kltn.mail;
+
+import com.example.kltn.entity.EmailOutbox;
+import com.example.kltn.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gửi email từ bảng {@code email_outbox} theo lô, ngoài transaction của request.
+ * Mỗi lô được khóa bằng {@code SKIP LOCKED} và "thuê" trong {@code lease-ms}, nên nhiều node
+ * có thể chạy song song; dòng bị thuê mà không được xác nhận (node chết) sẽ được gửi lại khi hết hạn thuê.
+ * <p>
+ * Mỗi lượt {@link #dispatch()} dừng sau {@code max-dispatch-ms} để không chiếm thread của scheduler
+ * (dùng chung với các job {@code @Scheduled} khác); phần còn lại được gửi ở lượt sau.
+ */
+@Component
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final SmtpTransportPool smtpTransportPool;
+    private final TransactionTemplate transactionTemplate;
+
+    private final String fromEmail;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffInitialMillis;
+    private final long backoffMaxMillis;
+    private final long leaseMillis;
+    private final long maxDispatchNanos;
+    private final int retentionDays;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final Timer sendTimer;
+    private final Timer deliveryLagTimer;
+    private final Counter retryCounter;
+    private final Counter failedCounter;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository,
+                                 JavaMailSender mailSender,
+                                 SmtpTransportPool smtpTransportPool,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${spring.mail.username}") String fromEmail,
+                                 @Value("${app.mail.outbox.batch-size:50}") int batchSize,
+                                 @Value("${app.mail.outbox.max-attempts:6}") int maxAttempts,
+                                 @Value("${app.mail.outbox.backoff-initial-ms:30000}") long backoffInitialMillis,
+                                 @Value("${app.mail.outbox.backoff-max-ms:3600000}") long backoffMaxMillis,
+                                 @Value("${app.mail.outbox.lease-ms:120000}") long leaseMillis,
+                                 @Value("${app.mail.outbox.max-dispatch-ms:30000}") long maxDispatchMillis,
+                                 @Value("${app.mail.outbox.retention-days:7}") int retentionDays) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        this.smtpTransportPool = smtpTransportPool;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fromEmail = fromEmail;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffInitialMillis = backoffInitialMillis;
+        this.backoffMaxMillis = backoffMaxMillis;
+        this.leaseMillis = leaseMillis;
+        this.maxDispatchNanos = Duration.ofMillis(maxDispatchMillis).toNanos();
+        this.retentionDays = retentionDays;
+
+        Gauge.builder("mail.outbox.pending", pending, AtomicLong::get)
+                .description("Số email đang chờ gửi trong outbox")
+                .register(meterRegistry);
+        this.sendTimer = Timer.builder("mail.outbox.send")
+                .description("Thời gian gửi một email qua SMTP")
+                .register(meterRegistry);
+        this.deliveryLagTimer = Timer.builder("mail.outbox.delivery.lag")
+                .description("Thời gian từ lúc ghi outbox đến lúc gửi thành công")
+                .register(meterRegistry);
+        this.retryCounter = meterRegistry.counter("mail.outbox.retries");
+        this.failedCounter = meterRegistry.counter("mail.outbox.failed");
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        long deadline = System.nanoTime() + maxDispatchNanos;
+        List<EmailOutbox> batch;
+        do {
+            batch = claimBatch();
+            deliverBatch(batch, deadline);
+        } while (batch.size() == batchSize && System.nanoTime() - deadline < 0);
+    }
+
+    /**
+     * COUNT trên bảng outbox không chạy ở mỗi lượt dispatch; gauge chỉ cần cập nhật thưa hơn.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.outbox.pending-gauge-interval-ms:30000}")
+    public void refreshPendingGauge() {
+        pending.set(emailOutboxRepository.countByStatus(EmailOutbox.Status.PENDING));
+    }
+
+    @Scheduled(cron = "${app.mail.outbox.purge-cron:0 30 3 * * *}")
+    public void purgeSent() {
+        Integer deleted = transactionTemplate.execute(status ->
+                emailOutboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} sent emails from outbox", deleted);
+        }
+    }
+
+    private List<EmailOutbox> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> batch = transactionTemplate.execute(status -> {
+            List<EmailOutbox> due = emailOutboxRepository.lockDue(now, batchSize);
+            if (!due.isEmpty()) {
+                emailOutboxRepository.lease(due.stream().map(EmailOutbox::getId).toList(),
+                        now.plus(Duration.ofMillis(leaseMillis)));
+            }
+            return due;
+        });
+        return batch != null ? batch : List.of();
+    }
+
+    private void deliverBatch(List<EmailOutbox> batch, long deadline) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Long> sent = new ArrayList<>(batch.size());
+        List<EmailOutbox> failed = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        List<Long> skipped = new ArrayList<>();
+
+        for (EmailOutbox email : batch) {
+            if (System.nanoTime() - deadline >= 0) {
+                skipped.add(email.getId());
+                continue;
+            }
+            try {
+                sendTimer.recordCallable(() -> {
+                    send(email);
+                    return null;
+                });
+                sent.add(email.getId());
+                deliveryLagTimer.record(Duration.between(email.getCreatedAt(), LocalDateTime.now()));
+            } catch (Exception e) {
+                log.warn("Failed to send outbox email {} to {}: {}", email.getId(), email.getRecipient(), e.getMessage());
+                failed.add(email);
+                errors.add(truncate(e.getMessage()));
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sent.isEmpty()) {
+                emailOutboxRepository.markSent(sent, now);
+            }
+            for (int i = 0; i < failed.size(); i++) {
+                reschedule(failed.get(i), errors.get(i), now);
+            }
+            if (!skipped.isEmpty()) {
+                emailOutboxRepository.release(skipped, now);
+            }
+        });
+        log.debug("Outbox batch: {} sent, {} failed, {} deferred", sent.size(), failed.size(), skipped.size());
+    }
+
+    private void reschedule(EmailOutbox email, String error, LocalDateTime now) {
+        // attempts trong entity là giá trị trước khi lease tăng lên
+        int attempts = email.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            emailOutboxRepository.markFailed(email.getId(), EmailOutbox.Status.FAILED, now, error);
+            failedCounter.increment();
+            log.error("Giving up on outbox email {} to {} after {} attempts", email.getId(), email.getRecipient(), attempts);
+            return;
+        }
+
+        long backoff = Math.min(backoffMaxMillis, backoffInitialMillis << Math.min(attempts - 1, 20));
+        emailOutboxRepository.markFailed(email.getId(), EmailOutbox.Status.PENDING,
+                now.plus(Duration.ofMillis(backoff)), error);
+        retryCounter.increment();
+    }
+
+    private void send(EmailOutbox email) throws Exception {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
+
+        helper.setFrom(fromEmail, "Fashion Store");
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), true);
+
+        smtpTransportPool.send(mimeMessage);
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.kltn.mail;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.unbescape.html.HtmlEscape;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Render template email.
+ * <p>
+ * Ở chế độ precompiled (production), mỗi cặp (template, locale) chỉ chạy qua Thymeleaf một lần với
+ * giá trị giữ chỗ; kết quả được tách thành các đoạn HTML tĩnh và các vị trí biến. Các lần render sau
+ * chỉ nối các đoạn tĩnh với giá trị biến đã escape giống {@code th:text}/{@code th:href}.
+ * Chỉ áp dụng cho template mà biến không ảnh hưởng cấu trúc (không có {@code th:if}/{@code th:each} theo biến).
+ */
+@Component
+@Slf4j
+public class EmailTemplateRenderer {
+
+    private static final String SLOT_PREFIX = "{{kltn-slot:";
+    private static final String SLOT_SUFFIX = "}}";
+
+    private final TemplateEngine templateEngine;
+    private final boolean precompiled;
+
+    private final Map<TemplateKey, PrecompiledTemplate> compiled = new ConcurrentHashMap<>();
+
+    public EmailTemplateRenderer(TemplateEngine templateEngine,
+                                 @Value("${app.mail.templates.precompiled:false}") boolean precompiled) {
+        this.templateEngine = templateEngine;
+        this.precompiled = precompiled;
+    }
+
+    public String render(String template, Locale locale, Map<String, String> variables) {
+        if (!precompiled) {
+            return process(template, locale, variables);
+        }
+        TemplateKey key = new TemplateKey(template, locale, Set.copyOf(variables.keySet()));
+        return compiled.computeIfAbsent(key,
+                k -> precompile(k.template(), k.locale(), Map.of(), k.variables())).render(variables);
+    }
+
+    /**
+     * Dựng sẵn template: {@code fixedVariables} được Thymeleaf xử lý một lần (có thể dùng {@code th:utext}),
+     * chỉ các biến trong {@code slots} được thay ở mỗi lần render.
+     */
+    public PrecompiledTemplate precompile(String template, Locale locale,
+                                          Map<String, ?> fixedVariables, Set<String> slots) {
+        Map<String, Object> variables = new HashMap<>(fixedVariables);
+        for (String name : slots) {
+            variables.put(name, SLOT_PREFIX + name + SLOT_SUFFIX);
+        }
+        String output = process(template, locale, variables);
+
+        List<String> fragments = new ArrayList<>();
+        List<String> slotOrder = new ArrayList<>();
+        int position = 0;
+        int start;
+        while ((start = output.indexOf(SLOT_PREFIX, position)) >= 0) {
+            int end = output.indexOf(SLOT_SUFFIX, start + SLOT_PREFIX.length());
+            fragments.add(output.substring(position, start));
+            slotOrder.add(output.substring(start + SLOT_PREFIX.length(), end));
+            position = end + SLOT_SUFFIX.length();
+        }
+        fragments.add(output.substring(position));
+
+        log.info("Compiled email template {} ({}) into {} static fragments", template, locale, fragments.size());
+        return new PrecompiledTemplate(fragments.toArray(String[]::new), slotOrder.toArray(String[]::new));
+    }
+
+    private String process(String template, Locale locale, Map<String, ?> variables) {
+        Context context = new Context(locale);
+        variables.forEach(context::setVariable);
+        return templateEngine.process(template, context);
+    }
+
+    private record TemplateKey(String template, Locale locale, Set<String> variables) {
+    }
+
+    public static final class PrecompiledTemplate {
+
+        private final String[] fragments;
+        private final String[] slots;
+        private final int staticLength;
+
+        private PrecompiledTemplate(String[] fragments, String[] slots) {
+            this.fragments = fragments;
+            this.slots = slots;
+            int length = 0;
+            for (String fragment : fragments) {
+                length += fragment.length();
+            }
+            this.staticLength = length;
+        }
+
+        public String render(Map<String, String> variables) {
+            StringBuilder html = new StringBuilder(staticLength + slots.length * 64);
+            for (int i = 0; i < slots.length; i++) {
+                html.append(fragments[i]);
+                String value = variables.get(slots[i]);
+                if (value != null) {
+                    html.append(HtmlEscape.escapeHtml4Xml(value));
+                }
+            }
+            return html.append(fragments[slots.length]).toString();
+        }
+    }
+}
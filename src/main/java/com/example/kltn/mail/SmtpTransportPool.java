@@ -0,0 +1,213 @@
+package com.example.kltn.mail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Giữ các phiên SMTP đã kết nối, STARTTLS và AUTH để gửi nhiều email trên cùng một phiên
+ * thay vì bắt tay lại cho mỗi email như {@link JavaMailSenderImpl#send}.
+ * <p>
+ * Phiên rảnh lâu hơn {@code validate-after-ms} được kiểm tra bằng NOOP trước khi dùng lại;
+ * phiên rảnh quá {@code idle-timeout-ms} hoặc đã gửi đủ {@code max-messages-per-session} bị đóng.
+ */
+@Component
+@Slf4j
+public class SmtpTransportPool {
+
+    private final JavaMailSenderImpl mailSender;
+    private final int maxMessagesPerSession;
+    private final long validateAfterMillis;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+
+    private final ConcurrentLinkedDeque<PooledTransport> idle = new ConcurrentLinkedDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger open = new AtomicInteger();
+    private final Counter connectCounter;
+
+    public SmtpTransportPool(JavaMailSenderImpl mailSender,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.mail.smtp-pool.max-size:4}") int maxSize,
+                             @Value("${app.mail.smtp-pool.max-messages-per-session:100}") int maxMessagesPerSession,
+                             @Value("${app.mail.smtp-pool.validate-after-ms:30000}") long validateAfterMillis,
+                             @Value("${app.mail.smtp-pool.idle-timeout-ms:120000}") long idleTimeoutMillis,
+                             @Value("${app.mail.smtp-pool.borrow-timeout-ms:30000}") long borrowTimeoutMillis) {
+        this.mailSender = mailSender;
+        this.maxMessagesPerSession = maxMessagesPerSession;
+        this.validateAfterMillis = validateAfterMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        Gauge.builder("mail.smtp.pool.open", open, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("mail.smtp.pool.idle", idle, ConcurrentLinkedDeque::size).register(meterRegistry);
+        this.connectCounter = meterRegistry.counter("mail.smtp.pool.connects");
+    }
+
+    /**
+     * Gửi một email trên phiên lấy từ pool. Nếu phiên dùng lại đã bị server đóng,
+     * email được gửi lại một lần trên phiên mới.
+     */
+    public void send(MimeMessage message) throws MessagingException {
+        acquirePermit();
+        try {
+            message.saveChanges();
+            Address[] recipients = message.getAllRecipients();
+
+            PooledTransport transport = borrow();
+            try {
+                sendOn(transport, message, recipients);
+            } catch (MessagingException e) {
+                if (!transport.reused() || e instanceof SendFailedException) {
+                    throw e;
+                }
+                log.debug("Pooled SMTP session failed, retrying on a new one: {}", e.getMessage());
+                sendOn(connect(), message, recipients);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.smtp-pool.evict-interval-ms:30000}")
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledTransport> iterator = idle.iterator();
+        while (iterator.hasNext()) {
+            PooledTransport transport = iterator.next();
+            if (now - transport.lastUsedAt >= idleTimeoutMillis && idle.remove(transport)) {
+                discard(transport);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        PooledTransport transport;
+        while ((transport = idle.poll()) != null) {
+            discard(transport);
+        }
+    }
+
+    private void acquirePermit() throws MessagingException {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("Hết thời gian chờ phiên SMTP rảnh");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Bị ngắt khi chờ phiên SMTP", e);
+        }
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        PooledTransport transport;
+        // LIFO: dùng phiên vừa trả về, để các phiên ít dùng hết hạn và bị đóng
+        while ((transport = idle.pollFirst()) != null) {
+            if (isUsable(transport)) {
+                return transport;
+            }
+            discard(transport);
+        }
+        return connect();
+    }
+
+    private boolean isUsable(PooledTransport transport) {
+        long idleFor = System.currentTimeMillis() - transport.lastUsedAt;
+        if (idleFor >= idleTimeoutMillis) {
+            return false;
+        }
+        // isConnected() của SMTPTransport gửi NOOP, chỉ gọi khi phiên đã rảnh một lúc
+        return idleFor < validateAfterMillis || transport.transport.isConnected();
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        Session session = mailSender.getSession();
+        String protocol = mailSender.getProtocol();
+        if (protocol == null) {
+            protocol = session.getProperty("mail.transport.protocol");
+        }
+        Transport transport = session.getTransport(protocol != null ? protocol : JavaMailSenderImpl.DEFAULT_PROTOCOL);
+        String username = mailSender.getUsername();
+        String password = mailSender.getPassword();
+        transport.connect(mailSender.getHost(), mailSender.getPort(),
+                StringUtils.hasLength(username) ? username : null,
+                StringUtils.hasLength(password) ? password : null);
+        open.incrementAndGet();
+        connectCounter.increment();
+        return new PooledTransport(transport);
+    }
+
+    private void sendOn(PooledTransport transport, MimeMessage message, Address[] recipients)
+            throws MessagingException {
+        try {
+            transport.send(message, recipients);
+        } catch (SendFailedException e) {
+            // Server từ chối người nhận nhưng phiên vẫn dùng được
+            release(transport);
+            throw e;
+        } catch (MessagingException | RuntimeException e) {
+            discard(transport);
+            throw e;
+        }
+        release(transport);
+    }
+
+    private void release(PooledTransport transport) {
+        if (transport.sent >= maxMessagesPerSession) {
+            discard(transport);
+            return;
+        }
+        transport.lastUsedAt = System.currentTimeMillis();
+        idle.offerFirst(transport);
+    }
+
+    private void discard(PooledTransport transport) {
+        open.decrementAndGet();
+        try {
+            transport.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error closing SMTP session: {}", e.getMessage());
+        }
+    }
+
+    private static final class PooledTransport {
+
+        private final Transport transport;
+        private volatile long lastUsedAt = System.currentTimeMillis();
+        private int sent;
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        boolean reused() {
+            return sent > 0;
+        }
+
+        void send(MimeMessage message, Address[] recipients) throws MessagingException {
+            transport.sendMessage(message, recipients);
+            sent++;
+        }
+    }
+}
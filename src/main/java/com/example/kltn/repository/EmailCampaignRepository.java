@@ -0,0 +1,67 @@
+package com.example.kltn.repository;
+
+import com.example.kltn.entity.EmailCampaign;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailCampaignRepository extends JpaRepository<EmailCampaign, Long> {
+
+    List<EmailCampaign> findByStatus(EmailCampaign.Status status);
+
+    List<EmailCampaign> findTop50ByOrderByIdDesc();
+
+    /**
+     * Giành quyền chạy chiến dịch RUNNING: thành công khi chưa ai giữ, lease đã hết hạn hoặc chính node này đang giữ.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailCampaign c SET c.leaseOwner = :owner, c.leaseUntil = :leaseUntil WHERE c.id = :id "
+            + "AND c.status = com.example.kltn.entity.EmailCampaign.Status.RUNNING "
+            + "AND (c.leaseOwner IS NULL OR c.leaseOwner = :owner OR c.leaseUntil < :now)")
+    int claim(@Param("id") Long id, @Param("owner") String owner,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailCampaign c SET c.leaseOwner = null, c.leaseUntil = null WHERE c.id = :id AND c.leaseOwner = :owner")
+    int releaseLease(@Param("id") Long id, @Param("owner") String owner);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailCampaign c SET c.leaseOwner = null, c.leaseUntil = null WHERE c.leaseOwner = :owner")
+    int releaseLeases(@Param("owner") String owner);
+
+    /**
+     * Lưu checkpoint sau mỗi chunk và gia hạn lease; không ghi đè trạng thái do admin đổi trong lúc chạy.
+     * Trả về 0 khi node này không còn giữ lease (node khác đã giành lại).
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailCampaign c SET c.lastUserId = :lastUserId, c.sentCount = c.sentCount + :sent, "
+            + "c.failedCount = c.failedCount + :failed, c.updatedAt = :now, c.leaseUntil = :leaseUntil "
+            + "WHERE c.id = :id AND c.leaseOwner = :owner")
+    int checkpoint(@Param("id") Long id, @Param("owner") String owner, @Param("lastUserId") Long lastUserId,
+                   @Param("sent") long sent, @Param("failed") long failed, @Param("now") LocalDateTime now,
+                   @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailCampaign c SET c.status = :status, c.updatedAt = :now WHERE c.id = :id AND c.status = :expected")
+    int transition(@Param("id") Long id, @Param("expected") EmailCampaign.Status expected,
+                   @Param("status") EmailCampaign.Status status, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailCampaign c SET c.status = com.example.kltn.entity.EmailCampaign.Status.COMPLETED, "
+            + "c.completedAt = :now, c.updatedAt = :now WHERE c.id = :id "
+            + "AND c.status = com.example.kltn.entity.EmailCampaign.Status.RUNNING")
+    int complete(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,52 @@
+package com.example.kltn.repository;
+
+import com.example.kltn.entity.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    /**
+     * Khóa một lô email đến hạn gửi; các dòng đang bị node khác khóa sẽ được bỏ qua.
+     */
+    @Query(value = "SELECT * FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now "
+            + "ORDER BY next_attempt_at, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutbox> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.attempts = e.attempts + 1, e.nextAttemptAt = :leaseUntil WHERE e.id IN :ids")
+    int lease(@Param("ids") Collection<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * Trả lại các dòng đã thuê nhưng chưa thử gửi: hoàn lượt thử mà {@link #lease} đã cộng.
+     */
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.attempts = e.attempts - 1, e.nextAttemptAt = :now WHERE e.id IN :ids")
+    int release(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = com.example.kltn.entity.EmailOutbox.Status.SENT, "
+            + "e.sentAt = :sentAt, e.lastError = null WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.nextAttemptAt = :nextAttemptAt, "
+            + "e.lastError = :lastError WHERE e.id = :id")
+    int markFailed(@Param("id") Long id, @Param("status") EmailOutbox.Status status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("lastError") String lastError);
+
+    long countByStatus(EmailOutbox.Status status);
+
+    @Modifying
+    @Query("DELETE FROM EmailOutbox e WHERE e.status = com.example.kltn.entity.EmailOutbox.Status.SENT "
+            + "AND e.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -2,13 +2,26 @@ package com.example.kltn.repository;
 
 import com.example.kltn.entity.Role;
 import com.example.kltn.entity.User;
+import com.example.kltn.repository.projection.CampaignRecipient;
+import com.example.kltn.repository.projection.UserCountView;
+import com.example.kltn.repository.projection.UserEmailView;
+import com.example.kltn.repository.projection.UserResponseView;
+import com.example.kltn.repository.projection.UserSummaryView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -30,4 +43,161 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByIsActive(Boolean isActive);
     
     List<User> findByEmailVerified(Boolean emailVerified);
-}
\ No newline at end of file
+    
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.email = :email")
+    int updatePasswordByEmail(@Param("email") String email, @Param("password") String password);
+
+    @Query("SELECT u.id AS id, u.email AS email, u.fullName AS fullName FROM User u "
+            + "WHERE u.isActive = true AND u.id > :afterId ORDER BY u.id")
+    List<CampaignRecipient> findActiveRecipientsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT u.id AS id, u.email AS email, u.fullName AS fullName FROM User u JOIN u.roles r "
+            + "WHERE r.name = :roleName AND u.isActive = true AND u.id > :afterId ORDER BY u.id")
+    List<CampaignRecipient> findActiveRecipientsByRoleAfter(@Param("roleName") String roleName,
+                                                            @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Trang đầu danh sách người dùng, mới nhất trước; dùng index {@code (created_at, id)}.
+     * {@code created_at} cho phép NULL (dữ liệu cũ): MySQL và H2 xếp NULL cuối cùng khi DESC,
+     * nên các dòng đó nằm sau mọi dòng có ngày tạo, theo id giảm dần.
+     */
+    @Query("SELECT u.id FROM User u ORDER BY u.createdAt DESC, u.id DESC")
+    List<Long> findFirstPageIds(Pageable pageable);
+
+    @Query("SELECT u.id FROM User u WHERE u.createdAt < :createdAt "
+            + "OR (u.createdAt = :createdAt AND u.id < :id) OR u.createdAt IS NULL "
+            + "ORDER BY u.createdAt DESC, u.id DESC")
+    List<Long> findPageIdsAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                Pageable pageable);
+
+    /**
+     * Trang tiếp theo khi dòng cuối trang trước có {@code created_at} NULL: chỉ còn các dòng NULL.
+     */
+    @Query("SELECT u.id FROM User u WHERE u.createdAt IS NULL AND u.id < :id ORDER BY u.id DESC")
+    List<Long> findUndatedPageIdsAfter(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Đọc toàn bộ người dùng dạng stream. Fetch size {@code Integer.MIN_VALUE} bắt Connector/J
+     * trả từng dòng từ server thay vì nạp cả result set vào heap; phải đọc trong transaction và đóng stream.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u.id AS id, u.email AS email, u.fullName AS fullName, u.phone AS phone, "
+            + "u.provider AS provider, u.emailVerified AS emailVerified, u.isActive AS isActive, "
+            + "u.createdAt AS createdAt, u.roleMask AS roleMask FROM User u ORDER BY u.id")
+    Stream<UserSummaryView> streamAllSummaries();
+
+    String USER_RESPONSE_SELECT = "SELECT u.id AS id, u.email AS email, u.fullName AS fullName, "
+            + "u.phone AS phone, u.address AS address, u.avatar AS avatar, u.provider AS provider, "
+            + "u.emailVerified AS emailVerified, u.isActive AS isActive, u.createdAt AS createdAt, "
+            + "u.updatedAt AS updatedAt, u.roleMask AS roleMask FROM User u ";
+
+    @Query(USER_RESPONSE_SELECT + "WHERE u.id = :id")
+    Optional<UserResponseView> findResponseViewById(@Param("id") Long id);
+
+    @Query(USER_RESPONSE_SELECT + "WHERE u.email = :email")
+    Optional<UserResponseView> findResponseViewByEmail(@Param("email") String email);
+
+    @Query(USER_RESPONSE_SELECT
+            + "WHERE u.id IN (SELECT ur.id FROM User ur JOIN ur.roles rr WHERE rr.name = :roleName) "
+            + "ORDER BY u.id")
+    List<UserResponseView> findResponseViewsByRole(@Param("roleName") String roleName);
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.id IN :ids")
+    int incrementTokenVersions(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT u.provider AS provider, u.isActive AS isActive, u.emailVerified AS emailVerified, "
+            + "COUNT(u) AS total FROM User u GROUP BY u.provider, u.isActive, u.emailVerified")
+    List<UserCountView> countByProviderAndStatus();
+
+    long countByCreatedAtGreaterThanEqual(LocalDateTime createdAt);
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findEmailsIn(@Param("emails") Collection<String> emails);
+
+    @Query("SELECT u.id AS id, u.email AS email FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<UserEmailView> findEmailsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT u.id AS id, u.email AS email FROM User u WHERE u.id IN :ids ORDER BY u.id")
+    List<UserEmailView> findEmailViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Trang keyset theo id các người dùng khớp bộ lọc thao tác hàng loạt; tham số {@code null} là bỏ qua điều kiện đó.
+     */
+    @Query("SELECT u.id AS id, u.email AS email FROM User u WHERE u.id > :afterId "
+            + "AND (:provider IS NULL OR u.provider = :provider) "
+            + "AND (:isActive IS NULL OR u.isActive = :isActive) "
+            + "AND (:emailPattern IS NULL OR u.email LIKE :emailPattern) "
+            + "AND (:createdFrom IS NULL OR u.createdAt >= :createdFrom) "
+            + "AND (:createdTo IS NULL OR u.createdAt < :createdTo) "
+            + "AND (:roleName IS NULL OR u.id IN (SELECT ur.id FROM User ur JOIN ur.roles rr WHERE rr.name = :roleName)) "
+            + "ORDER BY u.id")
+    List<UserEmailView> findEmailsMatchingAfter(@Param("afterId") Long afterId,
+                                                @Param("roleName") String roleName,
+                                                @Param("provider") User.AuthProvider provider,
+                                                @Param("isActive") Boolean isActive,
+                                                @Param("emailPattern") String emailPattern,
+                                                @Param("createdFrom") LocalDateTime createdFrom,
+                                                @Param("createdTo") LocalDateTime createdTo,
+                                                Pageable pageable);
+
+    /**
+     * Đổi trạng thái cho cả nhóm bằng một câu UPDATE; dòng đã ở trạng thái đích không bị ghi và không được đếm.
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.isActive = :active, u.updatedAt = :now WHERE u.id IN :ids AND u.isActive <> :active")
+    int updateActiveByIdIn(@Param("ids") Collection<Long> ids, @Param("active") boolean active,
+                           @Param("now") LocalDateTime now);
+
+    /*
+     * Ba câu thay roles cho cả nhóm: chỉ đụng tới user có role_mask khác mask đích, nên gọi lại là không ghi gì.
+     * Hint query space để Hibernate không xóa mọi vùng cache cấp 2 như với câu native thông thường;
+     * vùng User.roles của các user bị đổi do service tự xóa.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_roles"))
+    @Query(value = "DELETE FROM user_roles WHERE user_id IN "
+            + "(SELECT u.id FROM users u WHERE u.id IN (:ids) AND u.role_mask <> :mask)", nativeQuery = true)
+    int deleteRolesOfChangedUsers(@Param("ids") Collection<Long> ids, @Param("mask") long mask);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_roles"))
+    @Query(value = "INSERT INTO user_roles (user_id, role_id) SELECT u.id, r.id FROM users u CROSS JOIN roles r "
+            + "WHERE u.id IN (:ids) AND u.role_mask <> :mask AND r.id IN (:roleIds)", nativeQuery = true)
+    int insertRolesForChangedUsers(@Param("ids") Collection<Long> ids, @Param("mask") long mask,
+                                   @Param("roleIds") Collection<Long> roleIds);
+
+    @Modifying
+    @Query("UPDATE User u SET u.roleMask = :mask, u.updatedAt = :now WHERE u.id IN :ids AND u.roleMask <> :mask")
+    int updateRoleMaskByIdIn(@Param("ids") Collection<Long> ids, @Param("mask") long mask,
+                             @Param("now") LocalDateTime now);
+
+    String ROLE_MASK_OF_USER = "(SELECT COALESCE(SUM(POWER(2, ur.role_id - 1)), 0) "
+            + "FROM user_roles ur WHERE ur.user_id = u.id)";
+
+    /**
+     * Tính lại {@code role_mask} từ {@code user_roles} cho các dòng lệch có id trong {@code (fromId, toId]};
+     * trả về số dòng đã sửa. Subquery chạy cho mọi dòng trong khoảng, nên gọi theo từng khoảng id nhỏ.
+     */
+    @Modifying
+    @Query(value = "UPDATE users u SET role_mask = " + ROLE_MASK_OF_USER
+            + " WHERE u.id > :fromId AND u.id <= :toId AND u.role_mask <> " + ROLE_MASK_OF_USER,
+            nativeQuery = true)
+    int syncRoleMasks(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * Còn user có {@code role_mask} bằng {@code roleMask} nhưng vẫn có dòng {@code user_roles};
+     * với mask 0 đó là dấu hiệu cột chưa được backfill. Dừng ở dòng đầu tiên tìm thấy.
+     */
+    boolean existsByRoleMaskAndRolesIsNotEmpty(Long roleMask);
+
+    @Query("SELECT COALESCE(MAX(u.id), 0) FROM User u")
+    long findMaxId();
+}
@@ -0,0 +1,13 @@
+package com.example.kltn.repository.projection;
+
+/**
+ * Chỉ các cột cần để gửi email chiến dịch, không nạp entity User và roles.
+ */
+public interface CampaignRecipient {
+
+    Long getId();
+
+    String getEmail();
+
+    String getFullName();
+}
@@ -0,0 +1,17 @@
+package com.example.kltn.repository.projection;
+
+import com.example.kltn.entity.User;
+
+/**
+ * Số người dùng theo từng tổ hợp (provider, isActive, emailVerified), dùng để đối soát bộ đếm dashboard.
+ */
+public interface UserCountView {
+
+    User.AuthProvider getProvider();
+
+    Boolean getIsActive();
+
+    Boolean getEmailVerified();
+
+    Long getTotal();
+}
@@ -0,0 +1,8 @@
+package com.example.kltn.repository.projection;
+
+public interface UserEmailView {
+
+    Long getId();
+
+    String getEmail();
+}
@@ -0,0 +1,35 @@
+package com.example.kltn.repository.projection;
+
+import com.example.kltn.entity.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Đúng các cột của {@code UserResponse}; roles đọc từ {@code role_mask} nên không cần join {@code user_roles}.
+ */
+public interface UserResponseView {
+
+    Long getId();
+
+    String getEmail();
+
+    String getFullName();
+
+    String getPhone();
+
+    String getAddress();
+
+    String getAvatar();
+
+    User.AuthProvider getProvider();
+
+    Boolean getEmailVerified();
+
+    Boolean getIsActive();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+
+    Long getRoleMask();
+}
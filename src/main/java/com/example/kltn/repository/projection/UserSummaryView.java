@@ -0,0 +1,29 @@
+package com.example.kltn.repository.projection;
+
+import com.example.kltn.entity.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng người dùng dạng scalar (không phải entity được quản lý), roles ở dạng {@code role_mask}.
+ */
+public interface UserSummaryView {
+
+    Long getId();
+
+    String getEmail();
+
+    String getFullName();
+
+    String getPhone();
+
+    User.AuthProvider getProvider();
+
+    Boolean getEmailVerified();
+
+    Boolean getIsActive();
+
+    LocalDateTime getCreatedAt();
+
+    Long getRoleMask();
+}
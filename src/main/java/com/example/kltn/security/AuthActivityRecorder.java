@@ -0,0 +1,139 @@
+package com.example.kltn.security;
+
+import com.example.kltn.util.RingCounter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đếm sự kiện xác thực theo phút và theo giờ trong {@link RingCounter}.
+ * Ghi chỉ là một lần CAS trên mảng có sẵn; snapshot định kỳ ra file nhị phân nhỏ
+ * (ghi file tạm rồi đổi tên) để chuỗi số liệu còn sau khi khởi động lại.
+ */
+@Component
+@Slf4j
+public class AuthActivityRecorder {
+
+    private static final int SNAPSHOT_MAGIC = 0x4B415541;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    public enum Resolution {
+        MINUTE, HOUR;
+
+        public static Resolution from(String value) {
+            return "hour".equalsIgnoreCase(value) ? HOUR : MINUTE;
+        }
+    }
+
+    private final Map<AuthEvent, RingCounter> perMinute = new EnumMap<>(AuthEvent.class);
+    private final Map<AuthEvent, RingCounter> perHour = new EnumMap<>(AuthEvent.class);
+    private final Path snapshotFile;
+
+    public AuthActivityRecorder(@Value("${app.auth-activity.minutes:1440}") int minutes,
+                                @Value("${app.auth-activity.hours:720}") int hours,
+                                @Value("${app.auth-activity.snapshot-file:./data/auth-activity.bin}") String snapshotFile) {
+        for (AuthEvent event : AuthEvent.values()) {
+            perMinute.put(event, new RingCounter(TimeUnit.MINUTES.toMillis(1), minutes));
+            perHour.put(event, new RingCounter(TimeUnit.HOURS.toMillis(1), hours));
+        }
+        this.snapshotFile = Path.of(snapshotFile);
+    }
+
+    public void record(AuthEvent event) {
+        long now = System.currentTimeMillis();
+        perMinute.get(event).increment(now);
+        perHour.get(event).increment(now);
+    }
+
+    public Map<String, long[]> series(Resolution resolution, int points) {
+        long now = System.currentTimeMillis();
+        Map<String, long[]> series = new LinkedHashMap<>();
+        counters(resolution).forEach((event, counter) -> series.put(event.name(), counter.series(now, points)));
+        return series;
+    }
+
+    public long bucketMillis(Resolution resolution) {
+        return counters(resolution).get(AuthEvent.LOGIN).getBucketMillis();
+    }
+
+    @PostConstruct
+    public void restore() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("Ignoring auth activity snapshot {} with unknown format", snapshotFile);
+                return;
+            }
+            int events = in.readInt();
+            for (int i = 0; i < events; i++) {
+                String name = in.readUTF();
+                AuthEvent event = find(name);
+                readCounter(in, event != null ? perMinute.get(event) : null);
+                readCounter(in, event != null ? perHour.get(event) : null);
+            }
+            log.info("Restored auth activity from {}", snapshotFile);
+        } catch (NoSuchFileException e) {
+            // lần chạy đầu tiên
+        } catch (IOException e) {
+            log.warn("Failed to restore auth activity from {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${app.auth-activity.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try {
+            if (snapshotFile.getParent() != null) {
+                Files.createDirectories(snapshotFile.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(perMinute.size());
+                for (AuthEvent event : AuthEvent.values()) {
+                    out.writeUTF(event.name());
+                    perMinute.get(event).writeTo(out);
+                    perHour.get(event).writeTo(out);
+                }
+            }
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write auth activity snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    private Map<AuthEvent, RingCounter> counters(Resolution resolution) {
+        return resolution == Resolution.HOUR ? perHour : perMinute;
+    }
+
+    private static void readCounter(DataInputStream in, RingCounter counter) throws IOException {
+        // Sự kiện đã bị xóa khỏi enum: vẫn phải đọc qua để giữ vị trí trong file
+        (counter != null ? counter : new RingCounter(1, 1)).readFrom(in);
+    }
+
+    private static AuthEvent find(String name) {
+        for (AuthEvent event : AuthEvent.values()) {
+            if (event.name().equals(name)) {
+                return event;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.kltn.security;
+
+public enum AuthEvent {
+    LOGIN,
+    LOGIN_FAILED,
+    OAUTH2_LOGIN,
+    REGISTER,
+    PASSWORD_RESET_REQUEST,
+    PASSWORD_RESET,
+    TOKEN_REFRESH
+}
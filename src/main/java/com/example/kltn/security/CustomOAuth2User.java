@@ -3,22 +3,23 @@ package com.example.kltn.security;
 import com.example.kltn.entity.User;
 import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Getter
 public class CustomOAuth2User implements OAuth2User {
 
     private final OAuth2User oauth2User;
     private final User user;
+    private final List<GrantedAuthority> authorities;
 
-    public CustomOAuth2User(OAuth2User oauth2User, User user) {
+    public CustomOAuth2User(OAuth2User oauth2User, User user, List<GrantedAuthority> authorities) {
         this.oauth2User = oauth2User;
         this.user = user;
+        this.authorities = authorities;
     }
 
     @Override
@@ -28,9 +29,7 @@ public class CustomOAuth2User implements OAuth2User {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName()))
-                .collect(Collectors.toList());
+        return authorities;
     }
 
     @Override
@@ -4,36 +4,62 @@ package com.example.kltn.security;
 import com.example.kltn.entity.User;
 import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
-import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.List;
 
+/**
+ * Bản chụp bất biến các trường dùng cho xác thực, không giữ entity {@link User}:
+ * một instance được mọi request trúng {@link UserDetailsCache} dùng chung.
+ */
 @Getter
 public class CustomUserDetails implements UserDetails {
 
-    private final User user;
+    private final Long id;
+    private final String email;
+    private final String fullName;
+    private final String password;
+    private final boolean active;
+    private final boolean emailVerified;
+    private final long roleMask;
+    private final int tokenVersion;
+    /** List dùng chung của {@link RoleAuthorities} theo {@code role_mask}, không dựng lại mỗi lần gọi. */
+    private final List<GrantedAuthority> authorities;
+
+    public CustomUserDetails(User user, List<GrantedAuthority> authorities) {
+        this(user.getId(), user.getEmail(), user.getFullName(), user.getPassword(),
+                Boolean.TRUE.equals(user.getIsActive()), Boolean.TRUE.equals(user.getEmailVerified()),
+                user.getRoleMask() == null ? 0L : user.getRoleMask(),
+                user.getTokenVersion() == null ? 0 : user.getTokenVersion(), authorities);
+    }
 
-    public CustomUserDetails(User user) {
-        this.user = user;
+    private CustomUserDetails(Long id, String email, String fullName, String password, boolean active,
+                              boolean emailVerified, long roleMask, int tokenVersion,
+                              List<GrantedAuthority> authorities) {
+        this.id = id;
+        this.email = email;
+        this.fullName = fullName;
+        this.password = password;
+        this.active = active;
+        this.emailVerified = emailVerified;
+        this.roleMask = roleMask;
+        this.tokenVersion = tokenVersion;
+        this.authorities = authorities;
     }
 
-    @Override
-    public Collection<? extends GrantedAuthority> getAuthorities() {
-        return user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName()))
-                .collect(Collectors.toList());
+    public CustomUserDetails withPassword(String newPassword) {
+        return new CustomUserDetails(id, email, fullName, newPassword, active, emailVerified, roleMask,
+                tokenVersion, authorities);
     }
 
     @Override
-    public String getPassword() {
-        return user.getPassword();
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return email;
     }
 
     @Override
@@ -43,7 +69,7 @@ public class CustomUserDetails implements UserDetails {
 
     @Override
     public boolean isAccountNonLocked() {
-        return user.getIsActive();
+        return active;
     }
 
     @Override
@@ -53,18 +79,6 @@ public class CustomUserDetails implements UserDetails {
 
     @Override
     public boolean isEnabled() {
-        return user.getEmailVerified() && user.getIsActive();
-    }
-
-    public Long getId() {
-        return user.getId();
-    }
-
-    public String getFullName() {
-        return user.getFullName();
-    }
-
-    public String getEmail() {
-        return user.getEmail();
+        return emailVerified && active;
     }
-}
\ No newline at end of file
+}
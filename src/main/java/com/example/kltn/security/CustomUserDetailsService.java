@@ -4,23 +4,44 @@ import com.example.kltn.entity.User;
 import com.example.kltn.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final RoleAuthorities roleAuthorities;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        return userDetailsCache.get(email, this::loadFromDatabase);
+    }
+
+    /**
+     * Được DaoAuthenticationProvider gọi khi hash hiện tại dùng cost cũ hơn cấu hình.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        userRepository.updatePasswordByEmail(userDetails.getUsername(), newPassword);
+        userDetailsCache.invalidate(userDetails.getUsername());
+
+        // Bản trong cache được dùng chung nên không sửa tại chỗ
+        return ((CustomUserDetails) userDetails).withPassword(newPassword);
+    }
+
+    private CustomUserDetails loadFromDatabase(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() ->
                         new UsernameNotFoundException("Không tìm thấy user với email: " + email)
                 );
 
-        return new CustomUserDetails(user);
+        return new CustomUserDetails(user, roleAuthorities.authorities(user.getRoleMask()));
     }
 }
@@ -0,0 +1,121 @@
+package com.example.kltn.security;
+
+import com.example.kltn.entity.RevokedToken;
+import com.example.kltn.repository.RevokedTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Backend dùng chung giữa các node qua bảng {@code revoked_tokens}.
+ * Mỗi node định kỳ đọc các dòng mới (id tăng dần) để cập nhật store trong bộ nhớ.
+ * <p>
+ * Id IDENTITY được cấp lúc INSERT chứ không phải lúc commit: dòng id thấp commit sau dòng id cao
+ * sẽ lọt qua mốc {@code lastSeenId}. Các id bị nhảy cóc được ghi nhớ và đọc lại ở mỗi lần poll
+ * cho tới khi xuất hiện hoặc quá {@code gapTimeoutMillis} (transaction đã rollback).
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class DatabaseRevocationBackend implements RevocationBackend {
+
+    private static final int PAGE_SIZE = 500;
+    private static final int MAX_PENDING_GAPS = 10_000;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final long gapTimeoutMillis;
+
+    private final Map<Long, Long> pendingGaps = new ConcurrentHashMap<>();
+
+    private volatile long lastSeenId;
+
+    @Override
+    public void append(UUID tokenId, long expiresAt) {
+        revokedTokenRepository.save(RevokedToken.builder()
+                .tokenId(tokenId.toString())
+                .expiresAt(expiresAt)
+                .build());
+    }
+
+    @Override
+    public void replay(RevocationListener listener) {
+        // Đọc mốc trước: poll đầu tiên bỏ qua các dòng đã hết hạn thay vì đọc lại cả bảng
+        long replayedUpTo = revokedTokenRepository.findMaxId();
+        List<RevokedToken> live = revokedTokenRepository.findByExpiresAtGreaterThanOrderByIdAsc(
+                System.currentTimeMillis());
+        live.forEach(token -> deliver(token, listener));
+
+        // Dòng chưa commit lúc replay chỉ có thể nằm ở đuôi dãy id: coi các id còn thiếu ở đó là gap
+        long tailStart = Math.max(0, replayedUpTo - PAGE_SIZE);
+        Set<Long> replayed = new HashSet<>();
+        live.forEach(token -> replayed.add(token.getId()));
+        long now = System.currentTimeMillis();
+        for (long id = tailStart + 1; id <= replayedUpTo; id++) {
+            if (!replayed.contains(id)) {
+                pendingGaps.putIfAbsent(id, now);
+            }
+        }
+
+        lastSeenId = Math.max(lastSeenId, replayedUpTo);
+        log.info("Replayed {} revoked tokens from database", live.size());
+    }
+
+    @Override
+    public void poll(RevocationListener listener) {
+        long now = System.currentTimeMillis();
+        recheckGaps(listener, now);
+
+        List<RevokedToken> batch;
+        do {
+            batch = revokedTokenRepository.findTop500ByIdGreaterThanOrderByIdAsc(lastSeenId);
+            for (RevokedToken token : batch) {
+                trackGap(lastSeenId, token.getId(), now);
+                deliver(token, listener);
+            }
+        } while (batch.size() == PAGE_SIZE);
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.revocation.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int deleted = revokedTokenRepository.deleteExpired(System.currentTimeMillis());
+        if (deleted > 0) {
+            log.info("Purged {} expired revoked tokens", deleted);
+        }
+    }
+
+    private void recheckGaps(RevocationListener listener, long now) {
+        if (pendingGaps.isEmpty()) {
+            return;
+        }
+        pendingGaps.values().removeIf(detectedAt -> now - detectedAt > gapTimeoutMillis);
+        for (RevokedToken token : revokedTokenRepository.findAllById(List.copyOf(pendingGaps.keySet()))) {
+            pendingGaps.remove(token.getId());
+            // Gap từ lúc replay có thể là dòng đã hết hạn, không cần gửi lại
+            if (token.getExpiresAt() > now) {
+                deliver(token, listener);
+            }
+        }
+    }
+
+    private void trackGap(long previousId, long id, long now) {
+        for (long missing = previousId + 1; missing < id; missing++) {
+            if (pendingGaps.size() >= MAX_PENDING_GAPS) {
+                log.warn("Too many pending revocation id gaps, ignoring ids {}..{}", missing, id - 1);
+                return;
+            }
+            pendingGaps.putIfAbsent(missing, now);
+        }
+    }
+
+    private void deliver(RevokedToken token, RevocationListener listener) {
+        listener.onRevoked(UUID.fromString(token.getTokenId()), token.getExpiresAt());
+        lastSeenId = Math.max(lastSeenId, token.getId());
+    }
+}
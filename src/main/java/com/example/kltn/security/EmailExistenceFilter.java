@@ -0,0 +1,136 @@
+package com.example.kltn.security;
+
+import com.example.kltn.repository.UserRepository;
+import com.example.kltn.repository.projection.UserEmailView;
+import com.example.kltn.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Bloom filter các email đã đăng ký, để đăng ký/OAuth2 trả lời "chắc chắn chưa có"
+ * mà không cần truy vấn DB. Nạp từ DB lúc khởi động (trong lúc nạp luôn trả lời "có thể có")
+ * và được bổ sung mỗi khi tạo user.
+ * <p>
+ * Filter chỉ là đường tắt: email do node khác tạo có thể chưa có trong filter,
+ * nên tính đúng vẫn dựa vào unique constraint trên {@code users.email}.
+ */
+@Component
+@Slf4j
+public class EmailExistenceFilter {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int LOAD_PAGE_SIZE = 10_000;
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long expectedEntries;
+    private final BloomFilter filter;
+    private final Counter skipped;
+    private final Counter checked;
+    private volatile boolean ready;
+
+    public EmailExistenceFilter(UserRepository userRepository,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.security.email-filter.expected-entries:1000000}") long expectedEntries) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.expectedEntries = expectedEntries;
+        this.filter = new BloomFilter(expectedEntries, FALSE_POSITIVE_RATE);
+        this.skipped = meterRegistry.counter("user.email.filter", "result", "definitely-new");
+        this.checked = meterRegistry.counter("user.email.filter", "result", "maybe-exists");
+    }
+
+    /**
+     * Nạp theo từng trang keyset {@code id > afterId}; email tạo trong lúc nạp được thêm qua {@link #add}.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long startedAt = System.currentTimeMillis();
+        long loaded = 0;
+        long afterId = 0;
+        List<UserEmailView> page;
+        do {
+            long from = afterId;
+            page = readOnlyTransaction.execute(status ->
+                    userRepository.findEmailsAfter(from, PageRequest.of(0, LOAD_PAGE_SIZE)));
+            if (page == null || page.isEmpty()) {
+                break;
+            }
+            for (UserEmailView row : page) {
+                add(row.getEmail());
+            }
+            loaded += page.size();
+            afterId = page.get(page.size() - 1).getId();
+        } while (page.size() == LOAD_PAGE_SIZE);
+        ready = true;
+
+        log.info("Loaded {} emails into existence filter in {} ms", loaded, System.currentTimeMillis() - startedAt);
+        if (loaded > expectedEntries) {
+            log.warn("Email filter holds {} emails, more than expected {}; false positive rate will rise",
+                    loaded, expectedEntries);
+        }
+    }
+
+    /**
+     * {@code false} nghĩa là chắc chắn chưa có user nào dùng email này (trên node này);
+     * {@code true} thì phải hỏi DB.
+     */
+    public boolean mightExist(String email) {
+        if (!ready || email == null) {
+            return true;
+        }
+        long hash = hash(email);
+        if (filter.mightContain(BloomFilter.mix(hash), BloomFilter.mix(~hash) | 1L)) {
+            checked.increment();
+            return true;
+        }
+        skipped.increment();
+        return false;
+    }
+
+    public void add(String email) {
+        if (email != null) {
+            long hash = hash(email);
+            filter.put(BloomFilter.mix(hash), BloomFilter.mix(~hash) | 1L);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * FNV-1a 64 bit trên email đã chuẩn hóa chữ thường, không cấp phát chuỗi mới
+     * (collation của cột email không phân biệt hoa thường).
+     */
+    private static long hash(String email) {
+        long hash = 0xcbf29ce484222325L;
+        int end = email.length();
+        int start = 0;
+        while (start < end && Character.isWhitespace(email.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(email.charAt(end - 1))) {
+            end--;
+        }
+        for (int i = start; i < end; i++) {
+            hash ^= Character.toLowerCase(email.charAt(i));
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
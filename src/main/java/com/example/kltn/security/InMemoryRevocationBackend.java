@@ -0,0 +1,44 @@
+package com.example.kltn.security;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Bản thay thế cục bộ cho backend dùng chung, dùng khi dev/test:
+ * không ghi ra đĩa, mọi thu hồi mất khi restart.
+ */
+public class InMemoryRevocationBackend implements RevocationBackend {
+
+    private final List<Entry> entries = new CopyOnWriteArrayList<>();
+    private int polled;
+
+    @Override
+    public void append(UUID tokenId, long expiresAt) {
+        entries.add(new Entry(tokenId, expiresAt));
+    }
+
+    @Override
+    public void replay(RevocationListener listener) {
+        long now = System.currentTimeMillis();
+        for (Entry entry : entries) {
+            if (entry.expiresAt() > now) {
+                listener.onRevoked(entry.tokenId(), entry.expiresAt());
+            }
+        }
+        polled = entries.size();
+    }
+
+    @Override
+    public void poll(RevocationListener listener) {
+        int size = entries.size();
+        for (int i = polled; i < size; i++) {
+            Entry entry = entries.get(i);
+            listener.onRevoked(entry.tokenId(), entry.expiresAt());
+        }
+        polled = size;
+    }
+
+    private record Entry(UUID tokenId, long expiresAt) {
+    }
+}
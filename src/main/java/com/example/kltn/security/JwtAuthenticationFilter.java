@@ -7,6 +7,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -27,6 +28,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Qualifier("customUserDetailsService")
     private final UserDetailsService userDetailsService;
 
+    private final UserVersionRegistry userVersionRegistry;
+
+    /**
+     * Bật để dựng principal trực tiếp từ claims của token, không đọc DB mỗi request.
+     * Độ trễ khi quyền thay đổi được giới hạn bởi {@link UserVersionRegistry}.
+     */
+    @Value("${app.security.stateless-auth.enabled:false}")
+    private boolean statelessAuthEnabled;
+
     @Override
     protected void doFilterInternal(
             @NonNull HttpServletRequest request,
@@ -44,12 +54,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
+        VerifiedToken verifiedToken = jwtService.verifyToken(jwt);
+        // Refresh token chỉ dùng để lấy access token mới, không xác thực request
+        if (verifiedToken.isRefresh()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        userEmail = verifiedToken.getSubject();
 
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
+            UserDetails userDetails = resolveUserDetails(verifiedToken);
 
-            if (jwtService.isTokenValid(jwt, userDetails.getUsername())) {
+            if (userDetails != null && jwtService.isTokenValid(verifiedToken, userDetails.getUsername())) {
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails,
@@ -67,4 +83,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails resolveUserDetails(VerifiedToken verifiedToken) {
+        // Token cấp trước khi có userId/roles vẫn phải đọc từ DB
+        if (!statelessAuthEnabled || verifiedToken.getUserId() == null) {
+            return userDetailsService.loadUserByUsername(verifiedToken.getSubject());
+        }
+
+        if (!userVersionRegistry.isCurrent(verifiedToken.getUserId(), verifiedToken.getVersion())) {
+            return null;
+        }
+
+        return new JwtUserPrincipal(verifiedToken);
+    }
 }
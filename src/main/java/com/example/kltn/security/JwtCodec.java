@@ -0,0 +1,270 @@
+package com.example.kltn.security;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Mã hóa / giải mã JWT HS256 với parser, signer và header dựng sẵn một lần.
+ * Token sinh ra tương thích với JJWT ({@code {"alg":"HS256"}}); token có header khác
+ * được chuyển cho parser JJWT dùng lại.
+ */
+@Component
+public class JwtCodec {
+
+    private static final String HEADER_SEGMENT = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.US_ASCII));
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String REFRESH_TYPE = "refresh";
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_URL_DECODER = Base64.getUrlDecoder();
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final SecretKey key;
+    private final JwtParser fallbackParser;
+    // Pool Mac dùng lại thay vì ThreadLocal: với virtual thread mỗi request là một thread mới
+    private final Queue<Mac> macs = new ConcurrentLinkedQueue<>();
+
+    public JwtCodec(@Value("${jwt.secret}") String base64Secret) {
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
+        this.fallbackParser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+    }
+
+    /**
+     * Tạo access token. Các claim null sẽ bị bỏ qua.
+     */
+    public String encode(String subject, Long userId, String fullName, List<String> roles,
+                         Integer version, long ttlMillis) {
+        return encode(subject, userId, fullName, roles, version, null, ttlMillis);
+    }
+
+    /**
+     * Tạo refresh token: chỉ mang subject, userId, ver và claim {@code typ=refresh}.
+     */
+    public String encodeRefresh(String subject, Long userId, Integer version, long ttlMillis) {
+        return encode(subject, userId, null, null, version, REFRESH_TYPE, ttlMillis);
+    }
+
+    private String encode(String subject, Long userId, String fullName, List<String> roles,
+                          Integer version, String type, long ttlMillis) {
+        long now = System.currentTimeMillis();
+
+        StringBuilder json = new StringBuilder(192).append('{');
+        if (userId != null) {
+            json.append("\"userId\":").append(userId).append(',');
+            appendString(json.append("\"email\":"), subject).append(',');
+        }
+        if (fullName != null) {
+            appendString(json.append("\"fullName\":"), fullName).append(',');
+        }
+        if (roles != null) {
+            json.append("\"roles\":[");
+            for (int i = 0; i < roles.size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                appendString(json, roles.get(i));
+            }
+            json.append("],");
+        }
+        if (version != null) {
+            json.append("\"ver\":").append(version).append(',');
+        }
+        if (type != null) {
+            appendString(json.append("\"typ\":"), type).append(',');
+        }
+        appendString(json.append("\"sub\":"), subject).append(',');
+        appendString(json.append("\"jti\":"), UUID.randomUUID().toString()).append(',');
+        json.append("\"iat\":").append(now / 1000).append(',');
+        json.append("\"exp\":").append((now + ttlMillis) / 1000).append('}');
+
+        String signingInput = HEADER_SEGMENT + '.'
+                + BASE64_URL.encodeToString(json.toString().getBytes(StandardCharsets.UTF_8));
+        byte[] signature = sign(signingInput.getBytes(StandardCharsets.US_ASCII));
+
+        return signingInput + '.' + BASE64_URL.encodeToString(signature);
+    }
+
+    /**
+     * Xác thực chữ ký và đọc claims. {@code fallbackTokenId} được dùng làm id cho token không có jti.
+     */
+    public VerifiedToken decode(String token, UUID fallbackTokenId) {
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            throw new MalformedJwtException("JWT phải có đúng 3 phần");
+        }
+
+        if (!token.startsWith(HEADER_SEGMENT) || firstDot != HEADER_SEGMENT.length()) {
+            return fromClaims(fallbackParser.parseClaimsJws(token).getBody(), fallbackTokenId);
+        }
+
+        byte[] signingInput = token.substring(0, secondDot).getBytes(StandardCharsets.US_ASCII);
+        byte[] expected = sign(signingInput);
+        byte[] actual;
+        byte[] payload;
+        try {
+            actual = BASE64_URL_DECODER.decode(token.substring(secondDot + 1));
+            payload = BASE64_URL_DECODER.decode(token.substring(firstDot + 1, secondDot));
+        } catch (IllegalArgumentException e) {
+            throw new MalformedJwtException("JWT không phải Base64URL hợp lệ", e);
+        }
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new SignatureException("Chữ ký JWT không khớp");
+        }
+
+        VerifiedToken verified = parsePayload(payload, fallbackTokenId);
+        if (verified.isExpired()) {
+            throw new ExpiredJwtException(null, null, "JWT đã hết hạn lúc " + verified.getExpiresAt());
+        }
+        return verified;
+    }
+
+    private VerifiedToken parsePayload(byte[] payload, UUID fallbackTokenId) {
+        VerifiedToken.VerifiedTokenBuilder builder = VerifiedToken.builder();
+        UUID tokenId = fallbackTokenId;
+        boolean hasExpiration = false;
+
+        try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new MalformedJwtException("Payload JWT không phải JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "sub" -> builder.subject(parser.getValueAsString());
+                    case "userId" -> builder.userId(parser.getLongValue());
+                    case "fullName" -> builder.fullName(parser.getValueAsString());
+                    case "ver" -> builder.version(parser.getIntValue());
+                    case "typ" -> builder.refresh(REFRESH_TYPE.equals(parser.getValueAsString()));
+                    case "iat" -> builder.issuedAt(parser.getLongValue() * 1000);
+                    case "exp" -> {
+                        builder.expiresAt(parser.getLongValue() * 1000);
+                        hasExpiration = true;
+                    }
+                    case "jti" -> tokenId = toTokenId(parser.getValueAsString(), fallbackTokenId);
+                    case "roles" -> builder.roles(readRoles(parser, value));
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new MalformedJwtException("Payload JWT không hợp lệ", e);
+        }
+
+        if (!hasExpiration) {
+            throw new MalformedJwtException("JWT thiếu claim exp");
+        }
+        return builder.tokenId(tokenId).build();
+    }
+
+    private List<String> readRoles(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return List.of();
+        }
+        List<String> roles = new ArrayList<>(2);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            roles.add(parser.getValueAsString());
+        }
+        return roles;
+    }
+
+    private VerifiedToken fromClaims(Claims claims, UUID fallbackTokenId) {
+        List<?> roles = claims.get("roles", List.class);
+        Integer version = claims.get("ver", Integer.class);
+
+        return VerifiedToken.builder()
+                .subject(claims.getSubject())
+                .userId(claims.get("userId", Long.class))
+                .fullName(claims.get("fullName", String.class))
+                .roles(roles == null ? List.of() : roles.stream().map(String::valueOf).toList())
+                .version(version != null ? version : 0)
+                .refresh(REFRESH_TYPE.equals(claims.get("typ", String.class)))
+                .issuedAt(claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L)
+                .expiresAt(claims.getExpiration().getTime())
+                .tokenId(toTokenId(claims.getId(), fallbackTokenId))
+                .build();
+    }
+
+    private static UUID toTokenId(String jti, UUID fallbackTokenId) {
+        if (jti != null) {
+            try {
+                return UUID.fromString(jti);
+            } catch (IllegalArgumentException ignored) {
+                // jti không phải UUID, dùng id dự phòng như token cũ
+            }
+        }
+        return fallbackTokenId;
+    }
+
+    private static StringBuilder appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"');
+    }
+
+    private byte[] sign(byte[] input) {
+        Mac mac = macs.poll();
+        if (mac == null) {
+            mac = newMac();
+        }
+        try {
+            return mac.doFinal(input);
+        } finally {
+            macs.offer(mac);
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Không khởi tạo được " + HMAC_ALGORITHM, e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.kltn.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Principal nhẹ dựng trực tiếp từ claims của JWT đã xác thực, không cần đọc DB.
+ */
+@Getter
+public class JwtUserPrincipal implements UserDetails {
+
+    private final Long id;
+    private final String email;
+    private final String fullName;
+    private final List<GrantedAuthority> authorities;
+
+    public JwtUserPrincipal(VerifiedToken token) {
+        this.id = token.getUserId();
+        this.email = token.getSubject();
+        this.fullName = token.getFullName();
+        this.authorities = AuthorityUtils.createAuthorityList(token.getRoles());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.kltn.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+@Component
+@Slf4j
+public class LocalUserCacheInvalidationBus implements UserCacheInvalidationBus {
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Collection<Long>>> versionListeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String email) {
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(email);
+            } catch (Exception e) {
+                log.error("User cache invalidation listener failed for {}", email, e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void publishVersionChange(Collection<Long> userIds) {
+        for (Consumer<Collection<Long>> listener : versionListeners) {
+            try {
+                listener.accept(userIds);
+            } catch (Exception e) {
+                log.error("User version listener failed for {} users", userIds.size(), e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribeVersionChanges(Consumer<Collection<Long>> listener) {
+        versionListeners.add(listener);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.kltn.security;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Log thu hồi append-only trên file memory-mapped.
+ * Mỗi bản ghi 24 byte: jti (2 long) + thời điểm hết hạn. Giá trị hết hạn được ghi sau cùng
+ * và đóng vai trò đánh dấu bản ghi đã hoàn chỉnh, bản ghi dở dang sẽ bị ghi đè ở lần append sau.
+ * Khi khởi động, các bản ghi hết hạn bị loại bỏ nếu chiếm đa số.
+ * <p>
+ * Bản ghi nằm trong page cache của hệ điều hành ngay khi append, nên tiến trình chết vẫn không mất dữ liệu;
+ * chỉ khi cả máy sập (mất điện, kernel panic) thì mất các thu hồi chưa được {@link #flush()} đẩy xuống đĩa,
+ * tức tối đa {@code app.security.revocation.force-interval-ms}. Các token đó dùng lại được cho tới khi hết hạn.
+ */
+@Slf4j
+public class MappedFileRevocationBackend implements RevocationBackend {
+
+    private static final int RECORD_SIZE = 24;
+    private static final int INITIAL_RECORDS = 65536;
+
+    private final Path path;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int writePosition;
+    private boolean dirty;
+
+    public MappedFileRevocationBackend(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void replay(RevocationListener listener) {
+        lock.lock();
+        try {
+            open();
+
+            long now = System.currentTimeMillis();
+            int live = 0;
+            int expired = 0;
+            int position = 0;
+            while (position + RECORD_SIZE <= buffer.capacity()) {
+                long expiresAt = buffer.getLong(position + 16);
+                if (expiresAt == 0) {
+                    break;
+                }
+                if (expiresAt > now) {
+                    UUID tokenId = new UUID(buffer.getLong(position), buffer.getLong(position + 8));
+                    listener.onRevoked(tokenId, expiresAt);
+                    live++;
+                } else {
+                    expired++;
+                }
+                position += RECORD_SIZE;
+            }
+            writePosition = position;
+
+            log.info("Replayed {} revoked tokens from {} ({} expired)", live, path, expired);
+
+            if (expired > live) {
+                compact(now);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Không thể đọc log thu hồi token: " + path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void append(UUID tokenId, long expiresAt) {
+        lock.lock();
+        try {
+            if (writePosition + RECORD_SIZE > buffer.capacity()) {
+                remap(buffer.capacity() * 2L);
+            }
+            buffer.putLong(writePosition, tokenId.getMostSignificantBits());
+            buffer.putLong(writePosition + 8, tokenId.getLeastSignificantBits());
+            buffer.putLong(writePosition + 16, expiresAt);
+            writePosition += RECORD_SIZE;
+            dirty = true;
+        } catch (IOException e) {
+            log.error("Failed to append revoked token {} to {}", tokenId, path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Đẩy các bản ghi mới xuống đĩa. Ghi đĩa chạy ngoài khóa để không chặn các lần logout đang append.
+     */
+    @Scheduled(fixedDelayString = "${app.security.revocation.force-interval-ms:1000}")
+    public void flush() {
+        MappedByteBuffer target;
+        lock.lock();
+        try {
+            if (!dirty || buffer == null) {
+                return;
+            }
+            target = buffer;
+            dirty = false;
+        } finally {
+            lock.unlock();
+        }
+        target.force();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (buffer != null) {
+                buffer.force();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), (long) INITIAL_RECORDS * RECORD_SIZE);
+        remap(size - size % RECORD_SIZE);
+    }
+
+    private void remap(long size) throws IOException {
+        if (buffer != null) {
+            buffer.force();
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private void compact(long now) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".compact");
+        int live = 0;
+
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer target = out.map(FileChannel.MapMode.READ_WRITE, 0, buffer.capacity());
+            for (int position = 0; position < writePosition; position += RECORD_SIZE) {
+                long expiresAt = buffer.getLong(position + 16);
+                if (expiresAt > now) {
+                    int offset = live * RECORD_SIZE;
+                    target.putLong(offset, buffer.getLong(position));
+                    target.putLong(offset + 8, buffer.getLong(position + 8));
+                    target.putLong(offset + 16, expiresAt);
+                    live++;
+                }
+            }
+            target.force();
+        }
+
+        channel.close();
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+        writePosition = live * RECORD_SIZE;
+
+        log.info("Compacted revocation log {} to {} records", path, live);
+    }
+}
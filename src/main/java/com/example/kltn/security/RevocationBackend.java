@@ -0,0 +1,29 @@
+package com.example.kltn.security;
+
+import java.util.UUID;
+
+/**
+ * Nơi lưu bền các lần thu hồi token để {@link TokenRevocationStore} nạp lại khi khởi động
+ * và nhận các thu hồi từ node khác. Việc tra cứu trên request vẫn chỉ dùng bộ nhớ.
+ */
+public interface RevocationBackend {
+
+    void append(UUID tokenId, long expiresAt);
+
+    /**
+     * Phát lại mọi thu hồi còn hạn, gọi một lần lúc khởi động.
+     */
+    void replay(RevocationListener listener);
+
+    /**
+     * Lấy các thu hồi mới do node khác ghi kể từ lần gọi trước.
+     * Backend chỉ dùng cục bộ không cần override.
+     */
+    default void poll(RevocationListener listener) {
+    }
+
+    @FunctionalInterface
+    interface RevocationListener {
+        void onRevoked(UUID tokenId, long expiresAt);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.kltn.security;
+
+import com.example.kltn.entity.Role;
+import com.example.kltn.repository.RoleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bảng authority dựng sẵn theo {@code users.role_mask}: mỗi mask ứng với đúng một list authority
+ * (và list tên role) bất biến dùng chung, nên kiểm tra quyền không cần join {@code user_roles}
+ * và không cấp phát gì theo request.
+ * <p>
+ * Bảng được nạp lại khi gặp bit của role chưa biết (role thêm sau khi khởi động). Việc nạp lại đọc DB
+ * nên dùng {@link ReentrantLock} thay vì {@code synchronized}, để không ghim virtual thread vào carrier.
+ * Đồng bộ {@code role_mask} với {@code user_roles} nằm ở {@link RoleMaskBackfill}.
+ */
+@Component
+@Slf4j
+public class RoleAuthorities implements SmartInitializingSingleton {
+
+    /** Tối đa 2^10 mask được dựng sẵn vào mảng; nhiều role hơn thì dựng dần theo mask gặp phải. */
+    private static final int DENSE_BITS = 10;
+
+    private final RoleRepository roleRepository;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private volatile Table table = new Table(new String[Long.SIZE]);
+    /** Bit của role đã bị xóa: bỏ qua thay vì nạp lại bảng ở mỗi request. */
+    private volatile long ignoredBits;
+
+    public RoleAuthorities(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    /**
+     * Nạp bảng trước khi web server nhận request.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        reload();
+    }
+
+    public List<GrantedAuthority> authorities(Long mask) {
+        return entry(mask == null ? 0L : mask).authorities();
+    }
+
+    public List<String> names(Long mask) {
+        return entry(mask == null ? 0L : mask).names();
+    }
+
+    private Entry entry(long mask) {
+        Table current = table;
+        if ((mask & ~(current.knownBits | ignoredBits)) != 0) {
+            current = reloadIfUnknown(mask);
+        }
+        return current.entry(mask & current.knownBits);
+    }
+
+    private Table reloadIfUnknown(long mask) {
+        reloadLock.lock();
+        try {
+            if ((mask & ~(table.knownBits | ignoredBits)) != 0) {
+                reload();
+                long unknown = mask & ~table.knownBits;
+                if (unknown != 0) {
+                    ignoredBits |= unknown;
+                    log.warn("role_mask bits {} reference deleted roles, ignoring them", Long.toBinaryString(unknown));
+                }
+            }
+            return table;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void reload() {
+        reloadLock.lock();
+        try {
+            String[] names = new String[Long.SIZE];
+            for (Role role : roleRepository.findAll()) {
+                names[Long.numberOfTrailingZeros(Role.bitOf(role.getId()))] = role.getName();
+            }
+            table = new Table(names);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private record Entry(List<GrantedAuthority> authorities, List<String> names) {
+    }
+
+    private static final class Table {
+
+        private final long knownBits;
+        private final GrantedAuthority[] authorities = new GrantedAuthority[Long.SIZE];
+        private final String[] names;
+        private final Entry[] dense;
+        private final Map<Long, Entry> sparse = new ConcurrentHashMap<>();
+
+        Table(String[] names) {
+            this.names = names;
+            long bits = 0;
+            for (int bit = 0; bit < names.length; bit++) {
+                if (names[bit] != null) {
+                    bits |= 1L << bit;
+                    authorities[bit] = new SimpleGrantedAuthority(names[bit]);
+                }
+            }
+            this.knownBits = bits;
+
+            int width = Long.SIZE - Long.numberOfLeadingZeros(bits);
+            if (width <= DENSE_BITS) {
+                dense = new Entry[1 << width];
+                for (int mask = 0; mask < dense.length; mask++) {
+                    dense[mask] = (mask & ~bits) == 0 ? build(mask) : null;
+                }
+            } else {
+                dense = null;
+            }
+        }
+
+        Entry entry(long mask) {
+            if (dense != null) {
+                return dense[(int) mask];
+            }
+            return sparse.computeIfAbsent(mask, this::build);
+        }
+
+        private Entry build(long mask) {
+            List<GrantedAuthority> granted = new ArrayList<>(Long.bitCount(mask));
+            List<String> roleNames = new ArrayList<>(Long.bitCount(mask));
+            for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+                int bit = Long.numberOfTrailingZeros(remaining);
+                granted.add(authorities[bit]);
+                roleNames.add(names[bit]);
+            }
+            return new Entry(List.copyOf(granted), List.copyOf(roleNames));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.kltn.security;
+
+import com.example.kltn.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Đồng bộ lại {@code users.role_mask} từ {@code user_roles} (dữ liệu trước khi có cột, hoặc bị sửa trực tiếp
+ * bằng SQL) trước khi web server nhận request. Mỗi dòng phải tính subquery trên {@code user_roles}, nên chạy
+ * theo từng khoảng id, mỗi khoảng một transaction ngắn.
+ * <p>
+ * Trên database cũ, {@code ddl-auto=update} thêm cột với giá trị 0 cho mọi user, tức là không ai còn quyền
+ * nào; vì vậy lần khởi động nào còn user có mask 0 mà vẫn có dòng {@code user_roles} đều tự chạy.
+ * {@code backfill-on-startup=true} ép chạy toàn bộ, cho trường hợp mask lệch vì sửa tay bằng SQL.
+ */
+@Component
+@Slf4j
+public class RoleMaskBackfill implements SmartInitializingSingleton {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transaction;
+    private final int chunkSize;
+    private final boolean forceOnStartup;
+
+    public RoleMaskBackfill(UserRepository userRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.security.role-mask.backfill-chunk-size:1000}") int chunkSize,
+                            @Value("${app.security.role-mask.backfill-on-startup:false}") boolean forceOnStartup) {
+        this.userRepository = userRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.forceOnStartup = forceOnStartup;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (forceOnStartup) {
+            run();
+        } else if (userRepository.existsByRoleMaskAndRolesIsNotEmpty(0L)) {
+            log.warn("Found users with role_mask = 0 that still have user_roles rows, backfilling role_mask");
+            run();
+        }
+    }
+
+    public long run() {
+        long maxId = userRepository.findMaxId();
+        long synced = 0;
+        for (long from = 0; from < maxId; from += chunkSize) {
+            long fromId = from;
+            long toId = Math.min(from + chunkSize, maxId);
+            Integer chunk = transaction.execute(status -> userRepository.syncRoleMasks(fromId, toId));
+            synced += chunk == null ? 0 : chunk;
+        }
+        if (synced > 0) {
+            log.info("Backfilled role_mask for {} users", synced);
+        }
+        return synced;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.kltn.security;
+
+import java.util.Optional;
+
+/**
+ * Tầng cache dùng chung giữa các node (ví dụ Redis), đứng sau near cache của {@link UserDetailsCache}.
+ * Không bắt buộc: khi không có bean nào, cache chỉ dùng tầng local.
+ */
+public interface SharedUserDetailsStore {
+
+    Optional<CustomUserDetails> get(String email);
+
+    void put(String email, CustomUserDetails userDetails);
+
+    void evict(String email);
+}
@@ -0,0 +1,196 @@
+package com.example.kltn.security;
+
+import com.example.kltn.util.BloomFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Danh sách token bị thu hồi, khóa theo jti (UUID, 16 byte) thay vì cả chuỗi token.
+ * Mỗi entry tự hết hạn đúng lúc token hết hạn nhờ một timing wheel,
+ * nên kích thước store chỉ tỉ lệ với số token bị thu hồi còn hạn.
+ * Phía trước là Bloom filter: trường hợp phổ biến "chưa bị thu hồi" trả lời không cấp phát bộ nhớ.
+ * Các thu hồi được ghi bền qua {@link RevocationBackend} và nạp lại lúc khởi động.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationStore {
+
+    private static final int WHEEL_SLOTS = 4096;
+    private static final double FALSE_POSITIVE_RATE = 0.001;
+
+    private final MeterRegistry meterRegistry;
+    private final RevocationBackend revocationBackend;
+
+    @Value("${jwt.refresh-token.expiration}")
+    private long maxTokenLifetime;
+
+    @Value("${app.security.revocation.expected-entries:100000}")
+    private long expectedEntries;
+
+    private final Map<UUID, Long> revoked = new ConcurrentHashMap<>();
+
+    private Queue<UUID>[] wheel;
+    private long tickMillis;
+    private long lastTick;
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter nextFilter;
+    private long removedSinceRebuild;
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void init() {
+        this.wheel = new Queue[WHEEL_SLOTS];
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.tickMillis = Math.max(1000, maxTokenLifetime / (WHEEL_SLOTS - 1));
+        this.lastTick = System.currentTimeMillis() / tickMillis - 1;
+        this.filter = new BloomFilter(expectedEntries, FALSE_POSITIVE_RATE);
+
+        Gauge.builder("auth.revocation.entries", revoked, Map::size)
+                .description("Số token bị thu hồi còn hạn")
+                .register(meterRegistry);
+
+        revocationBackend.replay(this::restore);
+    }
+
+    public void revoke(UUID tokenId, long expiresAt) {
+        revoke(tokenId, expiresAt, System.currentTimeMillis());
+    }
+
+    void revoke(UUID tokenId, long expiresAt, long now) {
+        if (restore(tokenId, expiresAt, now)) {
+            revocationBackend.append(tokenId, expiresAt);
+        }
+    }
+
+    /**
+     * Định kỳ nhận các thu hồi do node khác ghi vào backend dùng chung.
+     */
+    @Scheduled(fixedDelayString = "${app.security.revocation.poll-interval-ms:5000}")
+    public void pollBackend() {
+        revocationBackend.poll(this::restore);
+    }
+
+    /**
+     * Thêm thu hồi vào bộ nhớ mà không ghi lại vào backend.
+     * Trả về false nếu token đã hết hạn hoặc đã có trong store.
+     */
+    private boolean restore(UUID tokenId, long expiresAt) {
+        return restore(tokenId, expiresAt, System.currentTimeMillis());
+    }
+
+    private boolean restore(UUID tokenId, long expiresAt, long now) {
+        if (expiresAt <= now) {
+            return false;
+        }
+        if (revoked.put(tokenId, expiresAt) != null) {
+            return false;
+        }
+
+        wheel[slotOf(expiresAt)].add(tokenId);
+
+        long h1 = hash1(tokenId);
+        long h2 = hash2(tokenId);
+        filter.put(h1, h2);
+        BloomFilter next = nextFilter;
+        if (next != null) {
+            next.put(h1, h2);
+        }
+        return true;
+    }
+
+    public boolean isRevoked(UUID tokenId) {
+        return isRevoked(tokenId, System.currentTimeMillis());
+    }
+
+    boolean isRevoked(UUID tokenId, long now) {
+        if (!filter.mightContain(hash1(tokenId), hash2(tokenId))) {
+            return false;
+        }
+
+        Long expiresAt = revoked.get(tokenId);
+        return expiresAt != null && expiresAt > now;
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    /**
+     * Quay timing wheel tới thời điểm hiện tại, xóa các entry đã hết hạn
+     * và dựng lại Bloom filter khi có quá nhiều entry đã bị xóa.
+     */
+    @Scheduled(fixedDelayString = "${app.security.revocation.sweep-interval-ms:30000}")
+    public void sweep() {
+        sweep(System.currentTimeMillis());
+    }
+
+    void sweep(long now) {
+        // Chỉ quét các tick đã trôi qua trọn vẹn, mọi entry trong đó chắc chắn đã hết hạn
+        long completedTick = now / tickMillis - 1;
+        long from = Math.max(lastTick + 1, completedTick - WHEEL_SLOTS + 1);
+
+        for (long tick = from; tick <= completedTick; tick++) {
+            Queue<UUID> bucket = wheel[(int) (tick % WHEEL_SLOTS)];
+            int pending = bucket.size();
+            for (int i = 0; i < pending; i++) {
+                UUID tokenId = bucket.poll();
+                if (tokenId == null) {
+                    break;
+                }
+                Long expiresAt = revoked.get(tokenId);
+                if (expiresAt == null) {
+                    continue;
+                }
+                if (expiresAt <= now) {
+                    revoked.remove(tokenId);
+                    removedSinceRebuild++;
+                } else {
+                    wheel[slotOf(expiresAt)].add(tokenId);
+                }
+            }
+        }
+        lastTick = Math.max(lastTick, completedTick);
+
+        if (removedSinceRebuild > Math.max(1024, revoked.size())) {
+            rebuildFilter();
+        }
+    }
+
+    private void rebuildFilter() {
+        BloomFilter rebuilt = new BloomFilter(expectedEntries, FALSE_POSITIVE_RATE);
+        nextFilter = rebuilt;
+        revoked.keySet().forEach(tokenId -> rebuilt.put(hash1(tokenId), hash2(tokenId)));
+        filter = rebuilt;
+        nextFilter = null;
+        removedSinceRebuild = 0;
+        log.debug("Rebuilt revocation Bloom filter with {} entries", revoked.size());
+    }
+
+    private int slotOf(long expiresAt) {
+        return (int) ((expiresAt / tickMillis) % WHEEL_SLOTS);
+    }
+
+    private static long hash1(UUID tokenId) {
+        return BloomFilter.mix(tokenId.getMostSignificantBits());
+    }
+
+    private static long hash2(UUID tokenId) {
+        return BloomFilter.mix(tokenId.getLeastSignificantBits()) | 1L;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.kltn.security;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Kênh phát tín hiệu xóa cache user giữa các node.
+ * Mặc định là {@link LocalUserCacheInvalidationBus} (chỉ trong JVM),
+ * có thể thay bằng một bean {@code @Primary} khác (Redis pub/sub, message broker...) khi chạy nhiều node.
+ */
+public interface UserCacheInvalidationBus {
+
+    void publish(String email);
+
+    /**
+     * Phát cho nhiều email một lượt; bus liên node nên ghi đè để gửi một thông điệp thay vì mỗi email một thông điệp.
+     */
+    default void publishAll(Collection<String> emails) {
+        emails.forEach(this::publish);
+    }
+
+    void subscribe(Consumer<String> listener);
+
+    /**
+     * Version token của các user này vừa tăng, xem {@link UserVersionRegistry}.
+     */
+    void publishVersionChange(Collection<Long> userIds);
+
+    void subscribeVersionChanges(Consumer<Collection<Long>> listener);
+}
@@ -0,0 +1,122 @@
+package com.example.kltn.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Cache hai tầng cho {@link CustomUserDetailsService}: near cache Caffeine trong JVM
+ * và tầng dùng chung tùy chọn ({@link SharedUserDetailsStore}).
+ * Các miss đồng thời cho cùng một email chỉ gọi loader một lần.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserDetailsCache {
+
+    private final UserCacheInvalidationBus invalidationBus;
+    private final ObjectProvider<SharedUserDetailsStore> sharedStoreProvider;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.cache.user-details.max-size:10000}")
+    private long maxSize;
+
+    @Value("${app.cache.user-details.ttl:5m}")
+    private Duration ttl;
+
+    private Cache<String, CustomUserDetails> nearCache;
+    private SharedUserDetailsStore sharedStore;
+
+    @PostConstruct
+    public void init() {
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.sharedStore = sharedStoreProvider.getIfAvailable();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, nearCache, "userDetails");
+        invalidationBus.subscribe(this::evictLocal);
+    }
+
+    public CustomUserDetails get(String email, Function<String, CustomUserDetails> loader) {
+        return nearCache.get(email, key -> {
+            if (sharedStore != null) {
+                CustomUserDetails shared = sharedStore.get(key).orElse(null);
+                if (shared != null) {
+                    return shared;
+                }
+            }
+
+            CustomUserDetails loaded = loader.apply(key);
+            if (sharedStore != null && loaded != null) {
+                sharedStore.put(key, loaded);
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * Xóa entry ngay lập tức trên mọi node, và xóa lại sau khi transaction hiện tại commit
+     * để không giữ bản đọc cũ bị nạp lại giữa lúc ghi và lúc commit.
+     */
+    public void invalidate(String email) {
+        if (email == null) {
+            return;
+        }
+
+        invalidationBus.publish(email);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidationBus.publish(email);
+                }
+            });
+        }
+    }
+
+    /**
+     * Như {@link #invalidate(String)} cho cả nhóm: một lượt phát ngay và một lượt sau commit, không đăng ký
+     * một synchronization cho mỗi email.
+     */
+    public void invalidateAll(Collection<String> emails) {
+        List<String> targets = emails.stream().filter(Objects::nonNull).toList();
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        invalidationBus.publishAll(targets);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidationBus.publishAll(targets);
+                }
+            });
+        }
+    }
+
+    private void evictLocal(String email) {
+        nearCache.invalidate(email);
+        if (sharedStore != null) {
+            sharedStore.evict(email);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.kltn.security;
+
+import com.example.kltn.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Version token theo user, dùng cho chế độ xác thực không truy vấn DB.
+ * Mỗi thay đổi ảnh hưởng tới quyền (đổi role, khóa tài khoản, đổi mật khẩu) tăng {@code users.token_version},
+ * token được cấp với version cũ sẽ không còn được chấp nhận.
+ * <p>
+ * Version được lưu trong DB nên không quay về 0 khi khởi động lại; mỗi node giữ bản đọc trong cache,
+ * bị xóa qua {@link UserCacheInvalidationBus} khi có node tăng version. TTL của cache giới hạn độ trễ
+ * nếu một thông điệp của bus bị mất.
+ */
+@Component
+public class UserVersionRegistry {
+
+    // User đã bị xóa: không token nào còn hợp lệ
+    private static final int DELETED = Integer.MAX_VALUE;
+
+    private final UserRepository userRepository;
+    private final UserCacheInvalidationBus invalidationBus;
+    private final LoadingCache<Long, Integer> versions;
+
+    public UserVersionRegistry(UserRepository userRepository,
+                               UserCacheInvalidationBus invalidationBus,
+                               @Value("${app.security.token-version.cache-size:100000}") long cacheSize,
+                               @Value("${app.security.token-version.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.invalidationBus = invalidationBus;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build(userId -> userRepository.findTokenVersionById(userId).orElse(DELETED));
+        invalidationBus.subscribeVersionChanges(versions::invalidateAll);
+    }
+
+    public int currentVersion(Long userId) {
+        if (userId == null) {
+            return 0;
+        }
+        return versions.get(userId);
+    }
+
+    /**
+     * Phải gọi trong transaction ghi thay đổi tương ứng.
+     */
+    public void bump(Long userId) {
+        bumpAll(List.of(userId));
+    }
+
+    /**
+     * Tăng version cho cả nhóm bằng một câu UPDATE. Bản đọc trên mọi node bị xóa ngay và xóa lại sau commit,
+     * để không giữ version cũ được nạp lại giữa lúc ghi và lúc commit.
+     */
+    public void bumpAll(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(userIds);
+        userRepository.incrementTokenVersions(ids);
+        invalidationBus.publishVersionChange(ids);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidationBus.publishVersionChange(ids);
+                }
+            });
+        }
+    }
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return tokenVersion >= currentVersion(userId);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.kltn.security;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Kết quả của một lần parse + xác thực chữ ký JWT.
+ * Được cache lại nên các request tiếp theo với cùng token không cần verify lại.
+ */
+@Getter
+@Builder
+public class VerifiedToken {
+
+    private final String subject;
+
+    private final Long userId;
+
+    private final String fullName;
+
+    @Builder.Default
+    private final List<String> roles = List.of();
+
+    /**
+     * Version của user tại thời điểm cấp token, xem {@link UserVersionRegistry}.
+     */
+    private final int version;
+
+    /**
+     * true với refresh token; loại token này không được dùng làm Bearer token.
+     */
+    private final boolean refresh;
+
+    private final long issuedAt;
+
+    private final long expiresAt;
+
+    /**
+     * jti của token, hoặc UUID dẫn xuất từ digest với các token cũ chưa có jti.
+     */
+    private final UUID tokenId;
+
+    public boolean isExpired() {
+        return expiresAt <= System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.kltn.service;
+
+import com.example.kltn.dto.request.CreateCampaignRequest;
+import com.example.kltn.dto.response.CampaignResponse;
+
+import java.util.List;
+
+public interface CampaignService {
+
+    CampaignResponse createCampaign(CreateCampaignRequest request, String createdBy);
+
+    CampaignResponse getCampaign(Long id);
+
+    List<CampaignResponse> getRecentCampaigns();
+
+    CampaignResponse pauseCampaign(Long id);
+
+    CampaignResponse resumeCampaign(Long id);
+}
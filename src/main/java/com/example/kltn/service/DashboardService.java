@@ -0,0 +1,19 @@
+package com.example.kltn.service;
+
+import com.example.kltn.dto.response.DashboardResponse;
+import com.example.kltn.entity.User;
+
+public interface DashboardService {
+
+    DashboardResponse getDashboard();
+
+    void onUserCreated(User user);
+
+    void onActiveChanged(boolean active);
+
+    void onActiveChanged(boolean active, long count);
+
+    void onEmailVerified();
+
+    void reconcile();
+}
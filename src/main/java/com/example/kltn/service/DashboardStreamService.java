@@ -0,0 +1,8 @@
+package com.example.kltn.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface DashboardStreamService {
+
+    SseEmitter subscribe();
+}
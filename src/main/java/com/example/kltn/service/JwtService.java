@@ -1,15 +1,31 @@
 package com.example.kltn.service;
 
+import com.example.kltn.entity.User;
+import com.example.kltn.security.CustomUserDetails;
+import com.example.kltn.security.VerifiedToken;
+
 public interface JwtService {
     
     String extractUsername(String token);
     
     String generateToken(String username);
     
+    String generateToken(User user);
+    
+    String generateToken(CustomUserDetails principal);
+    
     String generateRefreshToken(String username);
     
+    String generateRefreshToken(User user);
+    
+    String generateRefreshToken(CustomUserDetails principal);
+    
+    VerifiedToken verifyToken(String token);
+    
     boolean isTokenValid(String token, String username);
     
+    boolean isTokenValid(VerifiedToken token, String username);
+    
     void invalidateToken(String token);
     
     boolean isTokenExpired(String token);
@@ -0,0 +1,16 @@
+package com.example.kltn.service;
+
+import com.example.kltn.dto.request.BulkUserRequest;
+import com.example.kltn.dto.response.BulkUpdateResponse;
+
+public interface UserBulkService {
+
+    BulkUpdateResponse activate(BulkUserRequest request);
+
+    BulkUpdateResponse deactivate(BulkUserRequest request);
+
+    /**
+     * Thay toàn bộ roles của các người dùng được chọn bằng {@code request.roles}.
+     */
+    BulkUpdateResponse replaceRoles(BulkUserRequest request);
+}
@@ -0,0 +1,44 @@
+package com.example.kltn.service;
+
+import com.example.kltn.exception.BadRequestException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface UserExportService {
+
+    /**
+     * Ghi toàn bộ người dùng ra {@code out}; stream DB mở trong suốt quá trình ghi.
+     */
+    void exportUsers(Format format, OutputStream out) throws IOException;
+
+    enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format from(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new BadRequestException("Định dạng không hỗ trợ: " + value);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.kltn.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface UserImportService {
+
+    /**
+     * Nhập người dùng từ {@code in} (NDJSON hoặc CSV có dòng tiêu đề) theo từng chunk,
+     * ghi lỗi từng dòng và tiến độ sau mỗi chunk ra {@code progress} dạng NDJSON.
+     */
+    void importUsers(UserExportService.Format format, InputStream in, OutputStream progress) throws IOException;
+}
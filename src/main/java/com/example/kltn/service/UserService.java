@@ -1,6 +1,7 @@
 package com.example.kltn.service;
 
 import com.example.kltn.dto.request.UpdateProfileRequest;
+import com.example.kltn.dto.response.CursorPage;
 import com.example.kltn.dto.response.UserResponse;
 import com.example.kltn.entity.User;
 
@@ -16,7 +17,7 @@ public interface UserService {
 
     UserResponse getUserByEmail(String email);
 
-    List<UserResponse> getAllUsers();
+    CursorPage<UserResponse> getUsers(String cursor, Integer size);
 
     List<UserResponse> getUsersByRole(String roleName);
 
@@ -5,24 +5,39 @@
     import com.example.kltn.entity.PasswordResetToken;
     import com.example.kltn.entity.Role;
     import com.example.kltn.entity.User;
+    import com.example.kltn.event.UserAccountEvent;
     import com.example.kltn.exception.UserAlreadyExistsException;
     import com.example.kltn.exception.ResourceNotFoundException;
     import com.example.kltn.repository.RoleRepository;
     import com.example.kltn.repository.UserRepository;
     import com.example.kltn.repository.PasswordResetTokenRepository;
+    import com.example.kltn.security.AuthActivityRecorder;
+    import com.example.kltn.security.AuthEvent;
+    import com.example.kltn.security.CustomUserDetails;
+    import com.example.kltn.security.EmailExistenceFilter;
+    import com.example.kltn.security.RoleAuthorities;
+    import com.example.kltn.security.UserDetailsCache;
+    import com.example.kltn.security.UserVersionRegistry;
+    import com.example.kltn.security.VerifiedToken;
     import com.example.kltn.service.AuthService;
+    import com.example.kltn.service.DashboardService;
     import com.example.kltn.service.EmailService;
     import com.example.kltn.service.JwtService;
+    import com.example.kltn.util.UniqueConstraints;
     import jakarta.transaction.Transactional;
     import lombok.RequiredArgsConstructor;
     import org.springframework.beans.factory.annotation.Value;
+    import org.springframework.context.ApplicationEventPublisher;
+    import org.springframework.dao.DataIntegrityViolationException;
     import org.springframework.security.authentication.AuthenticationManager;
     import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+    import org.springframework.security.core.Authentication;
     import org.springframework.security.crypto.password.PasswordEncoder;
     import org.springframework.stereotype.Service;
 
     import java.time.LocalDateTime;
     import java.util.HashSet;
+    import java.util.Set;
     import java.util.UUID;
 
     @Service
@@ -36,6 +51,13 @@
         private final JwtService jwtService;
         private final AuthenticationManager authenticationManager;
         private final EmailService emailService;
+        private final UserVersionRegistry userVersionRegistry;
+        private final UserDetailsCache userDetailsCache;
+        private final DashboardService dashboardService;
+        private final AuthActivityRecorder authActivityRecorder;
+        private final ApplicationEventPublisher eventPublisher;
+        private final EmailExistenceFilter emailExistenceFilter;
+        private final RoleAuthorities roleAuthorities;
         
         @Value("${app.reset-password.token-expiry-minutes}")
         private int resetPasswordTokenExpiryMinutes;
@@ -46,7 +68,9 @@
         @Override
         @Transactional
         public AuthResponse register(RegisterRequest request) {
-            if (userRepository.existsByEmail(request.getEmail())) {
+            // Filter trả lời "chắc chắn mới" thì bỏ qua truy vấn; unique constraint vẫn chặn trùng lặp
+            if (emailExistenceFilter.mightExist(request.getEmail())
+                    && userRepository.existsByEmail(request.getEmail())) {
                 throw new UserAlreadyExistsException("Email đã được sử dụng!");
             }
             
@@ -62,56 +86,56 @@
             // Gán role USER mặc định
             Role userRole = roleRepository.findByName("ROLE_USER")
                     .orElseThrow(() -> new ResourceNotFoundException("Role không tồn tại!"));
-            user.setRoles(new HashSet<>());
-            user.getRoles().add(userRole);
+            user.setRoles(new HashSet<>(Set.of(userRole)));
             
             // Tạo verification code
             String verificationCode = UUID.randomUUID().toString();
             user.setVerificationCode(verificationCode);
             user.setVerificationCodeExpiry(LocalDateTime.now().plusMinutes(verificationTokenExpiryMinutes));
             
-            userRepository.save(user);
+            try {
+                userRepository.saveAndFlush(user);
+            } catch (DataIntegrityViolationException e) {
+                if (UniqueConstraints.isViolation(e)) {
+                    emailExistenceFilter.add(user.getEmail());
+                    throw new UserAlreadyExistsException("Email đã được sử dụng!", e);
+                }
+                throw e;
+            }
+            emailExistenceFilter.add(user.getEmail());
+            dashboardService.onUserCreated(user);
+            authActivityRecorder.record(AuthEvent.REGISTER);
             
             // Gửi email xác thực
             // emailService.sendVerificationEmail(user.getEmail(), verificationCode);
             
-            String jwtToken = jwtService.generateToken(user.getEmail());
-            String refreshToken = jwtService.generateRefreshToken(user.getEmail());
-            
-            return AuthResponse.builder()
-                    .token(jwtToken)
-                    .refreshToken(refreshToken)
-                    .email(user.getEmail())
-                    .fullName(user.getFullName())
-                    .roles(user.getRoles().stream().map(Role::getName).toList())
-                    .build();
+            return buildAuthResponse(user);
         }
 
         @Override
         public AuthResponse login(LoginRequest request) {
-            authenticationManager.authenticate(
+            Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             request.getEmail(),
                             request.getPassword()
                     )
             );
             
-            User user = userRepository.findByEmail(request.getEmail())
-                    .orElseThrow(() -> new ResourceNotFoundException("Email hoặc mật khẩu không đúng!"));
+            // User đã được nạp trong lúc xác thực, không đọc lại từ DB
+            CustomUserDetails principal = (CustomUserDetails) authentication.getPrincipal();
             
-            if (!user.getIsActive()) {
+            if (!principal.isActive()) {
+                authActivityRecorder.record(AuthEvent.LOGIN_FAILED);
                 throw new RuntimeException("Tài khoản đã bị khóa!");
             }
             
-            String jwtToken = jwtService.generateToken(user.getEmail());
-            String refreshToken = jwtService.generateRefreshToken(user.getEmail());
-            
+            authActivityRecorder.record(AuthEvent.LOGIN);
             return AuthResponse.builder()
-                    .token(jwtToken)
-                    .refreshToken(refreshToken)
-                    .email(user.getEmail())
-                    .fullName(user.getFullName())
-                    .roles(user.getRoles().stream().map(Role::getName).toList())
+                    .token(jwtService.generateToken(principal))
+                    .refreshToken(jwtService.generateRefreshToken(principal))
+                    .email(principal.getEmail())
+                    .fullName(principal.getFullName())
+                    .roles(roleAuthorities.names(principal.getRoleMask()))
                     .build();
         }
 
@@ -136,6 +160,7 @@
             
             // Gửi email reset password
             emailService.sendResetPasswordEmail(user.getEmail(), token);
+            authActivityRecorder.record(AuthEvent.PASSWORD_RESET_REQUEST);
         }
 
         @Override
@@ -155,12 +180,16 @@
             User user = resetToken.getUser();
             user.setPassword(passwordEncoder.encode(request.getNewPassword()));
             userRepository.save(user);
+            userVersionRegistry.bump(user.getId());
+            userDetailsCache.invalidate(user.getEmail());
+            eventPublisher.publishEvent(UserAccountEvent.passwordChanged(user.getId()));
             
             resetToken.setIsUsed(true);
             passwordResetTokenRepository.save(resetToken);
             
             // Xóa tất cả các token cũ của user
             passwordResetTokenRepository.deleteAllByUserAndIsUsed(user, true);
+            authActivityRecorder.record(AuthEvent.PASSWORD_RESET);
         }
 
         @Override
@@ -173,33 +202,42 @@
                 throw new RuntimeException("Mã xác thực đã hết hạn!");
             }
             
+            boolean wasVerified = Boolean.TRUE.equals(user.getEmailVerified());
             user.setEmailVerified(true);
             user.setVerificationCode(null);
             user.setVerificationCodeExpiry(null);
             userRepository.save(user);
+            if (!wasVerified) {
+                dashboardService.onEmailVerified();
+            }
+            userDetailsCache.invalidate(user.getEmail());
         }
 
         @Override
         public AuthResponse refreshToken(String refreshToken) {
-            String email = jwtService.extractUsername(refreshToken);
+            VerifiedToken verified = jwtService.verifyToken(refreshToken);
+            String email = verified.getSubject();
             
-            if (!jwtService.isTokenValid(refreshToken, email)) {
+            // Access token hoặc refresh token cũ (không có userId/ver) không được dùng để làm mới
+            if (!verified.isRefresh() || verified.getUserId() == null
+                    || !jwtService.isTokenValid(verified, email)) {
                 throw new RuntimeException("Refresh token không hợp lệ!");
             }
             
+            // Đổi mật khẩu, khóa tài khoản... tăng version: refresh token cấp trước đó mất hiệu lực
+            if (!userVersionRegistry.isCurrent(verified.getUserId(), verified.getVersion())) {
+                throw new RuntimeException("Refresh token đã bị thu hồi!");
+            }
+            
             User user = userRepository.findByEmail(email)
                     .orElseThrow(() -> new ResourceNotFoundException("Người dùng không tồn tại!"));
             
-            String newJwtToken = jwtService.generateToken(user.getEmail());
-            String newRefreshToken = jwtService.generateRefreshToken(user.getEmail());
+            if (!Boolean.TRUE.equals(user.getIsActive())) {
+                throw new RuntimeException("Tài khoản đã bị khóa!");
+            }
             
-            return AuthResponse.builder()
-                    .token(newJwtToken)
-                    .refreshToken(newRefreshToken)
-                    .email(user.getEmail())
-                    .fullName(user.getFullName())
-                    .roles(user.getRoles().stream().map(Role::getName).toList())
-                    .build();
+            authActivityRecorder.record(AuthEvent.TOKEN_REFRESH);
+            return buildAuthResponse(user);
         }
 
         @Override
@@ -233,4 +271,14 @@
         public void unlinkOAuth2Account(String provider, String jwtToken) {
             // Implement logic to unlink OAuth2 account
         }
+
+        private AuthResponse buildAuthResponse(User user) {
+            return AuthResponse.builder()
+                    .token(jwtService.generateToken(user))
+                    .refreshToken(jwtService.generateRefreshToken(user))
+                    .email(user.getEmail())
+                    .fullName(user.getFullName())
+                    .roles(roleAuthorities.names(user.getRoleMask()))
+                    .build();
+        }
     }
\ No newline at end of file
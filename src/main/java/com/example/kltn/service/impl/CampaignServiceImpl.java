@@ -0,0 +1,111 @@
+package com.example.kltn.service.impl;
+
+import com.example.kltn.dto.request.CreateCampaignRequest;
+import com.example.kltn.dto.response.CampaignResponse;
+import com.example.kltn.entity.EmailCampaign;
+import com.example.kltn.exception.ResourceNotFoundException;
+import com.example.kltn.mail.CampaignRunner;
+import com.example.kltn.repository.EmailCampaignRepository;
+import com.example.kltn.repository.RoleRepository;
+import com.example.kltn.service.CampaignService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CampaignServiceImpl implements CampaignService {
+
+    private final EmailCampaignRepository emailCampaignRepository;
+    private final RoleRepository roleRepository;
+    private final CampaignRunner campaignRunner;
+
+    @Override
+    public CampaignResponse createCampaign(CreateCampaignRequest request, String createdBy) {
+        String roleName = null;
+        if (request.getRole() != null && !request.getRole().isBlank()) {
+            roleName = "ROLE_" + request.getRole().trim().toUpperCase();
+            if (!roleRepository.existsByName(roleName)) {
+                throw new ResourceNotFoundException("Role", "name", roleName);
+            }
+        }
+
+        EmailCampaign campaign = emailCampaignRepository.save(EmailCampaign.builder()
+                .name(request.getName())
+                .subject(request.getSubject())
+                .content(request.getContent())
+                .roleName(roleName)
+                .createdBy(createdBy)
+                .build());
+
+        log.info("Campaign {} created by {} for segment {}", campaign.getId(), createdBy,
+                roleName != null ? roleName : "ALL");
+        campaignRunner.start(campaign);
+        return mapToCampaignResponse(campaign);
+    }
+
+    @Override
+    public CampaignResponse getCampaign(Long id) {
+        return mapToCampaignResponse(findCampaign(id));
+    }
+
+    @Override
+    public List<CampaignResponse> getRecentCampaigns() {
+        return emailCampaignRepository.findTop50ByOrderByIdDesc().stream()
+                .map(this::mapToCampaignResponse)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public CampaignResponse pauseCampaign(Long id) {
+        if (emailCampaignRepository.transition(id, EmailCampaign.Status.RUNNING,
+                EmailCampaign.Status.PAUSED, LocalDateTime.now()) == 0) {
+            throw new RuntimeException("Chỉ có thể tạm dừng chiến dịch đang chạy!");
+        }
+        campaignRunner.stop(id);
+        return mapToCampaignResponse(findCampaign(id));
+    }
+
+    @Override
+    public CampaignResponse resumeCampaign(Long id) {
+        EmailCampaign campaign = findCampaign(id);
+        EmailCampaign.Status from = campaign.getStatus();
+        if (from != EmailCampaign.Status.PAUSED && from != EmailCampaign.Status.FAILED) {
+            throw new RuntimeException("Chỉ có thể tiếp tục chiến dịch đã tạm dừng hoặc bị lỗi!");
+        }
+        if (emailCampaignRepository.transition(id, from, EmailCampaign.Status.RUNNING, LocalDateTime.now()) == 0) {
+            throw new RuntimeException("Trạng thái chiến dịch vừa thay đổi, vui lòng thử lại!");
+        }
+
+        campaign.setStatus(EmailCampaign.Status.RUNNING);
+        campaignRunner.start(campaign);
+        return mapToCampaignResponse(campaign);
+    }
+
+    private EmailCampaign findCampaign(Long id) {
+        return emailCampaignRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Campaign", "id", id));
+    }
+
+    private CampaignResponse mapToCampaignResponse(EmailCampaign campaign) {
+        return CampaignResponse.builder()
+                .id(campaign.getId())
+                .name(campaign.getName())
+                .subject(campaign.getSubject())
+                .roleName(campaign.getRoleName())
+                .status(campaign.getStatus().name())
+                .lastUserId(campaign.getLastUserId())
+                .sentCount(campaign.getSentCount())
+                .failedCount(campaign.getFailedCount())
+                .createdBy(campaign.getCreatedBy())
+                .createdAt(campaign.getCreatedAt())
+                .updatedAt(campaign.getUpdatedAt())
+                .completedAt(campaign.getCompletedAt())
+                .build();
+    }
+}
@@ -5,7 +5,13 @@ import com.example.kltn.entity.User;
 import com.example.kltn.repository.RoleRepository;
 import com.example.kltn.repository.UserRepository;
 import com.example.kltn.security.CustomOAuth2User;
+import com.example.kltn.security.EmailExistenceFilter;
+import com.example.kltn.security.RoleAuthorities;
+import com.example.kltn.security.UserDetailsCache;
+import com.example.kltn.service.DashboardService;
+import com.example.kltn.util.UniqueConstraints;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
@@ -15,6 +21,7 @@ import org.springframework.stereotype.Service;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -22,6 +29,10 @@ public class CustomOAuth2UserServiceImpl extends DefaultOAuth2UserService {
 
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final DashboardService dashboardService;
+    private final EmailExistenceFilter emailExistenceFilter;
+    private final RoleAuthorities roleAuthorities;
 
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
@@ -35,24 +46,35 @@ public class CustomOAuth2UserServiceImpl extends DefaultOAuth2UserService {
         String picture = getPicture(provider, attributes);
         String providerId = getProviderId(provider, attributes);
         
-        Optional<User> optionalUser = userRepository.findByEmail(email);
+        User user = resolveUser(email, name, picture, provider, providerId);
+        return new CustomOAuth2User(oAuth2User, user, roleAuthorities.authorities(user.getRoleMask()));
+    }
+    
+    User resolveUser(String email, String name, String picture, String provider, String providerId) {
+        // Email chắc chắn mới thì không cần tìm user trong DB
+        Optional<User> optionalUser = emailExistenceFilter.mightExist(email)
+                ? userRepository.findByEmail(email)
+                : Optional.empty();
         
-        User user;
         if (optionalUser.isPresent()) {
-            user = optionalUser.get();
-            // Cập nhật thông tin từ OAuth2
-            if (user.getProvider() == User.AuthProvider.LOCAL) {
-                user.setProvider(User.AuthProvider.valueOf(provider.toUpperCase()));
-                user.setProviderId(providerId);
-                user.setAvatar(picture);
-                userRepository.save(user);
-            }
-        } else {
-            // Tạo user mới
-            user = createNewUser(email, name, picture, provider, providerId);
+            return linkProvider(optionalUser.get(), picture, provider, providerId);
         }
-        
-        return new CustomOAuth2User(oAuth2User, user);
+        // Tạo user mới
+        return createNewUser(email, name, picture, provider, providerId);
+    }
+    
+    /**
+     * Cập nhật thông tin từ OAuth2 cho tài khoản LOCAL đã có.
+     */
+    private User linkProvider(User user, String picture, String provider, String providerId) {
+        if (user.getProvider() == User.AuthProvider.LOCAL) {
+            user.setProvider(User.AuthProvider.valueOf(provider.toUpperCase()));
+            user.setProviderId(providerId);
+            user.setAvatar(picture);
+            userRepository.save(user);
+            userDetailsCache.invalidate(user.getEmail());
+        }
+        return user;
     }
     
     private User createNewUser(String email, String name, String picture, String provider, String providerId) {
@@ -68,10 +90,24 @@ public class CustomOAuth2UserServiceImpl extends DefaultOAuth2UserService {
         
         Role userRole = roleRepository.findByName("ROLE_USER")
                 .orElseThrow(() -> new RuntimeException("Role USER không tồn tại"));
-        user.setRoles(new HashSet<>());
-        user.getRoles().add(userRole);
+        user.setRoles(new HashSet<>(Set.of(userRole)));
         
-        return userRepository.save(user);
+        User saved;
+        try {
+            saved = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            if (!UniqueConstraints.isViolation(e)) {
+                throw e;
+            }
+            // Email vừa được tạo bởi request khác (hoặc node khác chưa có trong filter): xử lý như user đã có
+            emailExistenceFilter.add(email);
+            return userRepository.findByEmail(email)
+                    .map(existing -> linkProvider(existing, picture, provider, providerId))
+                    .orElseThrow(() -> e);
+        }
+        emailExistenceFilter.add(email);
+        dashboardService.onUserCreated(saved);
+        return saved;
     }
     
     private String getEmail(String provider, Map<String, Object> attributes) {
@@ -0,0 +1,227 @@
+package com.example.kltn.service.impl;
+
+import com.example.kltn.dto.response.DashboardResponse;
+import com.example.kltn.entity.User;
+import com.example.kltn.repository.UserRepository;
+import com.example.kltn.repository.projection.UserCountView;
+import com.example.kltn.service.DashboardService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bộ đếm dashboard được cập nhật tăng dần từ các luồng đăng ký, OAuth2 và khóa/mở khóa,
+ * nên đọc dashboard là O(1) thay vì COUNT(*) trên bảng users mỗi lần.
+ * <p>
+ * Bộ đếm chỉ đổi sau khi transaction commit. Định kỳ đối soát với DB bằng một câu GROUP BY và
+ * cộng phần chênh lệch giữa DB và giá trị đọc trước truy vấn. Phép trừ đó chỉ đúng khi không có commit
+ * nào xen giữa: commit đã thấy trong DB nhưng chưa cộng vào bộ đếm sẽ bị tính hai lần. Vì vậy mỗi thay đổi
+ * đánh dấu {@code commitsStarted} trước khi commit và {@code commitsApplied} sau khi đã cộng; lượt đối soát
+ * chỉ được áp dụng nếu lúc bắt đầu không có commit dang dở và trong lúc truy vấn không có commit mới,
+ * ngược lại thử lại vài lần rồi chờ lượt sau.
+ * <p>
+ * Lời gọi ngoài transaction được coi là đã commit ngay lúc gọi.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardServiceImpl implements DashboardService {
+
+    private static final int RECONCILE_ATTEMPTS = 3;
+
+    private final UserRepository userRepository;
+
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong active = new AtomicLong();
+    private final AtomicLong verified = new AtomicLong();
+    private final Map<User.AuthProvider, AtomicLong> byProvider = newProviderCounters();
+    private final AtomicReference<DailyCount> today = new AtomicReference<>(new DailyCount(LocalDate.now(), 0));
+    private volatile LocalDateTime reconciledAt;
+    private final AtomicLong commitsStarted = new AtomicLong();
+    private final AtomicLong commitsApplied = new AtomicLong();
+
+    @Override
+    public DashboardResponse getDashboard() {
+        long totalUsers = total.get();
+        long activeUsers = active.get();
+        long verifiedUsers = verified.get();
+        Map<String, Long> providers = new LinkedHashMap<>();
+        byProvider.forEach((provider, count) -> providers.put(provider.name(), count.get()));
+
+        return DashboardResponse.builder()
+                .totalUsers(totalUsers)
+                .newUsersToday(currentDay().count())
+                .activeUsers(activeUsers)
+                .inactiveUsers(totalUsers - activeUsers)
+                .verifiedUsers(verifiedUsers)
+                .unverifiedUsers(totalUsers - verifiedUsers)
+                .usersByProvider(providers)
+                .reconciledAt(reconciledAt)
+                .build();
+    }
+
+    @Override
+    public void onUserCreated(User user) {
+        User.AuthProvider provider = user.getProvider() != null ? user.getProvider() : User.AuthProvider.LOCAL;
+        boolean isActive = Boolean.TRUE.equals(user.getIsActive());
+        boolean isVerified = Boolean.TRUE.equals(user.getEmailVerified());
+        afterCommit(() -> {
+            total.incrementAndGet();
+            byProvider.get(provider).incrementAndGet();
+            if (isActive) {
+                active.incrementAndGet();
+            }
+            if (isVerified) {
+                verified.incrementAndGet();
+            }
+            addToday(LocalDate.now(), 1);
+        });
+    }
+
+    @Override
+    public void onActiveChanged(boolean nowActive) {
+        onActiveChanged(nowActive, 1);
+    }
+
+    @Override
+    public void onActiveChanged(boolean nowActive, long count) {
+        if (count == 0) {
+            return;
+        }
+        afterCommit(() -> active.addAndGet(nowActive ? count : -count));
+    }
+
+    @Override
+    public void onEmailVerified() {
+        afterCommit(verified::incrementAndGet);
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.dashboard.reconcile-interval-ms:300000}",
+            initialDelayString = "${app.dashboard.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        for (int attempt = 0; attempt < RECONCILE_ATTEMPTS; attempt++) {
+            if (tryReconcile()) {
+                return;
+            }
+        }
+        log.debug("Dashboard reconcile skipped: user changes kept committing during the count");
+    }
+
+    private boolean tryReconcile() {
+        long started = commitsStarted.get();
+        if (commitsApplied.get() != started) {
+            return false;
+        }
+        LocalDate day = LocalDate.now();
+        long totalBefore = total.get();
+        long activeBefore = active.get();
+        long verifiedBefore = verified.get();
+        Map<User.AuthProvider, Long> providerBefore = new EnumMap<>(User.AuthProvider.class);
+        byProvider.forEach((provider, count) -> providerBefore.put(provider, count.get()));
+        long todayBefore = currentDay().count();
+
+        List<UserCountView> rows = userRepository.countByProviderAndStatus();
+        long todayActual = userRepository.countByCreatedAtGreaterThanEqual(day.atStartOfDay());
+        if (commitsStarted.get() != started) {
+            return false;
+        }
+
+        long totalActual = 0;
+        long activeActual = 0;
+        long verifiedActual = 0;
+        Map<User.AuthProvider, Long> providerActual = new EnumMap<>(User.AuthProvider.class);
+        for (UserCountView row : rows) {
+            long count = row.getTotal();
+            totalActual += count;
+            if (Boolean.TRUE.equals(row.getIsActive())) {
+                activeActual += count;
+            }
+            if (Boolean.TRUE.equals(row.getEmailVerified())) {
+                verifiedActual += count;
+            }
+            User.AuthProvider provider = row.getProvider() != null ? row.getProvider() : User.AuthProvider.LOCAL;
+            providerActual.merge(provider, count, Long::sum);
+        }
+
+        long drift = Math.abs(totalActual - totalBefore) + Math.abs(activeActual - activeBefore)
+                + Math.abs(verifiedActual - verifiedBefore);
+        total.addAndGet(totalActual - totalBefore);
+        active.addAndGet(activeActual - activeBefore);
+        verified.addAndGet(verifiedActual - verifiedBefore);
+        byProvider.forEach((provider, count) ->
+                count.addAndGet(providerActual.getOrDefault(provider, 0L) - providerBefore.get(provider)));
+        addToday(day, todayActual - todayBefore);
+        reconciledAt = LocalDateTime.now();
+
+        if (drift > 0 && totalBefore > 0) {
+            log.warn("Dashboard counters drifted by {} and were reconciled", drift);
+        }
+        return true;
+    }
+
+    private void addToday(LocalDate day, long delta) {
+        today.updateAndGet(current -> current.day().equals(day)
+                ? new DailyCount(day, current.count() + delta)
+                : day.isAfter(current.day()) ? new DailyCount(day, Math.max(delta, 0)) : current);
+    }
+
+    private DailyCount currentDay() {
+        LocalDate now = LocalDate.now();
+        return today.updateAndGet(current -> current.day().isBefore(now) ? new DailyCount(now, 0) : current);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean committing;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    committing = true;
+                    commitsStarted.incrementAndGet();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        action.run();
+                    }
+                    if (committing) {
+                        commitsApplied.incrementAndGet();
+                    }
+                }
+            });
+        } else {
+            commitsStarted.incrementAndGet();
+            action.run();
+            commitsApplied.incrementAndGet();
+        }
+    }
+
+    private static Map<User.AuthProvider, AtomicLong> newProviderCounters() {
+        Map<User.AuthProvider, AtomicLong> counters = new EnumMap<>(User.AuthProvider.class);
+        for (User.AuthProvider provider : User.AuthProvider.values()) {
+            counters.put(provider, new AtomicLong());
+        }
+        return counters;
+    }
+
+    private record DailyCount(LocalDate day, long count) {
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.kltn.service.impl;
+
+import com.example.kltn.service.DashboardService;
+import com.example.kltn.service.DashboardStreamService;
+import com.example.kltn.util.FanOutBroadcaster;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Đẩy dashboard qua SSE thay cho việc mỗi tab polling. Mỗi chu kỳ chỉ đọc bộ đếm một lần,
+ * tính phần thay đổi so với frame trước, serialize một lần rồi phát cùng frame đó cho mọi
+ * subscriber; client mới nhận ngay bản đầy đủ. Khi không có gì thay đổi, gửi heartbeat
+ * để phát hiện kết nối đã chết.
+ * <p>
+ * {@link SseEmitter#send} ghi chặn và không có hạn: client ngừng đọc sẽ giữ một thread gửi.
+ * Subscriber gửi quá {@code write-timeout-ms} bị ngắt ở lượt kiểm tra kế tiếp. {@link SseEmitter#complete()}
+ * chờ cùng khóa ghi với lần gửi đang kẹt, nên broadcaster gọi nó trên thread gửi khi lần gửi đó trả về,
+ * không phải trên thread của scheduler.
+ */
+@Service
+@Slf4j
+public class DashboardStreamServiceImpl implements DashboardStreamService {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final DashboardService dashboardService;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService senders;
+    private final FanOutBroadcaster<Set<ResponseBodyEmitter.DataWithMediaType>> broadcaster;
+    private final long emitterTimeoutMillis;
+    private final long heartbeatMillis;
+    private final Set<ResponseBodyEmitter.DataWithMediaType> heartbeat = SseEmitter.event().comment("ping").build();
+
+    private Map<String, Object> lastFrame = Map.of();
+    private long lastSentAt = System.currentTimeMillis();
+
+    public DashboardStreamServiceImpl(DashboardService dashboardService,
+                                      ObjectMapper objectMapper,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${app.dashboard.stream.buffer-size:16}") int bufferSize,
+                                      @Value("${app.dashboard.stream.sender-threads:0}") int senderThreads,
+                                      @Value("${app.dashboard.stream.emitter-timeout-ms:1800000}") long emitterTimeoutMillis,
+                                      @Value("${app.dashboard.stream.write-timeout-ms:5000}") long writeTimeoutMillis,
+                                      @Value("${app.dashboard.stream.heartbeat-ms:15000}") long heartbeatMillis) {
+        this.dashboardService = dashboardService;
+        this.objectMapper = objectMapper;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.heartbeatMillis = heartbeatMillis;
+
+        AtomicInteger count = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(
+                senderThreads > 0 ? senderThreads : Runtime.getRuntime().availableProcessors(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "dashboard-sse-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.broadcaster = new FanOutBroadcaster<>(senders, bufferSize, writeTimeoutMillis);
+
+        Gauge.builder("dashboard.stream.subscribers", broadcaster, FanOutBroadcaster::size)
+                .description("Số client đang nhận dashboard qua SSE")
+                .register(meterRegistry);
+        FunctionCounter.builder("dashboard.stream.dropped", broadcaster, FanOutBroadcaster::getDropped)
+                .description("Số client bị ngắt vì đọc không kịp")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        FanOutBroadcaster<Set<ResponseBodyEmitter.DataWithMediaType>>.Subscription subscription =
+                broadcaster.subscribe(new FanOutBroadcaster.Sink<>() {
+                    @Override
+                    public void send(Set<ResponseBodyEmitter.DataWithMediaType> frame) throws Exception {
+                        emitter.send(frame);
+                    }
+
+                    @Override
+                    public void close() {
+                        emitter.complete();
+                    }
+                }, frame(currentState()));
+
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.dashboard.stream.interval-ms:2000}")
+    public synchronized void broadcast() {
+        if (broadcaster.size() == 0) {
+            return;
+        }
+        Map<String, Object> current = currentState();
+        Map<String, Object> delta = new LinkedHashMap<>();
+        current.forEach((key, value) -> {
+            if (!Objects.equals(value, lastFrame.get(key))) {
+                delta.put(key, value);
+            }
+        });
+        lastFrame = current;
+
+        long now = System.currentTimeMillis();
+        if (!delta.isEmpty()) {
+            broadcaster.publish(frame(delta));
+            lastSentAt = now;
+        } else if (now - lastSentAt >= heartbeatMillis) {
+            broadcaster.publish(heartbeat);
+            lastSentAt = now;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.dashboard.stream.write-timeout-ms:5000}")
+    public void closeStalledSubscribers() {
+        int closed = broadcaster.closeStalled();
+        if (closed > 0) {
+            log.warn("Closed {} dashboard stream subscribers stuck in a write", closed);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        broadcaster.closeAll();
+        senders.shutdown();
+    }
+
+    private Map<String, Object> currentState() {
+        return objectMapper.convertValue(dashboardService.getDashboard(), MAP_TYPE);
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> frame(Map<String, Object> data) {
+        try {
+            return SseEmitter.event()
+                    .name("dashboard")
+                    .data(objectMapper.writeValueAsString(data), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
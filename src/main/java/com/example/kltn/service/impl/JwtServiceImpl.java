@@ -2,23 +2,30 @@ package com.example.kltn.service.impl;
 
 import com.example.kltn.entity.User;
 import com.example.kltn.repository.UserRepository;
+import com.example.kltn.security.CustomUserDetails;
+import com.example.kltn.security.JwtCodec;
+import com.example.kltn.security.RoleAuthorities;
+import com.example.kltn.security.TokenRevocationStore;
+import com.example.kltn.security.VerifiedToken;
 import com.example.kltn.service.JwtService;
-import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.SignatureException;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Function;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
@@ -26,9 +33,9 @@ import java.util.function.Function;
 public class JwtServiceImpl implements JwtService {
 
     private final UserRepository userRepository;
-    
-    @Value("${jwt.secret}")
-    private String secretKey;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final JwtCodec jwtCodec;
+    private final RoleAuthorities roleAuthorities;
     
     @Value("${jwt.expiration}")
     private long jwtExpiration;
@@ -36,24 +43,46 @@ public class JwtServiceImpl implements JwtService {
     @Value("${jwt.refresh-token.expiration}")
     private long refreshExpiration;
     
-    private Key key;
-    private final Map<String, String> tokenBlacklist = new ConcurrentHashMap<>();
+    @Value("${jwt.verification-cache.max-size:10000}")
+    private long verificationCacheMaxSize;
+    
+    private Cache<String, VerifiedToken> verifiedTokens;
     
     @PostConstruct
     public void init() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        this.key = Keys.hmacShaKeyFor(keyBytes);
+        // Entry hết hạn đúng lúc token hết hạn, không giữ token chết trong cache
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verificationCacheMaxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String digest, VerifiedToken token, long currentTime) {
+                        long remainingMillis = Math.max(0, token.getExpiresAt() - System.currentTimeMillis());
+                        return TimeUnit.MILLISECONDS.toNanos(remainingMillis);
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(String digest, VerifiedToken token, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(String digest, VerifiedToken token, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
     
     @Override
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verifyToken(token).getSubject();
     }
     
     @Override
     public Long extractUserId(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.get("userId", Long.class);
+        return verifyToken(token).getUserId();
     }
     
     @Override
@@ -61,79 +90,122 @@ public class JwtServiceImpl implements JwtService {
         User user = userRepository.findByEmail(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("userId", user.getId());
-        claims.put("email", user.getEmail());
-        claims.put("fullName", user.getFullName());
-        claims.put("roles", user.getRoles().stream().map(role -> role.getName()).toList());
-        
-        return buildToken(claims, username, jwtExpiration);
+        return generateToken(user);
+    }
+    
+    @Override
+    public String generateToken(User user) {
+        return jwtCodec.encode(
+                user.getEmail(),
+                user.getId(),
+                user.getFullName(),
+                roleAuthorities.names(user.getRoleMask()),
+                user.getTokenVersion(),
+                jwtExpiration
+        );
+    }
+    
+    @Override
+    public String generateToken(CustomUserDetails principal) {
+        return jwtCodec.encode(
+                principal.getEmail(),
+                principal.getId(),
+                principal.getFullName(),
+                roleAuthorities.names(principal.getRoleMask()),
+                principal.getTokenVersion(),
+                jwtExpiration
+        );
     }
     
     @Override
     public String generateRefreshToken(String username) {
-        return buildToken(new HashMap<>(), username, refreshExpiration);
+        User user = userRepository.findByEmail(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        
+        return generateRefreshToken(user);
     }
     
-    private String buildToken(Map<String, Object> extraClaims, String subject, long expiration) {
-        return Jwts.builder()
-                .setClaims(extraClaims)
-                .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(key, SignatureAlgorithm.HS256)
-                .compact();
+    @Override
+    public String generateRefreshToken(User user) {
+        return jwtCodec.encodeRefresh(user.getEmail(), user.getId(), user.getTokenVersion(), refreshExpiration);
     }
     
     @Override
-    public boolean isTokenValid(String token, String username) {
-        final String extractedUsername = extractUsername(token);
+    public String generateRefreshToken(CustomUserDetails principal) {
+        return jwtCodec.encodeRefresh(principal.getEmail(), principal.getId(), principal.getTokenVersion(),
+                refreshExpiration);
+    }
+    
+    @Override
+    public VerifiedToken verifyToken(String token) {
+        String digest = digest(token);
+        
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
+        }
         
-        // Kiểm tra token có trong blacklist không
-        if (tokenBlacklist.containsKey(token)) {
-            log.warn("Token is blacklisted: {}", token);
+        VerifiedToken verified = decode(token, digest);
+        verifiedTokens.put(digest, verified);
+        return verified;
+    }
+    
+    @Override
+    public boolean isTokenValid(String token, String username) {
+        return isTokenValid(verifyToken(token), username);
+    }
+    
+    @Override
+    public boolean isTokenValid(VerifiedToken token, String username) {
+        // Kiểm tra token đã bị thu hồi chưa
+        if (tokenRevocationStore.isRevoked(token.getTokenId())) {
+            log.warn("Token is blacklisted: {}", token.getTokenId());
             return false;
         }
         
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        return (token.getSubject().equals(username) && !token.isExpired());
     }
     
     @Override
     public boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return verifyToken(token).isExpired();
     }
     
     @Override
     public void invalidateToken(String token) {
         if (token != null && !token.isEmpty()) {
-            tokenBlacklist.put(token, "invalidated");
-            log.info("Token invalidated: {}", token);
+            VerifiedToken verified;
+            try {
+                verified = verifyToken(token);
+            } catch (ExpiredJwtException e) {
+                // Token đã hết hạn thì không cần thu hồi
+                return;
+            }
+            tokenRevocationStore.revoke(verified.getTokenId(), verified.getExpiresAt());
+            log.info("Token invalidated: {}", verified.getTokenId());
         }
     }
     
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-    
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    private String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 không khả dụng", e);
+        }
     }
     
-    private Claims extractAllClaims(String token) {
+    private VerifiedToken decode(String token, String digest) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return jwtCodec.decode(token, UUID.nameUUIDFromBytes(digest.getBytes(StandardCharsets.US_ASCII)));
         } catch (ExpiredJwtException e) {
             log.warn("Token expired: {}", e.getMessage());
             throw e;
         } catch (MalformedJwtException e) {
             log.error("Invalid token format: {}", e.getMessage());
             throw new RuntimeException("Token không hợp lệ");
-        } catch (SecurityException e) {
+        } catch (SignatureException e) {
             log.error("Invalid token signature: {}", e.getMessage());
             throw new RuntimeException("Chữ ký token không hợp lệ");
         } catch (Exception e) {
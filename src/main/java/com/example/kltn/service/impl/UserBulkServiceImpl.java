@@ -0,0 +1,239 @@
+package com.example.kltn.service.impl;
+
+import com.example.kltn.dto.request.BulkUserRequest;
+import com.example.kltn.dto.response.BulkUpdateResponse;
+import com.example.kltn.entity.Role;
+import com.example.kltn.entity.User;
+import com.example.kltn.event.UserAccountEvent;
+import com.example.kltn.exception.BadRequestException;
+import com.example.kltn.exception.ResourceNotFoundException;
+import com.example.kltn.repository.RoleRepository;
+import com.example.kltn.repository.UserRepository;
+import com.example.kltn.repository.projection.UserEmailView;
+import com.example.kltn.security.UserDetailsCache;
+import com.example.kltn.security.UserVersionRegistry;
+import com.example.kltn.service.DashboardService;
+import com.example.kltn.service.UserBulkService;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Thao tác quản trị trên nhiều người dùng bằng câu lệnh theo tập hợp: mỗi chunk đọc (id, email) một lần
+ * rồi UPDATE/DELETE/INSERT cho cả chunk, thay vì nạp và lưu từng entity.
+ * Mỗi chunk là một transaction riêng để không giữ khóa trên cả bảng users trong một lượt dài.
+ */
+@Service
+@Slf4j
+public class UserBulkServiceImpl implements UserBulkService {
+
+    private static final Pattern EMAIL_DOMAIN = Pattern.compile("^[A-Za-z0-9.-]+$");
+    private static final String USER_ROLES = User.class.getName() + ".roles";
+
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final UserVersionRegistry userVersionRegistry;
+    private final UserDetailsCache userDetailsCache;
+    private final DashboardService dashboardService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache secondLevelCache;
+    private final TransactionTemplate transaction;
+    private final int chunkSize;
+
+    public UserBulkServiceImpl(UserRepository userRepository,
+                               RoleRepository roleRepository,
+                               UserVersionRegistry userVersionRegistry,
+                               UserDetailsCache userDetailsCache,
+                               DashboardService dashboardService,
+                               ApplicationEventPublisher eventPublisher,
+                               EntityManagerFactory entityManagerFactory,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.user-bulk.chunk-size:1000}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.userVersionRegistry = userVersionRegistry;
+        this.userDetailsCache = userDetailsCache;
+        this.dashboardService = dashboardService;
+        this.eventPublisher = eventPublisher;
+        this.secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public BulkUpdateResponse activate(BulkUserRequest request) {
+        return run("activate", request, chunk -> {
+            int affected = userRepository.updateActiveByIdIn(ids(chunk), true, LocalDateTime.now());
+            dashboardService.onActiveChanged(true, affected);
+            afterChange(chunk, null);
+            return affected;
+        });
+    }
+
+    @Override
+    public BulkUpdateResponse deactivate(BulkUserRequest request) {
+        return run("deactivate", request, chunk -> {
+            int affected = userRepository.updateActiveByIdIn(ids(chunk), false, LocalDateTime.now());
+            dashboardService.onActiveChanged(false, affected);
+            afterChange(chunk, UserAccountEvent::forcedLogout);
+            return affected;
+        });
+    }
+
+    @Override
+    public BulkUpdateResponse replaceRoles(BulkUserRequest request) {
+        if (request.getRoles() == null || request.getRoles().isEmpty()) {
+            throw new BadRequestException("Danh sách roles không được để trống");
+        }
+        Map<String, Role> roles = new LinkedHashMap<>();
+        for (String name : request.getRoles()) {
+            String roleName = roleName(name);
+            roles.computeIfAbsent(roleName, key -> roleRepository.findByName(key)
+                    .orElseThrow(() -> new ResourceNotFoundException("Role", "name", key)));
+        }
+        long mask = Role.maskOf(roles.values());
+        List<Long> roleIds = roles.values().stream().map(Role::getId).toList();
+        List<String> roleNames = List.copyOf(roles.keySet());
+
+        return run("replace roles", request, chunk -> {
+            List<Long> ids = ids(chunk);
+            userRepository.deleteRolesOfChangedUsers(ids, mask);
+            userRepository.insertRolesForChangedUsers(ids, mask, roleIds);
+            // Cập nhật mask sau cùng vì hai câu trên chọn user theo role_mask cũ
+            int affected = userRepository.updateRoleMaskByIdIn(ids, mask, LocalDateTime.now());
+            evictCachedRolesAfterCommit(ids);
+            afterChange(chunk, userId -> UserAccountEvent.rolesChanged(userId, roleNames));
+            return affected;
+        });
+    }
+
+    private BulkUpdateResponse run(String operation, BulkUserRequest request, ToIntFunction<List<UserEmailView>> apply) {
+        long matched = 0;
+        long affected = 0;
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            List<Long> ids = request.getIds().stream()
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .sorted()
+                    .toList();
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<Long> slice = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+                ChunkResult result = transaction.execute(status ->
+                        apply(userRepository.findEmailViewsByIdIn(slice), apply));
+                matched += result.matched();
+                affected += result.affected();
+            }
+        } else {
+            BulkUserRequest.Filter filter = request.getFilter();
+            if (filter == null) {
+                throw new BadRequestException("Cần danh sách ids hoặc filter");
+            }
+            if (filter.isEmpty()) {
+                throw new BadRequestException("Filter phải có ít nhất một điều kiện");
+            }
+            String roleName = filter.getRole() == null ? null : roleName(filter.getRole());
+            String emailPattern = emailPattern(filter.getEmailDomain());
+            PageRequest page = PageRequest.of(0, chunkSize);
+            long afterId = 0;
+            while (true) {
+                long cursor = afterId;
+                ChunkResult result = transaction.execute(status -> apply(userRepository.findEmailsMatchingAfter(
+                        cursor, roleName, filter.getProvider(), filter.getIsActive(), emailPattern,
+                        filter.getCreatedFrom(), filter.getCreatedTo(), page), apply));
+                if (result.matched() == 0) {
+                    break;
+                }
+                matched += result.matched();
+                affected += result.affected();
+                afterId = result.lastId();
+            }
+        }
+
+        log.info("Bulk {}: {} users matched, {} changed", operation, matched, affected);
+        return BulkUpdateResponse.builder()
+                .matched(matched)
+                .affected(affected)
+                .build();
+    }
+
+    private ChunkResult apply(List<UserEmailView> chunk, ToIntFunction<List<UserEmailView>> apply) {
+        if (chunk.isEmpty()) {
+            return new ChunkResult(0, 0, null);
+        }
+        Long lastId = chunk.stream().map(UserEmailView::getId).max(Comparator.naturalOrder()).orElseThrow();
+        return new ChunkResult(chunk.size(), apply.applyAsInt(chunk), lastId);
+    }
+
+    /**
+     * Token cũ hết hiệu lực và cache user details bị xóa cho mọi user được chọn, kể cả dòng không đổi:
+     * tăng version cho cả chunk là một câu UPDATE, không cần thêm truy vấn để biết chính xác dòng nào đã đổi.
+     */
+    private void afterChange(List<UserEmailView> chunk, Function<Long, UserAccountEvent> event) {
+        userVersionRegistry.bumpAll(ids(chunk));
+        if (event != null) {
+            for (UserEmailView user : chunk) {
+                eventPublisher.publishEvent(event.apply(user.getId()));
+            }
+        }
+        userDetailsCache.invalidateAll(chunk.stream().map(UserEmailView::getEmail).toList());
+    }
+
+    /**
+     * Hibernate chỉ gắn vùng cache {@code User.roles} với entity phần tử (Role), nên cả UPDATE trên User lẫn
+     * query space {@code user_roles} đều không xóa nó; phải xóa tay cho các user trong chunk.
+     */
+    private void evictCachedRolesAfterCommit(List<Long> ids) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ids.forEach(id -> secondLevelCache.evictCollectionData(USER_ROLES, id));
+            }
+        });
+    }
+
+    private static List<Long> ids(List<UserEmailView> chunk) {
+        return chunk.stream().map(UserEmailView::getId).toList();
+    }
+
+    private static String roleName(String name) {
+        String trimmed = name.trim().toUpperCase(Locale.ROOT);
+        return trimmed.startsWith("ROLE_") ? trimmed : "ROLE_" + trimmed;
+    }
+
+    private static String emailPattern(String domain) {
+        if (domain == null) {
+            return null;
+        }
+        String trimmed = domain.trim();
+        if (trimmed.startsWith("@")) {
+            trimmed = trimmed.substring(1);
+        }
+        if (!EMAIL_DOMAIN.matcher(trimmed).matches()) {
+            throw new BadRequestException("Tên miền email không hợp lệ: " + domain);
+        }
+        return "%@" + trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    private record ChunkResult(int matched, int affected, Long lastId) {
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.kltn.service.impl;
+
+import com.example.kltn.repository.UserRepository;
+import com.example.kltn.repository.projection.UserSummaryView;
+import com.example.kltn.security.RoleAuthorities;
+import com.example.kltn.service.UserExportService;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Xuất người dùng dạng stream: mỗi dòng đọc từ DB được ghi ngay ra response và flush theo lô,
+ * nên bộ nhớ không phụ thuộc số người dùng.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserExportServiceImpl implements UserExportService {
+
+    private static final int FLUSH_EVERY = 500;
+    private static final String[] CSV_HEADER = {
+            "id", "email", "fullName", "phone", "provider", "emailVerified", "isActive", "createdAt", "roles"
+    };
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final UserRepository userRepository;
+    private final RoleAuthorities roleAuthorities;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportUsers(Format format, OutputStream out) throws IOException {
+        long count;
+        try (Stream<UserSummaryView> users = userRepository.streamAllSummaries()) {
+            count = switch (format) {
+                case NDJSON -> writeNdjson(users.iterator(), out);
+                case CSV -> writeCsv(users.iterator(), out);
+            };
+        }
+        log.info("Exported {} users as {}", count, format);
+    }
+
+    private long writeNdjson(Iterator<UserSummaryView> users, OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            json.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            // Mỗi object một dòng, không có dấu cách Jackson chèn giữa các giá trị gốc
+            json.setRootValueSeparator(null);
+            while (users.hasNext()) {
+                UserSummaryView user = users.next();
+                json.writeStartObject();
+                json.writeNumberField("id", user.getId());
+                json.writeStringField("email", user.getEmail());
+                json.writeStringField("fullName", user.getFullName());
+                json.writeStringField("phone", user.getPhone());
+                json.writeStringField("provider", user.getProvider() != null ? user.getProvider().name() : null);
+                writeBoolean(json, "emailVerified", user.getEmailVerified());
+                writeBoolean(json, "isActive", user.getIsActive());
+                json.writeStringField("createdAt", user.getCreatedAt() != null ? user.getCreatedAt().toString() : null);
+                json.writeArrayFieldStart("roles");
+                for (String role : roleAuthorities.names(user.getRoleMask())) {
+                    json.writeString(role);
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+                json.writeRaw('\n');
+
+                if (++count % FLUSH_EVERY == 0) {
+                    json.flush();
+                }
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<UserSummaryView> users, OutputStream out) throws IOException {
+        long count = 0;
+        Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeCsvRow(csv, (Object[]) CSV_HEADER);
+        while (users.hasNext()) {
+            UserSummaryView user = users.next();
+            writeCsvRow(csv, user.getId(), user.getEmail(), user.getFullName(), user.getPhone(),
+                    user.getProvider(), user.getEmailVerified(), user.getIsActive(), user.getCreatedAt(),
+                    String.join(";", roleAuthorities.names(user.getRoleMask())));
+
+            if (++count % FLUSH_EVERY == 0) {
+                csv.flush();
+            }
+        }
+        csv.flush();
+        return count;
+    }
+
+    private static void writeBoolean(JsonGenerator json, String field, Boolean value) throws IOException {
+        if (value == null) {
+            json.writeNullField(field);
+        } else {
+            json.writeBooleanField(field, value);
+        }
+    }
+
+    private static void writeCsvRow(Writer csv, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                csv.write(',');
+            }
+            if (values[i] != null) {
+                writeCsvField(csv, values[i].toString());
+            }
+        }
+        csv.write("\r\n");
+    }
+
+    private static void writeCsvField(Writer csv, String value) throws IOException {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            csv.write(value);
+            return;
+        }
+        csv.write('"');
+        csv.write(value.replace("\"", "\"\""));
+        csv.write('"');
+    }
+}
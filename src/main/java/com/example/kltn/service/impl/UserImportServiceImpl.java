@@ -0,0 +1,475 @@
+package com.example.kltn.service.impl;
+
+import com.example.kltn.entity.Role;
+import com.example.kltn.entity.User;
+import com.example.kltn.exception.TooManyRequestsException;
+import com.example.kltn.repository.RoleRepository;
+import com.example.kltn.repository.UserRepository;
+import com.example.kltn.security.EmailExistenceFilter;
+import com.example.kltn.service.DashboardService;
+import com.example.kltn.service.UserExportService;
+import com.example.kltn.service.UserImportService;
+import com.example.kltn.util.CsvReader;
+import com.example.kltn.util.UniqueConstraints;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Nhập hàng loạt người dùng từ stream upload theo từng chunk:
+ * kiểm tra dữ liệu, loại email đã có (một truy vấn cho cả chunk), băm mật khẩu song song trên pool riêng
+ * rồi INSERT users và user_roles theo batch JDBC trong một transaction mỗi chunk.
+ * <p>
+ * Chunk lỗi unique constraint (email vừa được tạo ở nơi khác) được ghi lại từng dòng để chỉ dòng trùng bị loại.
+ */
+@Service
+@Slf4j
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final Pattern ROLE_SEPARATOR = Pattern.compile("[;,]");
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
+    private static final String DEFAULT_ROLE = "ROLE_USER";
+    private static final int MIN_PASSWORD_LENGTH = 6;
+
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final EmailExistenceFilter emailExistenceFilter;
+    private final DashboardService dashboardService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+    private final PasswordEncoder hasher;
+    private final ExecutorService hashPool;
+    private final int chunkSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter importedCounter;
+    private final Counter failedCounter;
+
+    public UserImportServiceImpl(UserRepository userRepository,
+                                 RoleRepository roleRepository,
+                                 EmailExistenceFilter emailExistenceFilter,
+                                 DashboardService dashboardService,
+                                 EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.user-import.chunk-size:500}") int chunkSize,
+                                 @Value("${app.user-import.hash-threads:0}") int hashThreads,
+                                 @Value("${app.security.password.bcrypt-strength:10}") int bcryptStrength) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.emailExistenceFilter = emailExistenceFilter;
+        this.dashboardService = dashboardService;
+        this.entityManager = entityManager;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        // Cùng cost với PasswordEncoder chính nhưng không đi qua pool của đăng nhập, để lượt nhập không chiếm hết chỗ
+        this.hasher = new BCryptPasswordEncoder(bcryptStrength);
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.hashPool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "user-import-hash-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.importedCounter = meterRegistry.counter("user.import.rows", "result", "imported");
+        this.failedCounter = meterRegistry.counter("user.import.rows", "result", "failed");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashPool.shutdownNow();
+    }
+
+    @Override
+    public void importUsers(UserExportService.Format format, InputStream in, OutputStream progress) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new TooManyRequestsException("Đang có một lượt nhập người dùng khác, vui lòng thử lại sau");
+        }
+        long startedAt = System.currentTimeMillis();
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(progress, JsonEncoding.UTF8)) {
+            json.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            json.setRootValueSeparator(null);
+
+            ImportRun run = new ImportRun(json, loadRoles());
+            RowReader rows = switch (format) {
+                case NDJSON -> ndjsonRows(in);
+                case CSV -> csvRows(in);
+            };
+
+            List<Candidate> chunk = new ArrayList<>(chunkSize);
+            ImportRow row;
+            while ((row = rows.next()) != null) {
+                Candidate candidate = run.validate(row);
+                if (candidate != null) {
+                    chunk.add(candidate);
+                }
+                if (chunk.size() == chunkSize) {
+                    importChunk(run, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(run, chunk);
+            }
+
+            run.writeProgress("done");
+            log.info("Imported {} users ({} failed rows) in {} ms",
+                    run.imported, run.failed, System.currentTimeMillis() - startedAt);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void importChunk(ImportRun run, List<Candidate> chunk) throws IOException {
+        List<Candidate> fresh = run.rejectExisting(chunk);
+        List<String> hashes = hashPasswords(fresh);
+
+        try {
+            List<User> users = new ArrayList<>(fresh.size());
+            for (int i = 0; i < fresh.size(); i++) {
+                users.add(fresh.get(i).toUser(hashes.get(i)));
+            }
+            insert(users);
+            for (Candidate candidate : fresh) {
+                run.imported(candidate);
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Có dòng vừa bị tạo ở nơi khác: chèn lại từng dòng để chỉ loại đúng dòng đó
+            log.debug("Chunk insert failed, retrying row by row", e);
+            for (int i = 0; i < fresh.size(); i++) {
+                Candidate candidate = fresh.get(i);
+                try {
+                    insert(List.of(candidate.toUser(hashes.get(i))));
+                    run.imported(candidate);
+                } catch (DataIntegrityViolationException rowError) {
+                    if (UniqueConstraints.isViolation(rowError)) {
+                        emailExistenceFilter.add(candidate.row.email());
+                        run.failed(candidate.row, "Email đã được sử dụng");
+                    } else {
+                        run.failed(candidate.row, "Dữ liệu không hợp lệ: " + rowError.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+        run.writeProgress("progress");
+    }
+
+    private void insert(List<User> users) {
+        transaction.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(Math.max(users.size(), 1));
+            userRepository.saveAll(users);
+            userRepository.flush();
+            users.forEach(dashboardService::onUserCreated);
+        });
+    }
+
+    private List<String> hashPasswords(List<Candidate> candidates) {
+        List<Future<String>> futures = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            String password = candidate.row.password();
+            if (password == null || BCRYPT_HASH.matcher(password).matches()) {
+                futures.add(null);
+            } else {
+                futures.add(hashPool.submit(() -> hasher.encode(password)));
+            }
+        }
+
+        List<String> hashes = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            Future<String> future = futures.get(i);
+            if (future == null) {
+                // Mật khẩu đã là hash BCrypt (xuất từ hệ thống đối tác) thì giữ nguyên
+                hashes.add(candidates.get(i).row.password());
+                continue;
+            }
+            try {
+                hashes.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(pending -> {
+                    if (pending != null) {
+                        pending.cancel(true);
+                    }
+                });
+                throw new IllegalStateException("Bị gián đoạn khi băm mật khẩu", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Lỗi khi băm mật khẩu", e.getCause());
+            }
+        }
+        return hashes;
+    }
+
+    private Map<String, Role> loadRoles() {
+        Map<String, Role> roles = new HashMap<>();
+        for (Role role : roleRepository.findAll()) {
+            roles.put(role.getName(), role);
+        }
+        return roles;
+    }
+
+    private static RowReader csvRows(InputStream in) throws IOException {
+        CsvReader csv = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        List<String> header = csv.next();
+        if (header == null) {
+            return () -> null;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // Bỏ BOM nếu file được lưu từ Excel
+            columns.put(header.get(i).replace("\uFEFF", "").trim(), i);
+        }
+        return () -> {
+            List<String> record = csv.next();
+            if (record == null) {
+                return null;
+            }
+            return new ImportRow(csv.getRecordLine(),
+                    column(record, columns, "email"),
+                    column(record, columns, "fullName"),
+                    column(record, columns, "phone"),
+                    column(record, columns, "address"),
+                    column(record, columns, "password"),
+                    column(record, columns, "roles"),
+                    column(record, columns, "emailVerified"),
+                    null);
+        };
+    }
+
+    private static RowReader ndjsonRows(InputStream in) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        long[] lineNumber = {0};
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber[0]++;
+            } while (line != null && line.isBlank());
+            if (line == null) {
+                return null;
+            }
+            JsonNode node;
+            try {
+                node = OBJECT_MAPPER.readTree(line);
+            } catch (IOException e) {
+                return ImportRow.invalid(lineNumber[0], "Dòng không phải JSON hợp lệ");
+            }
+            if (node == null || !node.isObject()) {
+                return ImportRow.invalid(lineNumber[0], "Mỗi dòng phải là một object JSON");
+            }
+            JsonNode roles = node.get("roles");
+            String roleList = roles == null || roles.isNull() ? null
+                    : roles.isArray() ? String.join(";", OBJECT_MAPPER.convertValue(roles, String[].class))
+                    : roles.asText();
+            return new ImportRow(lineNumber[0], text(node, "email"), text(node, "fullName"), text(node, "phone"),
+                    text(node, "address"), text(node, "password"), roleList, text(node, "emailVerified"), null);
+        };
+    }
+
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        String text = value.asText().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    @FunctionalInterface
+    private interface RowReader {
+        ImportRow next() throws IOException;
+    }
+
+    private record ImportRow(long line, String email, String fullName, String phone, String address,
+                             String password, String roles, String emailVerified, String error) {
+
+        static ImportRow invalid(long line, String error) {
+            return new ImportRow(line, null, null, null, null, null, null, null, error);
+        }
+    }
+
+    private record Candidate(ImportRow row, Set<Role> roles, boolean emailVerified) {
+
+        User toUser(String passwordHash) {
+            User user = User.builder()
+                    .email(row.email())
+                    .fullName(row.fullName())
+                    .phone(row.phone())
+                    .address(row.address())
+                    .password(passwordHash)
+                    .provider(User.AuthProvider.LOCAL)
+                    .emailVerified(emailVerified)
+                    .isActive(true)
+                    .build();
+            user.setRoles(new HashSet<>(roles));
+            return user;
+        }
+    }
+
+    /**
+     * Trạng thái của một lượt nhập; chỉ được dùng trên thread xử lý request.
+     */
+    private final class ImportRun {
+
+        private final JsonGenerator json;
+        private final Map<String, Role> roles;
+        /** Email (chữ thường) đã gặp trong file, để báo trùng ngay trong file. */
+        private final Set<String> seen = new HashSet<>();
+        private long processed;
+        private long imported;
+        private long failed;
+
+        ImportRun(JsonGenerator json, Map<String, Role> roles) {
+            this.json = json;
+            this.roles = roles;
+        }
+
+        Candidate validate(ImportRow row) throws IOException {
+            processed++;
+            if (row.error() != null) {
+                failed(row, row.error());
+                return null;
+            }
+            if (row.email() == null || row.email().length() > 255 || !EMAIL.matcher(row.email()).matches()) {
+                failed(row, "Email không hợp lệ");
+                return null;
+            }
+            if (row.fullName() == null) {
+                failed(row, "Họ tên không được để trống");
+                return null;
+            }
+            if (row.password() != null && row.password().length() < MIN_PASSWORD_LENGTH) {
+                failed(row, "Mật khẩu phải có ít nhất " + MIN_PASSWORD_LENGTH + " ký tự");
+                return null;
+            }
+
+            Set<Role> userRoles = new HashSet<>();
+            String roleList = row.roles() == null ? DEFAULT_ROLE : row.roles();
+            for (String name : ROLE_SEPARATOR.split(roleList)) {
+                String trimmed = name.trim().toUpperCase(Locale.ROOT);
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                String roleName = trimmed.startsWith("ROLE_") ? trimmed : "ROLE_" + trimmed;
+                Role role = roles.get(roleName);
+                if (role == null) {
+                    failed(row, "Role không tồn tại: " + roleName);
+                    return null;
+                }
+                userRoles.add(role);
+            }
+
+            if (!seen.add(row.email().toLowerCase(Locale.ROOT))) {
+                failed(row, "Email bị lặp lại trong file");
+                return null;
+            }
+            // Tài khoản chuyển từ đối tác mặc định coi như đã xác minh email
+            boolean emailVerified = row.emailVerified() == null || Boolean.parseBoolean(row.emailVerified());
+            return new Candidate(row, userRoles, emailVerified);
+        }
+
+        /**
+         * Một truy vấn cho các email mà filter không loại trừ được.
+         */
+        List<Candidate> rejectExisting(List<Candidate> chunk) throws IOException {
+            List<String> maybeExisting = new ArrayList<>();
+            for (Candidate candidate : chunk) {
+                if (emailExistenceFilter.mightExist(candidate.row.email())) {
+                    maybeExisting.add(candidate.row.email());
+                }
+            }
+            if (maybeExisting.isEmpty()) {
+                return chunk;
+            }
+
+            Set<String> existing = new HashSet<>();
+            for (String email : userRepository.findEmailsIn(maybeExisting)) {
+                existing.add(email.toLowerCase(Locale.ROOT));
+            }
+            List<Candidate> fresh = new ArrayList<>(chunk.size());
+            for (Candidate candidate : chunk) {
+                if (existing.contains(candidate.row.email().toLowerCase(Locale.ROOT))) {
+                    failed(candidate.row, "Email đã được sử dụng");
+                } else {
+                    fresh.add(candidate);
+                }
+            }
+            return fresh;
+        }
+
+        void imported(Candidate candidate) {
+            imported++;
+            importedCounter.increment();
+            emailExistenceFilter.add(candidate.row.email());
+        }
+
+        void failed(ImportRow row, String message) throws IOException {
+            failed++;
+            failedCounter.increment();
+            json.writeStartObject();
+            json.writeStringField("type", "error");
+            json.writeNumberField("line", row.line());
+            json.writeStringField("email", row.email());
+            json.writeStringField("message", message);
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        void writeProgress(String type) throws IOException {
+            json.writeStartObject();
+            json.writeStringField("type", type);
+            json.writeNumberField("processed", processed);
+            json.writeNumberField("imported", imported);
+            json.writeNumberField("failed", failed);
+            json.writeEndObject();
+            json.writeRaw('\n');
+            json.flush();
+        }
+    }
+}
@@ -1,22 +1,39 @@
 package com.example.kltn.service.impl;
 
 import com.example.kltn.dto.request.UpdateProfileRequest;
+import com.example.kltn.dto.response.CursorPage;
 import com.example.kltn.dto.response.UserResponse;
 import com.example.kltn.entity.Role;
 import com.example.kltn.entity.User;
+import com.example.kltn.event.UserAccountEvent;
 import com.example.kltn.exception.ResourceNotFoundException;
 import com.example.kltn.repository.RoleRepository;
 import com.example.kltn.repository.UserRepository;
+import com.example.kltn.repository.projection.UserResponseView;
+import com.example.kltn.security.EmailExistenceFilter;
+import com.example.kltn.security.RoleAuthorities;
+import com.example.kltn.security.UserDetailsCache;
+import com.example.kltn.security.UserVersionRegistry;
+import com.example.kltn.service.DashboardService;
 import com.example.kltn.service.JwtService;
 import com.example.kltn.service.UserService;
+import com.example.kltn.util.KeysetCursor;
+import com.example.kltn.util.UniqueConstraints;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,11 +44,23 @@ public class UserServiceImpl implements UserService {
     private final RoleRepository roleRepository;
     private final JwtService jwtService;
     private final PasswordEncoder passwordEncoder;
+    private final UserVersionRegistry userVersionRegistry;
+    private final UserDetailsCache userDetailsCache;
+    private final DashboardService dashboardService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EmailExistenceFilter emailExistenceFilter;
+    private final RoleAuthorities roleAuthorities;
+
+    @Value("${app.pagination.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.pagination.max-size:100}")
+    private int maxPageSize;
     
     @Override
     public UserResponse getCurrentUser(String token) {
         String email = jwtService.extractUsername(token);
-        User user = userRepository.findByEmail(email)
+        UserResponseView user = userRepository.findResponseViewByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("Người dùng không tồn tại"));
 
         return mapToUserResponse(user);
@@ -58,12 +87,13 @@ public class UserServiceImpl implements UserService {
         }
 
         userRepository.save(user);
+        userDetailsCache.invalidate(user.getEmail());
         return mapToUserResponse(user);
     }
 
     @Override
     public UserResponse getUserById(Long id) {
-        User user = userRepository.findById(id)
+        UserResponseView user = userRepository.findResponseViewById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", id));
 
         return mapToUserResponse(user);
@@ -71,25 +101,62 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public UserResponse getUserByEmail(String email) {
-        User user = userRepository.findByEmail(email)
+        UserResponseView user = userRepository.findResponseViewByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "email", email));
 
         return mapToUserResponse(user);
     }
 
     @Override
-    public List<UserResponse> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(this::mapToUserResponse)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public CursorPage<UserResponse> getUsers(String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        // Lấy dư một dòng để biết còn trang sau hay không
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<Long> ids;
+        if (cursor == null || cursor.isBlank()) {
+            ids = userRepository.findFirstPageIds(limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            ids = after.createdAt() == null
+                    ? userRepository.findUndatedPageIdsAfter(after.id(), limit)
+                    : userRepository.findPageIdsAfter(after.createdAt(), after.id(), limit);
+        }
+
+        boolean hasMore = ids.size() > pageSize;
+        if (hasMore) {
+            ids = ids.subList(0, pageSize);
+        }
+        if (ids.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        // Roles đọc từ role_mask nên chỉ cần một truy vấn trên users, rồi giữ đúng thứ tự keyset
+        Map<Long, User> users = userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        List<User> page = ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        String nextCursor = null;
+        if (hasMore && !page.isEmpty()) {
+            User last = page.get(page.size() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPage<>(page.stream().map(this::mapToUserResponse).toList(), nextCursor);
     }
 
     @Override
     public List<UserResponse> getUsersByRole(String roleName) {
-        Role role = roleRepository.findByName(roleName)
-                .orElseThrow(() -> new ResourceNotFoundException("Role", "name", roleName));
+        List<UserResponseView> users = userRepository.findResponseViewsByRole(roleName);
+        // Chỉ kiểm tra role tồn tại khi không có kết quả, để trường hợp thường chỉ tốn một câu SQL
+        if (users.isEmpty() && !roleRepository.existsByName(roleName)) {
+            throw new ResourceNotFoundException("Role", "name", roleName);
+        }
 
-        return userRepository.findByRolesContaining(role).stream()
+        return users.stream()
                 .map(this::mapToUserResponse)
                 .collect(Collectors.toList());
     }
@@ -109,6 +176,10 @@ public class UserServiceImpl implements UserService {
 
         user.setRoles(roles);
         userRepository.save(user);
+        userVersionRegistry.bump(user.getId());
+        userDetailsCache.invalidate(user.getEmail());
+        eventPublisher.publishEvent(UserAccountEvent.rolesChanged(user.getId(),
+                roles.stream().map(Role::getName).toList()));
 
         return mapToUserResponse(user);
     }
@@ -119,8 +190,15 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
 
+        boolean wasActive = Boolean.TRUE.equals(user.getIsActive());
         user.setIsActive(false);
         userRepository.save(user);
+        if (wasActive) {
+            dashboardService.onActiveChanged(false);
+        }
+        userVersionRegistry.bump(user.getId());
+        userDetailsCache.invalidate(user.getEmail());
+        eventPublisher.publishEvent(UserAccountEvent.forcedLogout(user.getId()));
 
         return mapToUserResponse(user);
     }
@@ -131,8 +209,14 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
 
+        boolean wasActive = Boolean.TRUE.equals(user.getIsActive());
         user.setIsActive(true);
         userRepository.save(user);
+        if (!wasActive) {
+            dashboardService.onActiveChanged(true);
+        }
+        userVersionRegistry.bump(user.getId());
+        userDetailsCache.invalidate(user.getEmail());
 
         return mapToUserResponse(user);
     }
@@ -149,29 +233,64 @@ public class UserServiceImpl implements UserService {
 
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        userVersionRegistry.bump(user.getId());
+        userDetailsCache.invalidate(user.getEmail());
+        eventPublisher.publishEvent(UserAccountEvent.passwordChanged(user.getId()));
     }
 
+    /**
+     * Không chạy trong transaction: lỗi trùng email khi hai lượt đăng nhập tạo cùng lúc
+     * chỉ rollback câu INSERT của nó, không làm hỏng transaction bao ngoài.
+     */
     @Override
-    @Transactional
     public void processOAuthPostLogin(String email, String name, String picture) {
-        if (!userRepository.existsByEmail(email)) {
-            User user = User.builder()
-                    .email(email)
-                    .fullName(name)
-                    .avatar(picture)
-                    .emailVerified(true)
-                    .isActive(true)
-                    .provider(User.AuthProvider.GOOGLE)
-                    .build();
-
-            Role userRole = roleRepository.findByName("ROLE_USER")
-                    .orElseThrow(() -> new RuntimeException("Role USER không tồn tại"));
-
-            user.setRoles(new HashSet<>());
-            user.getRoles().add(userRole);
+        if (emailExistenceFilter.mightExist(email) && userRepository.existsByEmail(email)) {
+            return;
+        }
+
+        User user = User.builder()
+                .email(email)
+                .fullName(name)
+                .avatar(picture)
+                .emailVerified(true)
+                .isActive(true)
+                .provider(User.AuthProvider.GOOGLE)
+                .build();
 
+        Role userRole = roleRepository.findByName("ROLE_USER")
+                .orElseThrow(() -> new RuntimeException("Role USER không tồn tại"));
+
+        user.setRoles(new HashSet<>(Set.of(userRole)));
+
+        try {
             userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            if (!UniqueConstraints.isViolation(e)) {
+                throw e;
+            }
+            // User đã được tạo bởi request khác
+            emailExistenceFilter.add(email);
+            return;
         }
+        emailExistenceFilter.add(email);
+        dashboardService.onUserCreated(user);
+    }
+
+    private UserResponse mapToUserResponse(UserResponseView user) {
+        return UserResponse.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .fullName(user.getFullName())
+                .phone(user.getPhone())
+                .address(user.getAddress())
+                .avatar(user.getAvatar())
+                .provider(user.getProvider().name())
+                .emailVerified(user.getEmailVerified())
+                .isActive(user.getIsActive())
+                .roles(roleAuthorities.names(user.getRoleMask()))
+                .createdAt(user.getCreatedAt())
+                .updatedAt(user.getUpdatedAt())
+                .build();
     }
 
     private UserResponse mapToUserResponse(User user) {
@@ -185,9 +304,7 @@ public class UserServiceImpl implements UserService {
                 .provider(user.getProvider().name())
                 .emailVerified(user.getEmailVerified())
                 .isActive(user.getIsActive())
-                .roles(user.getRoles().stream()
-                        .map(Role::getName)
-                        .collect(Collectors.toList()))
+                .roles(roleAuthorities.names(user.getRoleMask()))
                 .createdAt(user.getCreatedAt())
                 .updatedAt(user.getUpdatedAt())
                 .build();
@@ -0,0 +1,125 @@
+package com.example.kltn.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Đọc CSV (RFC 4180) từng bản ghi một từ stream: trường trong dấu nháy kép được chứa dấu phẩy,
+ * xuống dòng và {@code ""}. Không nạp cả file vào bộ nhớ.
+ */
+public class CsvReader {
+
+    private final Reader reader;
+    private final StringBuilder field = new StringBuilder();
+    private int peeked = -2;
+    private long line = 1;
+    private long recordLine;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Bản ghi tiếp theo, {@code null} khi hết stream. Dòng trống bị bỏ qua.
+     */
+    public List<String> next() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            if (c == '\r' || c == '\n') {
+                consumeLineEnd(c);
+                continue;
+            }
+            unread(c);
+            recordLine = line;
+            return readRecord();
+        }
+    }
+
+    /**
+     * Số dòng (đếm từ 1) nơi bản ghi vừa đọc bắt đầu.
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            int c = read();
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Thiếu dấu nháy đóng cho trường bắt đầu ở dòng " + recordLine);
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        unread(next);
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> {
+                    if (field.isEmpty() && !wasQuoted) {
+                        quoted = true;
+                        wasQuoted = true;
+                    } else {
+                        field.append('"');
+                    }
+                }
+                case ',' -> {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    wasQuoted = false;
+                }
+                case '\r', '\n', -1 -> {
+                    fields.add(field.toString());
+                    if (c != -1) {
+                        consumeLineEnd(c);
+                    }
+                    return fields;
+                }
+                default -> field.append((char) c);
+            }
+        }
+    }
+
+    private void consumeLineEnd(int c) throws IOException {
+        if (c == '\r') {
+            int next = read();
+            if (next != '\n') {
+                unread(next);
+            }
+        }
+        line++;
+    }
+
+    private int read() throws IOException {
+        if (peeked != -2) {
+            int c = peeked;
+            peeked = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        peeked = c;
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.kltn.util;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Phát cùng một frame (đã serialize sẵn) tới nhiều subscriber. Mỗi subscriber có hàng đợi
+ * giới hạn và được drain trên {@code executor}, nên client chậm không chặn luồng phát;
+ * hàng đợi đầy thì subscriber bị ngắt thay vì để bộ nhớ tăng dần.
+ * <p>
+ * Một lần {@link Sink#send} bị kẹt (client không đọc, socket đầy) giữ luôn thread của {@code executor};
+ * vài client như vậy là đủ chặn mọi subscriber khác. Với {@code writeTimeoutMillis > 0},
+ * {@link #closeStalled()} ngắt subscriber có lần gửi vượt hạn và interrupt thread đang gửi để trả nó về pool.
+ * <p>
+ * {@link Sink#close} có thể chặn trên cùng khóa mà lần gửi đang kẹt giữ, nên khi còn lần gửi dở dang
+ * nó được dời sang chính thread gửi, chạy ngay sau khi {@link Sink#send} trả về; thread gọi
+ * {@link #publish} hay {@link #closeStalled()} không bao giờ phải chờ.
+ */
+public class FanOutBroadcaster<T> {
+
+    public interface Sink<T> {
+
+        void send(T frame) throws Exception;
+
+        void close();
+    }
+
+    private final Set<Subscription> subscribers = ConcurrentHashMap.newKeySet();
+    private final Executor executor;
+    private final int bufferSize;
+    private final long writeTimeoutNanos;
+    private final AtomicLong dropped = new AtomicLong();
+
+    public FanOutBroadcaster(Executor executor, int bufferSize) {
+        this(executor, bufferSize, 0);
+    }
+
+    public FanOutBroadcaster(Executor executor, int bufferSize, long writeTimeoutMillis) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize phải lớn hơn 0");
+        }
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+    }
+
+    public Subscription subscribe(Sink<T> sink, T initialFrame) {
+        Subscription subscription = new Subscription(sink);
+        subscribers.add(subscription);
+        if (initialFrame != null) {
+            subscription.offer(initialFrame);
+        }
+        return subscription;
+    }
+
+    public void publish(T frame) {
+        for (Subscription subscription : subscribers) {
+            subscription.offer(frame);
+        }
+    }
+
+    public int size() {
+        return subscribers.size();
+    }
+
+    /**
+     * Ngắt các subscriber đang gửi lâu hơn {@code writeTimeoutMillis}; cần được gọi định kỳ.
+     *
+     * @return số subscriber bị ngắt
+     */
+    public int closeStalled() {
+        if (writeTimeoutNanos <= 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        int closed = 0;
+        for (Subscription subscription : subscribers) {
+            long started = subscription.sendStartedAt;
+            if (started != 0 && now - started > writeTimeoutNanos) {
+                dropped.incrementAndGet();
+                subscription.abort();
+                closed++;
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * Số subscriber bị ngắt vì không đọc kịp (hàng đợi đầy hoặc gửi quá hạn).
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public void closeAll() {
+        subscribers.forEach(Subscription::close);
+    }
+
+    public final class Subscription {
+
+        private final Sink<T> sink;
+        private final ArrayBlockingQueue<T> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        /** Giữ interrupt của {@link #abort()} không lọt sang lượt drain của subscriber khác trên cùng thread. */
+        private final ReentrantLock senderLock = new ReentrantLock();
+        private Thread sender;
+        private boolean interrupted;
+        private boolean closeOnFinish;
+        private volatile long sendStartedAt;
+
+        private Subscription(Sink<T> sink) {
+            this.sink = sink;
+        }
+
+        private void offer(T frame) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(frame)) {
+                dropped.incrementAndGet();
+                abort();
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    close();
+                }
+            }
+        }
+
+        private void drain() {
+            senderLock.lock();
+            try {
+                sender = Thread.currentThread();
+            } finally {
+                senderLock.unlock();
+            }
+            try {
+                T frame;
+                while (!closed.get() && (frame = queue.poll()) != null) {
+                    sendStartedAt = System.nanoTime();
+                    sink.send(frame);
+                    sendStartedAt = 0;
+                }
+            } catch (Exception e) {
+                close();
+            } finally {
+                sendStartedAt = 0;
+                finishSending();
+                scheduled.set(false);
+            }
+            // Frame đến sau lần poll cuối nhưng trước khi hạ cờ scheduled
+            if (!closed.get() && !queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void finishSending() {
+            boolean closeSink;
+            senderLock.lock();
+            try {
+                sender = null;
+                if (interrupted) {
+                    // Xóa interrupt do abort() gửi, kể cả khi lần gửi cuối đã xong trước khi nhận nó
+                    Thread.interrupted();
+                }
+                closeSink = closeOnFinish;
+            } finally {
+                senderLock.unlock();
+            }
+            if (closeSink) {
+                sink.close();
+            }
+        }
+
+        private void abort() {
+            // Interrupt trước: sink.close() có thể chặn cho tới khi lần gửi đang kẹt trả về
+            senderLock.lock();
+            try {
+                if (sender != null) {
+                    interrupted = true;
+                    sender.interrupt();
+                }
+            } finally {
+                senderLock.unlock();
+            }
+            close();
+        }
+
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscribers.remove(this);
+            queue.clear();
+            senderLock.lock();
+            try {
+                if (sender != null) {
+                    closeOnFinish = true;
+                    return;
+                }
+            } finally {
+                senderLock.unlock();
+            }
+            sink.close();
+        }
+    }
+}
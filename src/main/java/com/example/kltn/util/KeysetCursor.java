@@ -0,0 +1,30 @@
+package com.example.kltn.util;
+
+import com.example.kltn.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Vị trí keyset {@code (created_at, id)} của bản ghi cuối trang, mã hóa Base64URL để client coi là chuỗi mờ.
+ * {@code createdAt} là null với dòng cũ chưa có ngày tạo.
+ */
+public record KeysetCursor(LocalDateTime createdAt, Long id) {
+
+    public String encode() {
+        String raw = (createdAt == null ? "" : createdAt.toString()) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            LocalDateTime createdAt = separator == 0 ? null : LocalDateTime.parse(raw.substring(0, separator));
+            return new KeysetCursor(createdAt, Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Cursor không hợp lệ");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.kltn.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Giới hạn tốc độ đều (không cho burst): mỗi lần {@link #acquire()} giữ một khe thời gian
+ * cách khe trước {@code 1 / permitsPerSecond} giây và ngủ tới khe đó. Không dùng synchronized
+ * nên không ghim virtual thread.
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+
+    public RateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond phải lớn hơn 0");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    public void acquire() throws InterruptedException {
+        long now = System.nanoTime();
+        long slot = Math.max(now, nextSlot.getAndUpdate(next -> Math.max(next, now) + intervalNanos));
+        long wait = slot - now;
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.kltn.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bộ đếm theo khung thời gian cố định trên ring buffer lock-free, không cấp phát khi ghi.
+ * Mỗi ô là một long gồm số thứ tự bucket (40 bit cao) và số đếm (24 bit thấp), nên việc
+ * chuyển sang bucket mới và tăng đếm là một lần CAS duy nhất; ô còn giữ bucket cũ được coi là 0.
+ */
+public class RingCounter {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final long bucketMillis;
+    private final AtomicLongArray slots;
+
+    public RingCounter(long bucketMillis, int capacity) {
+        if (bucketMillis <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("bucketMillis và capacity phải lớn hơn 0");
+        }
+        this.bucketMillis = bucketMillis;
+        this.slots = new AtomicLongArray(capacity);
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    public void increment(long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        int index = (int) (bucket % slots.length());
+        while (true) {
+            long current = slots.get(index);
+            long next;
+            if (current >>> COUNT_BITS == bucket) {
+                if ((current & COUNT_MASK) == COUNT_MASK) {
+                    return;
+                }
+                next = current + 1;
+            } else if (current >>> COUNT_BITS < bucket) {
+                next = bucket << COUNT_BITS | 1;
+            } else {
+                // Luồng khác đã ghi sang vòng mới, sự kiện này quá cũ
+                return;
+            }
+            if (slots.compareAndSet(index, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * {@code points} bucket gần nhất tính đến {@code nowMillis}, cũ nhất trước.
+     */
+    public long[] series(long nowMillis, int points) {
+        int size = Math.min(points, slots.length());
+        long[] values = new long[size];
+        long last = nowMillis / bucketMillis;
+        for (int i = 0; i < size; i++) {
+            long bucket = last - size + 1 + i;
+            if (bucket < 0) {
+                continue;
+            }
+            long slot = slots.get((int) (bucket % slots.length()));
+            values[i] = slot >>> COUNT_BITS == bucket ? slot & COUNT_MASK : 0;
+        }
+        return values;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(bucketMillis);
+        out.writeInt(slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            out.writeLong(slots.get(i));
+        }
+    }
+
+    /**
+     * Nạp lại snapshot; bỏ qua nếu kích thước bucket hoặc dung lượng đã đổi.
+     */
+    public boolean readFrom(DataInput in) throws IOException {
+        long savedBucketMillis = in.readLong();
+        int savedCapacity = in.readInt();
+        boolean compatible = savedBucketMillis == bucketMillis && savedCapacity == slots.length();
+        for (int i = 0; i < savedCapacity; i++) {
+            long value = in.readLong();
+            if (compatible) {
+                slots.set(i, value);
+            }
+        }
+        return compatible;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.kltn.util;
+
+import java.sql.SQLException;
+
+public final class UniqueConstraints {
+
+    private static final int MYSQL_DUPLICATE_ENTRY = 1062;
+    private static final String SQL_STATE_UNIQUE_VIOLATION = "23505";
+
+    private UniqueConstraints() {
+    }
+
+    /**
+     * Lỗi do vi phạm unique constraint (MySQL 1062, SQLState chuẩn 23505), không phải NOT NULL hay khóa ngoại.
+     */
+    public static boolean isViolation(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql
+                    && (sql.getErrorCode() == MYSQL_DUPLICATE_ENTRY
+                    || SQL_STATE_UNIQUE_VIOLATION.equals(sql.getSQLState()))) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.kltn.websocket;
+
+import com.example.kltn.security.UserVersionRegistry;
+import com.example.kltn.security.VerifiedToken;
+import com.example.kltn.service.JwtService;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+/**
+ * Xác thực JWT một lần lúc handshake. Trình duyệt không gửi được header Authorization
+ * khi mở WebSocket nên chấp nhận thêm query param {@code token}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String USER_ID = "userId";
+    public static final String EMAIL = "email";
+
+    private final JwtService jwtService;
+    private final UserVersionRegistry userVersionRegistry;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String token = resolveToken(request);
+        if (token == null) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        VerifiedToken verified;
+        try {
+            verified = jwtService.verifyToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected WebSocket handshake: {}", e.getMessage());
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        // Refresh token không dùng để mở kết nối
+        if (verified.isRefresh() || verified.getUserId() == null
+                || !jwtService.isTokenValid(verified, verified.getSubject())
+                || !userVersionRegistry.isCurrent(verified.getUserId(), verified.getVersion())) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        attributes.put(USER_ID, verified.getUserId());
+        attributes.put(EMAIL, verified.getSubject());
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private static String resolveToken(ServerHttpRequest request) {
+        String header = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith("Bearer ")) {
+            return header.substring(7);
+        }
+        return UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("token");
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.kltn.websocket;
+
+import com.example.kltn.event.UserAccountEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Endpoint {@code /ws/notifications}: giữ phiên WebSocket của từng user và đẩy
+ * {@link UserAccountEvent} tới mọi phiên của user đó, để client không phải polling
+ * {@code /api/user/profile}. Mỗi phiên được bọc bởi {@link ConcurrentWebSocketSessionDecorator}
+ * với buffer gửi giới hạn; client không đọc kịp sẽ bị đóng kết nối.
+ */
+@Component
+@Slf4j
+public class NotificationHub extends TextWebSocketHandler {
+
+    /**
+     * Mã đóng riêng của ứng dụng (4000-4999) khi tài khoản bị khóa.
+     */
+    public static final CloseStatus FORCED_LOGOUT = new CloseStatus(4001, "Tài khoản đã bị khóa");
+
+    private final ObjectMapper objectMapper;
+    private final UserSessionRegistry registry;
+    private final int sendTimeLimitMillis;
+    private final int bufferSizeLimit;
+
+    public NotificationHub(ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.websocket.registry-shards:16}") int registryShards,
+                           @Value("${app.websocket.send-time-limit-ms:10000}") int sendTimeLimitMillis,
+                           @Value("${app.websocket.buffer-size-limit:65536}") int bufferSizeLimit) {
+        this.objectMapper = objectMapper;
+        this.registry = new UserSessionRegistry(registryShards);
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.bufferSizeLimit = bufferSizeLimit;
+
+        Gauge.builder("websocket.notification.sessions", registry, UserSessionRegistry::size)
+                .description("Số phiên WebSocket thông báo đang mở")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        registry.register(userId(session), new ConcurrentWebSocketSessionDecorator(session,
+                sendTimeLimitMillis, bufferSizeLimit, ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Long userId = userId(session);
+        for (WebSocketSession registered : registry.sessions(userId)) {
+            if (registered.getId().equals(session.getId())) {
+                registry.unregister(userId, registered);
+            }
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        // Kênh chỉ đẩy từ server; tin nhắn từ client (ping của ứng dụng) được bỏ qua
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserAccountEvent(UserAccountEvent event) {
+        boolean forcedLogout = event.type() == UserAccountEvent.Type.FORCED_LOGOUT;
+        Collection<WebSocketSession> sessions = forcedLogout
+                ? registry.removeAll(event.userId())
+                : registry.sessions(event.userId());
+        if (sessions.isEmpty()) {
+            return;
+        }
+
+        TextMessage message = toMessage(event);
+        for (WebSocketSession session : sessions) {
+            try {
+                session.sendMessage(message);
+                if (forcedLogout) {
+                    session.close(FORCED_LOGOUT);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Decorator đã đóng phiên nếu vượt giới hạn buffer hoặc thời gian gửi
+                log.debug("Failed to notify session {} of user {}: {}", session.getId(), event.userId(), e.getMessage());
+                registry.unregister(event.userId(), session);
+            }
+        }
+    }
+
+    UserSessionRegistry getRegistry() {
+        return registry;
+    }
+
+    private TextMessage toMessage(UserAccountEvent event) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", event.type().name());
+        if (event.roles() != null) {
+            payload.put("roles", event.roles());
+        }
+        payload.put("timestamp", System.currentTimeMillis());
+        try {
+            return new TextMessage(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Long userId(WebSocketSession session) {
+        return (Long) session.getAttributes().get(JwtHandshakeInterceptor.USER_ID);
+    }
+}
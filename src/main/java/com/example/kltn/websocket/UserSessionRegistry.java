@@ -0,0 +1,69 @@
+package com.example.kltn.websocket;
+
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Phiên WebSocket theo userId, chia thành nhiều shard (lũy thừa của 2) để các lượt
+ * kết nối/ngắt kết nối và resize không tranh chấp trên cùng một map.
+ */
+public class UserSessionRegistry {
+
+    private final Map<Long, Set<WebSocketSession>>[] shards;
+    private final int mask;
+
+    @SuppressWarnings("unchecked")
+    public UserSessionRegistry(int shardCount) {
+        int size = Integer.highestOneBit(Math.max(1, shardCount - 1)) << 1;
+        this.shards = new Map[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        this.mask = size - 1;
+    }
+
+    public void register(Long userId, WebSocketSession session) {
+        // Thêm ngay trong compute: unregister đồng thời không thể xóa tập rỗng rồi bỏ rơi session này
+        shard(userId).compute(userId, (id, sessions) -> {
+            Set<WebSocketSession> target = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            target.add(session);
+            return target;
+        });
+    }
+
+    public void unregister(Long userId, WebSocketSession session) {
+        shard(userId).computeIfPresent(userId, (id, sessions) -> {
+            sessions.remove(session);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    public Set<WebSocketSession> sessions(Long userId) {
+        Set<WebSocketSession> sessions = shard(userId).get(userId);
+        return sessions != null ? sessions : Set.of();
+    }
+
+    public List<WebSocketSession> removeAll(Long userId) {
+        Set<WebSocketSession> sessions = shard(userId).remove(userId);
+        return sessions != null ? List.copyOf(sessions) : List.of();
+    }
+
+    public int size() {
+        int total = 0;
+        for (Map<Long, Set<WebSocketSession>> shard : shards) {
+            for (Set<WebSocketSession> sessions : shard.values()) {
+                total += sessions.size();
+            }
+        }
+        return total;
+    }
+
+    private Map<Long, Set<WebSocketSession>> shard(Long userId) {
+        long h = userId * 0x9E3779B97F4A7C15L;
+        return shards[(int) (h ^ (h >>> 32)) & mask];
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.kltn.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * So sánh chế độ platform thread và virtual thread ở 1k và 10k client đồng thời.
+ * Mỗi client gửi request liên tục trong khoảng thời gian đo, in ra throughput và p50/p99.
+ *
+ * <pre>
+ * # Chế độ hiện tại (JDK 17, Tomcat thread pool)
+ * mvn spring-boot:run
+ * # Chế độ virtual thread (JDK 21)
+ * mvn -Pvirtual-threads spring-boot:run
+ *
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.kltn.benchmark.ConcurrentClientsLoadDriver \
+ *     -Dexec.args="http://localhost:8080/api/user/profile &lt;jwt&gt; 30"
+ * </pre>
+ *
+ * Endpoint {@code /api/user/profile} đi qua filter JWT và đọc MySQL nên phản ánh đúng chi phí blocking.
+ */
+public class ConcurrentClientsLoadDriver {
+
+    private static final int[] CONCURRENCY_LEVELS = {1_000, 10_000};
+    private static final int MAX_LATENCY_SAMPLES = 1_000_000;
+
+    public static void main(String[] args) throws Exception {
+        URI target = URI.create(args.length > 0 ? args[0] : "http://localhost:8080/api/public/health");
+        String token = args.length > 1 && !args[1].isBlank() ? args[1] : null;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        for (int concurrency : CONCURRENCY_LEVELS) {
+            run(client, target, token, concurrency, Duration.ofSeconds(seconds));
+        }
+    }
+
+    private static void run(HttpClient client, URI target, String token, int concurrency, Duration duration)
+            throws InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(target)
+                .timeout(Duration.ofSeconds(60))
+                .GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = builder.build();
+
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long[] latencies = new long[MAX_LATENCY_SAMPLES];
+        AtomicLong samples = new AtomicLong();
+
+        long deadline = System.nanoTime() + duration.toNanos();
+        long startedAt = System.nanoTime();
+
+        while (System.nanoTime() < deadline) {
+            inFlight.acquire();
+            long sentAt = System.nanoTime();
+            CompletableFuture<HttpResponse<Void>> response =
+                    client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+            response.whenComplete((result, error) -> {
+                if (error != null || result.statusCode() >= 400) {
+                    failed.incrementAndGet();
+                } else {
+                    completed.incrementAndGet();
+                    long index = samples.getAndIncrement();
+                    if (index < MAX_LATENCY_SAMPLES) {
+                        latencies[(int) index] = System.nanoTime() - sentAt;
+                    }
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(concurrency);
+
+        double elapsedSeconds = (System.nanoTime() - startedAt) / 1e9;
+        int count = (int) Math.min(samples.get(), MAX_LATENCY_SAMPLES);
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+
+        System.out.printf("concurrency=%d ok=%d failed=%d throughput=%.1f req/s p50=%.1f ms p99=%.1f ms%n",
+                concurrency, completed.get(), failed.get(), completed.get() / elapsedSeconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(sorted.length * percentile))] / 1e6;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.kltn.benchmark;
+
+import com.example.kltn.dto.response.DashboardResponse;
+import com.example.kltn.util.FanOutBroadcaster;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí CPU cho một lần cập nhật dashboard tới {@code subscribers} client:
+ * mỗi client tự polling (serialize riêng từng lần) so với serialize một lần rồi fan-out
+ * qua {@link FanOutBroadcaster}. Phần fan-out chỉ là offer/poll trên hàng đợi của từng client.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DashboardStreamBenchmark {
+
+    @Param({"1000", "10000"})
+    public int subscribers;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private DashboardResponse dashboard;
+    private FanOutBroadcaster<String> broadcaster;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        dashboard = DashboardResponse.builder()
+                .totalUsers(152_340L)
+                .newUsersToday(412L)
+                .activeUsers(150_001L)
+                .inactiveUsers(2_339L)
+                .verifiedUsers(140_200L)
+                .unverifiedUsers(12_140L)
+                .usersByProvider(Map.of("LOCAL", 120_000L, "GOOGLE", 30_000L, "FACEBOOK", 2_340L))
+                .reconciledAt(LocalDateTime.now())
+                .build();
+        broadcaster = new FanOutBroadcaster<>(Runnable::run, 16);
+        for (int i = 0; i < subscribers; i++) {
+            broadcaster.subscribe(new FanOutBroadcaster.Sink<>() {
+                @Override
+                public void send(String frame) {
+                    blackhole.consume(frame);
+                }
+
+                @Override
+                public void close() {
+                }
+            }, null);
+        }
+    }
+
+    @Benchmark
+    public void pollingPerClient(Blackhole blackhole) throws Exception {
+        for (int i = 0; i < subscribers; i++) {
+            blackhole.consume(objectMapper.writeValueAsString(dashboard));
+        }
+    }
+
+    @Benchmark
+    public void coalescedFanOut() throws Exception {
+        broadcaster.publish(objectMapper.writeValueAsString(dashboard));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.kltn.benchmark;
+
+import com.example.kltn.mail.EmailTemplateRenderer;
+import org.openjdk.jmh.annotations.*;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Số lần render template đặt lại mật khẩu mỗi giây:
+ * Thymeleaf không cache (cấu hình dev), Thymeleaf có cache, và chế độ precompiled.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailTemplateBenchmark {
+
+    private static final String TEMPLATE = "email/reset-password";
+
+    private EmailTemplateRenderer uncached;
+    private EmailTemplateRenderer cached;
+    private EmailTemplateRenderer precompiled;
+    private Map<String, String> variables;
+
+    @Setup
+    public void setUp() {
+        uncached = new EmailTemplateRenderer(templateEngine(false), false);
+        cached = new EmailTemplateRenderer(templateEngine(true), false);
+        precompiled = new EmailTemplateRenderer(templateEngine(true), true);
+        variables = Map.of(
+                "resetLink", "http://localhost:3000/reset-password?token=4b1d5c2e-8f3a-4c59-9d7e-1a2b3c4d5e6f",
+                "email", "user@example.com");
+    }
+
+    @Benchmark
+    public String thymeleafUncached() {
+        return uncached.render(TEMPLATE, Locale.ROOT, variables);
+    }
+
+    @Benchmark
+    public String thymeleafCached() {
+        return cached.render(TEMPLATE, Locale.ROOT, variables);
+    }
+
+    @Benchmark
+    public String precompiled() {
+        return precompiled.render(TEMPLATE, Locale.ROOT, variables);
+    }
+
+    private static TemplateEngine templateEngine(boolean cacheable) {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(cacheable);
+
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        return engine;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.kltn.benchmark;
+
+import com.example.kltn.security.JwtCodec;
+import com.example.kltn.security.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh {@link JwtCodec} với cách dùng JJWT cũ (dựng builder/parser mỗi lần gọi).
+ * Chạy với {@code -prof gc} để xem số byte cấp phát mỗi thao tác.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtCodecBenchmark {
+
+    private static final String SECRET = "ZHVjdGFtLWtsdG4tc3ByaW5nYm9vdC1qd3Qtc2VjcmV0LTIwMjU=";
+    private static final long TTL = 86_400_000L;
+    private static final List<String> ROLES = List.of("ROLE_USER", "ROLE_STAFF");
+    private static final UUID FALLBACK_ID = UUID.randomUUID();
+
+    private JwtCodec codec;
+    private Key key;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        codec = new JwtCodec(SECRET);
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        token = codec.encode("user@example.com", 42L, "Nguyễn Văn A", ROLES, 0, TTL);
+    }
+
+    @Benchmark
+    public String signCodec() {
+        return codec.encode("user@example.com", 42L, "Nguyễn Văn A", ROLES, 0, TTL);
+    }
+
+    @Benchmark
+    public String signJjwt() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", 42L);
+        claims.put("email", "user@example.com");
+        claims.put("fullName", "Nguyễn Văn A");
+        claims.put("roles", ROLES);
+        claims.put("ver", 0);
+
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject("user@example.com")
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(new Date(System.currentTimeMillis()))
+                .setExpiration(new Date(System.currentTimeMillis() + TTL))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public VerifiedToken verifyCodec() {
+        return codec.decode(token, FALLBACK_ID);
+    }
+
+    @Benchmark
+    public Claims verifyJjwt() {
+        JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Long extractUserIdCodec() {
+        return codec.decode(token, FALLBACK_ID).getUserId();
+    }
+
+    @Benchmark
+    public Long extractUserIdJjwt() {
+        Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        return claims.get("userId", Long.class);
+    }
+}
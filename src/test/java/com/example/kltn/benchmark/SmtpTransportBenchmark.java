@@ -0,0 +1,73 @@
+package com.example.kltn.benchmark;
+
+import com.example.kltn.mail.FakeSmtpServer;
+import com.example.kltn.mail.SmtpTransportPool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Số email/giây gửi tới server SMTP giả có độ trễ bắt tay {@code handshakeDelayMillis}:
+ * {@link JavaMailSenderImpl#send} (mỗi email một kết nối) so với {@link SmtpTransportPool}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SmtpTransportBenchmark {
+
+    @Param({"0", "20"})
+    public long handshakeDelayMillis;
+
+    private FakeSmtpServer server;
+    private JavaMailSenderImpl mailSender;
+    private SmtpTransportPool pool;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new FakeSmtpServer(handshakeDelayMillis);
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(server.getPort());
+        // Tránh tra DNS tên máy cho EHLO và Message-ID ở mỗi email
+        Properties properties = new Properties();
+        properties.setProperty("mail.smtp.localhost", "localhost");
+        properties.setProperty("mail.host", "localhost");
+        mailSender.setJavaMailProperties(properties);
+        pool = new SmtpTransportPool(mailSender, new SimpleMeterRegistry(), 4, 100, 30_000, 120_000, 30_000);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        pool.close();
+        server.close();
+    }
+
+    @Benchmark
+    public void sendPerMessageConnection() throws Exception {
+        mailSender.send(message());
+    }
+
+    @Benchmark
+    public void sendPooled() throws Exception {
+        pool.send(message());
+    }
+
+    private MimeMessage message() throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom("noreply@example.com");
+        helper.setTo("user@example.com");
+        helper.setSubject("Chào mừng đến với Fashion Store");
+        helper.setText("<p>Xin chào</p>", true);
+        return message;
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.kltn.mail;
+
+import com.example.kltn.dto.request.CreateCampaignRequest;
+import com.example.kltn.dto.response.CampaignResponse;
+import com.example.kltn.entity.EmailCampaign;
+import com.example.kltn.entity.User;
+import com.example.kltn.repository.EmailCampaignRepository;
+import com.example.kltn.repository.RoleRepository;
+import com.example.kltn.repository.UserRepository;
+import com.example.kltn.service.impl.CampaignServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runner ghi checkpoint/lease trong transaction riêng trên thread của nó nên test không chạy
+ * trong transaction bao ngoài. Email được gửi thật tới {@link FakeSmtpServer}.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CampaignRunnerTest {
+
+    private static final int USERS = 30;
+    private static final int CHUNK_SIZE = 5;
+
+    @Autowired
+    private EmailCampaignRepository emailCampaignRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EmailTemplateRenderer templateRenderer =
+            new EmailTemplateRenderer(EmailTemplateRendererTest.templateEngine(), true);
+    private final List<CampaignRunner> nodes = new ArrayList<>();
+    private FakeSmtpServer server;
+    private JavaMailSenderImpl mailSender;
+    private SmtpTransportPool smtpTransportPool;
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeSmtpServer(0);
+        mailSender = SmtpTransportPoolTest.mailSender(server.getPort());
+        smtpTransportPool = new SmtpTransportPool(mailSender, meterRegistry, 2, 100, 30_000, 120_000, 5_000);
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(User.builder().email("user" + i + "@example.com").fullName("User " + i).build());
+        }
+        ids = userRepository.saveAll(users).stream().map(User::getId).toList();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        nodes.forEach(CampaignRunner::shutdown);
+        smtpTransportPool.close();
+        server.close();
+        emailCampaignRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void sendsEveryRecipientOnceInChunksAndCheckpointsEachChunk() {
+        CampaignRunner node = node(1_000);
+        CampaignResponse created = service(node).createCampaign(request(), "admin@example.com");
+
+        awaitStatus(created.getId(), EmailCampaign.Status.COMPLETED);
+        await(() -> !node.isRunning(created.getId()));
+        EmailCampaign campaign = reload(created.getId());
+
+        assertThat(server.getMessages()).isEqualTo(USERS);
+        assertThat(campaign.getSentCount()).isEqualTo(USERS);
+        assertThat(campaign.getFailedCount()).isZero();
+        assertThat(campaign.getLastUserId()).isEqualTo(ids.get(USERS - 1));
+        assertThat(meterRegistry.get("mail.campaign.chunk").timer().count()).isEqualTo(USERS / CHUNK_SIZE);
+        assertThat(campaign.getLeaseOwner()).isNull();
+    }
+
+    @Test
+    void pauseStopsAtChunkBoundaryAndResumeContinuesFromCheckpoint() {
+        CampaignRunner node = node(50);
+        CampaignServiceImpl service = service(node);
+        Long id = service.createCampaign(request(), "admin@example.com").getId();
+        await(() -> reload(id).getLastUserId() > 0);
+
+        service.pauseCampaign(id);
+        await(() -> !node.isRunning(id));
+
+        EmailCampaign paused = reload(id);
+        assertThat(paused.getStatus()).isEqualTo(EmailCampaign.Status.PAUSED);
+        assertThat(paused.getSentCount()).isLessThan(USERS);
+        assertThat(paused.getSentCount() % CHUNK_SIZE).isZero();
+        // Chunk đang gửi lúc tạm dừng vẫn được gửi hết và ghi checkpoint
+        assertThat(server.getMessages()).isEqualTo(paused.getSentCount().intValue());
+
+        service.resumeCampaign(id);
+        EmailCampaign completed = awaitStatus(id, EmailCampaign.Status.COMPLETED);
+
+        assertThat(server.getMessages()).isEqualTo(USERS);
+        assertThat(completed.getSentCount()).isEqualTo(USERS);
+    }
+
+    @Test
+    void resumeWhileOldRunnerIsStillExitingRestartsIt() {
+        CampaignRunner node = node(50);
+        CampaignServiceImpl service = service(node);
+        Long id = service.createCampaign(request(), "admin@example.com").getId();
+        await(() -> reload(id).getLastUserId() > 0);
+
+        // Runner cũ còn trong danh sách đang chạy nên start() của resume bị bỏ qua
+        service.pauseCampaign(id);
+        service.resumeCampaign(id);
+
+        EmailCampaign completed = awaitStatus(id, EmailCampaign.Status.COMPLETED);
+        assertThat(server.getMessages()).isEqualTo(USERS);
+        assertThat(completed.getSentCount()).isEqualTo(USERS);
+    }
+
+    @Test
+    void secondNodeDoesNotRunCampaignLeasedByFirst() {
+        CampaignRunner nodeA = node(50);
+        CampaignRunner nodeB = node(50);
+        Long id = service(nodeA).createCampaign(request(), "admin@example.com").getId();
+
+        nodeB.resumeRunning();
+
+        assertThat(nodeB.isRunning(id)).isFalse();
+        awaitStatus(id, EmailCampaign.Status.COMPLETED);
+        assertThat(server.getMessages()).isEqualTo(USERS);
+    }
+
+    @Test
+    void nodeTakesOverCampaignOnlyAfterItsLeaseExpired() {
+        EmailCampaign alive = runningCampaign("live-node", LocalDateTime.now().plusMinutes(1));
+        EmailCampaign orphaned = runningCampaign("dead-node", LocalDateTime.now().minusSeconds(1));
+        CampaignRunner node = node(1_000);
+
+        node.resumeRunning();
+
+        assertThat(node.isRunning(alive.getId())).isFalse();
+        EmailCampaign completed = awaitStatus(orphaned.getId(), EmailCampaign.Status.COMPLETED);
+        // Tiếp tục từ checkpoint của node đã chết
+        assertThat(server.getMessages()).isEqualTo(USERS - 10);
+        assertThat(completed.getSentCount()).isEqualTo(USERS);
+        assertThat(reload(alive.getId()).getLeaseOwner()).isEqualTo("live-node");
+    }
+
+    private CampaignRunner node(double ratePerSecond) {
+        CampaignRunner node = new CampaignRunner(emailCampaignRepository, userRepository, templateRenderer,
+                mailSender, smtpTransportPool, meterRegistry, CHUNK_SIZE, 2, ratePerSecond, 60_000,
+                "noreply@example.com", "http://localhost:3000");
+        nodes.add(node);
+        return node;
+    }
+
+    private CampaignServiceImpl service(CampaignRunner node) {
+        return new CampaignServiceImpl(emailCampaignRepository, roleRepository, node);
+    }
+
+    private EmailCampaign runningCampaign(String leaseOwner, LocalDateTime leaseUntil) {
+        return emailCampaignRepository.save(EmailCampaign.builder()
+                .name("Khuyến mãi")
+                .subject("Giảm giá")
+                .content("<p>Giảm 50%</p>")
+                .lastUserId(ids.get(9))
+                .sentCount(10L)
+                .leaseOwner(leaseOwner)
+                .leaseUntil(leaseUntil)
+                .build());
+    }
+
+    private static CreateCampaignRequest request() {
+        CreateCampaignRequest request = new CreateCampaignRequest();
+        request.setName("Khuyến mãi");
+        request.setSubject("Giảm giá");
+        request.setContent("<p>Giảm 50%</p>");
+        return request;
+    }
+
+    private EmailCampaign reload(Long id) {
+        return emailCampaignRepository.findById(id).orElseThrow();
+    }
+
+    private EmailCampaign awaitStatus(Long id, EmailCampaign.Status status) {
+        await(() -> reload(id).getStatus() == status);
+        return reload(id);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
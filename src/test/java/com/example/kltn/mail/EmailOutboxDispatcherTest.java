@@ -0,0 +1,192 @@
+package com.example.kltn.mail;
+
+import com.example.kltn.entity.EmailOutbox;
+import com.example.kltn.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Dispatcher tự mở transaction cho từng bước (thuê lô, xác nhận kết quả) nên test không chạy
+ * trong transaction bao ngoài.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmailOutboxDispatcherTest {
+
+    private static final long BACKOFF_INITIAL_MS = 30_000;
+    private static final long LEASE_MS = 120_000;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final JavaMailSender mailSender = mock(JavaMailSender.class);
+    private final SmtpTransportPool smtpTransportPool = mock(SmtpTransportPool.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage(Session.getInstance(new Properties())));
+    }
+
+    @AfterEach
+    void tearDown() {
+        emailOutboxRepository.deleteAll();
+    }
+
+    @Test
+    void sendsDueEmailsAndSkipsRowsLeasedByAnotherNode() throws Exception {
+        EmailOutbox due = enqueue("due@example.com");
+        EmailOutbox leased = enqueue("leased@example.com");
+        // Node khác đang giữ lease còn hạn
+        lease(leased, LocalDateTime.now().plusMinutes(1));
+
+        dispatcher(3, 30_000).dispatch();
+
+        assertThat(reload(due).getStatus()).isEqualTo(EmailOutbox.Status.SENT);
+        assertThat(reload(due).getAttempts()).isEqualTo(1);
+        assertThat(reload(leased).getStatus()).isEqualTo(EmailOutbox.Status.PENDING);
+        verify(smtpTransportPool, times(1)).send(any(MimeMessage.class));
+    }
+
+    @Test
+    void rowWhoseLeaseExpiredIsSentAgain() throws Exception {
+        EmailOutbox orphaned = enqueue("orphan@example.com");
+        // Node thuê dòng này đã chết: lease hết hạn mà không có markSent/markFailed
+        lease(orphaned, LocalDateTime.now().minusSeconds(1));
+
+        dispatcher(3, 30_000).dispatch();
+
+        EmailOutbox reloaded = reload(orphaned);
+        assertThat(reloaded.getStatus()).isEqualTo(EmailOutbox.Status.SENT);
+        assertThat(reloaded.getAttempts()).isEqualTo(2);
+        verify(smtpTransportPool, times(1)).send(any(MimeMessage.class));
+    }
+
+    @Test
+    void rowsDeferredByTheDeadlineGetTheirAttemptBack() throws Exception {
+        EmailOutbox first = enqueue("first@example.com");
+        EmailOutbox second = enqueue("second@example.com");
+
+        // Hạn của lượt dispatch đã qua ngay từ đầu: cả lô được thuê rồi trả lại mà không gửi
+        dispatcher(3, 0).dispatch();
+
+        for (EmailOutbox email : List.of(first, second)) {
+            EmailOutbox reloaded = reload(email);
+            assertThat(reloaded.getStatus()).isEqualTo(EmailOutbox.Status.PENDING);
+            assertThat(reloaded.getAttempts()).isZero();
+            assertThat(reloaded.getNextAttemptAt()).isBefore(LocalDateTime.now().plusSeconds(1));
+        }
+        verify(smtpTransportPool, never()).send(any(MimeMessage.class));
+    }
+
+    @Test
+    void failuresBackOffExponentiallyThenGiveUp() throws Exception {
+        doThrow(new MessagingException("421 try again later")).when(smtpTransportPool).send(any(MimeMessage.class));
+        EmailOutbox email = enqueue("flaky@example.com");
+        EmailOutboxDispatcher dispatcher = dispatcher(3, 30_000);
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatch();
+        EmailOutbox afterFirst = reload(email);
+        assertThat(afterFirst.getStatus()).isEqualTo(EmailOutbox.Status.PENDING);
+        assertThat(afterFirst.getAttempts()).isEqualTo(1);
+        assertThat(afterFirst.getLastError()).isEqualTo("421 try again later");
+        assertBackoff(afterFirst, before, BACKOFF_INITIAL_MS);
+
+        makeDue(email);
+        before = LocalDateTime.now();
+        dispatcher.dispatch();
+        EmailOutbox afterSecond = reload(email);
+        assertThat(afterSecond.getAttempts()).isEqualTo(2);
+        assertBackoff(afterSecond, before, 2 * BACKOFF_INITIAL_MS);
+
+        makeDue(email);
+        dispatcher.dispatch();
+        EmailOutbox afterThird = reload(email);
+        assertThat(afterThird.getStatus()).isEqualTo(EmailOutbox.Status.FAILED);
+        assertThat(afterThird.getAttempts()).isEqualTo(3);
+        assertThat(meterRegistry.counter("mail.outbox.retries").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter("mail.outbox.failed").count()).isEqualTo(1);
+
+        // Dòng FAILED không bao giờ được thuê lại
+        makeDue(email);
+        dispatcher.dispatch();
+        verify(smtpTransportPool, times(3)).send(any(MimeMessage.class));
+    }
+
+    @Test
+    void pendingGaugeIsRefreshedOnItsOwnSchedule() {
+        enqueue("a@example.com");
+        enqueue("b@example.com");
+        EmailOutboxDispatcher dispatcher = dispatcher(3, 0);
+
+        dispatcher.dispatch();
+        assertThat(meterRegistry.get("mail.outbox.pending").gauge().value()).isZero();
+
+        dispatcher.refreshPendingGauge();
+        assertThat(meterRegistry.get("mail.outbox.pending").gauge().value()).isEqualTo(2);
+    }
+
+    private EmailOutboxDispatcher dispatcher(int maxAttempts, long maxDispatchMillis) {
+        return new EmailOutboxDispatcher(emailOutboxRepository, mailSender, smtpTransportPool, transactionManager,
+                meterRegistry, "noreply@example.com", 10, maxAttempts, BACKOFF_INITIAL_MS, 3_600_000,
+                LEASE_MS, maxDispatchMillis, 7);
+    }
+
+    private EmailOutbox enqueue(String recipient) {
+        return emailOutboxRepository.save(EmailOutbox.builder()
+                .recipient(recipient)
+                .subject("Xin chào")
+                .body("<p>Nội dung</p>")
+                .nextAttemptAt(LocalDateTime.now().minusSeconds(1))
+                .build());
+    }
+
+    private void lease(EmailOutbox email, LocalDateTime leaseUntil) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                emailOutboxRepository.lease(List.of(email.getId()), leaseUntil));
+    }
+
+    private void makeDue(EmailOutbox email) {
+        EmailOutbox reloaded = reload(email);
+        reloaded.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        emailOutboxRepository.save(reloaded);
+    }
+
+    private EmailOutbox reload(EmailOutbox email) {
+        return emailOutboxRepository.findById(email.getId()).orElseThrow();
+    }
+
+    private static void assertBackoff(EmailOutbox email, LocalDateTime before, long expectedMillis) {
+        assertThat(Duration.between(before, email.getNextAttemptAt()).toMillis())
+                .isBetween(expectedMillis - 1_000, expectedMillis + 5_000);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.kltn.mail;
+
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Kết quả của chế độ precompiled phải giống hệt Thymeleaf, kể cả khi giá trị có ký tự cần escape.
+ */
+class EmailTemplateRendererTest {
+
+    private final TemplateEngine templateEngine = templateEngine();
+    private final EmailTemplateRenderer thymeleaf = new EmailTemplateRenderer(templateEngine, false);
+    private final EmailTemplateRenderer precompiled = new EmailTemplateRenderer(templateEngine, true);
+
+    @Test
+    void precompiledOutputMatchesThymeleaf() {
+        assertSameOutput("email/verify-email", Map.of(
+                "verificationLink", "http://localhost:3000/verify-email?token=a&b=\"c\"",
+                "email", "a@b.com"));
+        assertSameOutput("email/reset-password", Map.of(
+                "resetLink", "http://localhost:3000/reset-password?token=<x>",
+                "email", "a@b.com"));
+        assertSameOutput("email/welcome", Map.of(
+                "fullName", "Trần <b>Tâm</b> & 'bạn'",
+                "email", "a@b.com",
+                "storeUrl", "http://localhost:3000"));
+    }
+
+    @Test
+    void reusesCompiledTemplateForNewValues() {
+        precompiled.render("email/welcome", Locale.ROOT, Map.of("fullName", "A", "email", "a@b.com", "storeUrl", "x"));
+
+        String html = precompiled.render("email/welcome", Locale.ROOT,
+                Map.of("fullName", "Nguyễn Văn B", "email", "b@b.com", "storeUrl", "y"));
+
+        assertThat(html).contains("Nguyễn Văn B").doesNotContain(">A<");
+    }
+
+    @Test
+    void precompiledCampaignKeepsFixedHtmlAndEscapesSlots() {
+        EmailTemplateRenderer.PrecompiledTemplate template = precompiled.precompile("email/campaign", Locale.ROOT,
+                Map.of("subject", "Sale", "content", "<p><b>Giảm 50%</b></p>", "storeUrl", "http://localhost:3000"),
+                Set.of("fullName", "email"));
+
+        String html = template.render(Map.of("fullName", "<Tâm>", "email", "a@b.com"));
+
+        assertThat(html).contains("<p><b>Giảm 50%</b></p>")
+                .contains("&lt;Tâm&gt;")
+                .contains("a@b.com");
+    }
+
+    private void assertSameOutput(String template, Map<String, String> variables) {
+        assertThat(precompiled.render(template, Locale.ROOT, variables))
+                .isEqualTo(thymeleaf.render(template, Locale.ROOT, variables));
+    }
+
+    static TemplateEngine templateEngine() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(false);
+
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        return engine;
+    }
+}
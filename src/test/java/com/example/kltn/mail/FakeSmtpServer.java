@@ -0,0 +1,136 @@
+package com.example.kltn.mail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server SMTP giả chạy trên localhost, chỉ đủ lệnh cho JavaMail (EHLO, MAIL, RCPT, DATA, NOOP, RSET, QUIT).
+ * {@code handshakeDelayMillis} mô phỏng thời gian TCP connect + STARTTLS + AUTH của server thật.
+ * {@code idleDropMillis > 0} mô phỏng server đóng im lặng phiên rảnh quá lâu (không gửi 421).
+ */
+public class FakeSmtpServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "fake-smtp");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long handshakeDelayMillis;
+    private final long idleDropMillis;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger messages = new AtomicInteger();
+    private final AtomicInteger noops = new AtomicInteger();
+    private final AtomicInteger drops = new AtomicInteger();
+
+    public FakeSmtpServer(long handshakeDelayMillis) throws IOException {
+        this(handshakeDelayMillis, 0);
+    }
+
+    public FakeSmtpServer(long handshakeDelayMillis, long idleDropMillis) throws IOException {
+        this.handshakeDelayMillis = handshakeDelayMillis;
+        this.idleDropMillis = idleDropMillis;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        executor.execute(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    public int getMessages() {
+        return messages.get();
+    }
+
+    public int getNoops() {
+        return noops.get();
+    }
+
+    public int getDrops() {
+        return drops.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.incrementAndGet();
+                executor.execute(() -> handle(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+            if (handshakeDelayMillis > 0) {
+                Thread.sleep(handshakeDelayMillis);
+            }
+            if (idleDropMillis > 0) {
+                socket.setSoTimeout((int) idleDropMillis);
+            }
+            reply(out, "220 localhost fake SMTP");
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 localhost");
+                    case "MAIL", "RCPT", "RSET" -> reply(out, "250 OK");
+                    case "NOOP" -> {
+                        noops.incrementAndGet();
+                        reply(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // bỏ qua nội dung
+                        }
+                        messages.incrementAndGet();
+                        reply(out, "250 OK queued");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            // phiên rảnh quá idleDropMillis: đóng socket mà không báo trước
+            drops.incrementAndGet();
+        } catch (IOException | InterruptedException e) {
+            // client đóng kết nối
+        }
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.kltn.mail;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SmtpTransportPoolTest {
+
+    private final FakeSmtpServer server = new FakeSmtpServer(0);
+    private final JavaMailSenderImpl mailSender = mailSender(server.getPort());
+
+    SmtpTransportPoolTest() throws Exception {
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    void sendsManyMessagesOverOneSession() throws Exception {
+        SmtpTransportPool pool = pool(100);
+
+        for (int i = 0; i < 20; i++) {
+            pool.send(message("user" + i + "@example.com"));
+        }
+        pool.close();
+
+        assertThat(server.getMessages()).isEqualTo(20);
+        assertThat(server.getConnections()).isEqualTo(1);
+    }
+
+    @Test
+    void rotatesSessionAfterMessageLimit() throws Exception {
+        SmtpTransportPool pool = pool(5);
+
+        for (int i = 0; i < 12; i++) {
+            pool.send(message("user" + i + "@example.com"));
+        }
+        pool.close();
+
+        assertThat(server.getMessages()).isEqualTo(12);
+        assertThat(server.getConnections()).isEqualTo(3);
+    }
+
+    @Test
+    void validatesIdleSessionWithNoopOnlyAfterValidateAfter() throws Exception {
+        SmtpTransportPool pool = new SmtpTransportPool(mailSender, new SimpleMeterRegistry(), 2, 100,
+                200, 120_000, 5_000);
+
+        pool.send(message("a@example.com"));
+        pool.send(message("b@example.com"));
+        assertThat(server.getNoops()).isZero();
+
+        Thread.sleep(300);
+        pool.send(message("c@example.com"));
+        pool.close();
+
+        assertThat(server.getNoops()).isEqualTo(1);
+        assertThat(server.getConnections()).isEqualTo(1);
+        assertThat(server.getMessages()).isEqualTo(3);
+    }
+
+    @Test
+    void sessionDroppedByServerIsCaughtByNoopAndReplaced() throws Exception {
+        try (FakeSmtpServer dropping = new FakeSmtpServer(0, 100)) {
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            SmtpTransportPool pool = new SmtpTransportPool(mailSender(dropping.getPort()), meterRegistry, 2, 100,
+                    50, 120_000, 5_000);
+
+            pool.send(message("a@example.com"));
+            awaitDrops(dropping, 1);
+            pool.send(message("b@example.com"));
+
+            // NOOP đi vào socket đã đóng nên server không đếm được; chỉ kiểm tra phiên được thay đúng một lần
+            assertThat(dropping.getConnections()).isEqualTo(2);
+            assertThat(dropping.getMessages()).isEqualTo(2);
+            assertThat(meterRegistry.get("mail.smtp.pool.connects").counter().count()).isEqualTo(2);
+            assertThat(meterRegistry.get("mail.smtp.pool.open").gauge().value()).isEqualTo(1);
+            pool.close();
+        }
+    }
+
+    @Test
+    void retriesExactlyOnceOnFreshSessionWhenReusedSessionWasDropped() throws Exception {
+        try (FakeSmtpServer dropping = new FakeSmtpServer(0, 100)) {
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            // validate-after lớn: phiên chết không bị NOOP phát hiện, lỗi chỉ lộ ra khi gửi
+            SmtpTransportPool pool = new SmtpTransportPool(mailSender(dropping.getPort()), meterRegistry, 2, 100,
+                    30_000, 120_000, 5_000);
+
+            pool.send(message("a@example.com"));
+            awaitDrops(dropping, 1);
+            pool.send(message("b@example.com"));
+
+            assertThat(dropping.getNoops()).isZero();
+            assertThat(dropping.getConnections()).isEqualTo(2);
+            assertThat(dropping.getMessages()).isEqualTo(2);
+            assertThat(meterRegistry.get("mail.smtp.pool.connects").counter().count()).isEqualTo(2);
+            assertThat(meterRegistry.get("mail.smtp.pool.open").gauge().value()).isEqualTo(1);
+            assertThat(meterRegistry.get("mail.smtp.pool.idle").gauge().value()).isEqualTo(1);
+            pool.close();
+            assertThat(meterRegistry.get("mail.smtp.pool.open").gauge().value()).isZero();
+        }
+    }
+
+    private SmtpTransportPool pool(int maxMessagesPerSession) {
+        return new SmtpTransportPool(mailSender, new SimpleMeterRegistry(), 2, maxMessagesPerSession,
+                30_000, 120_000, 5_000);
+    }
+
+    private static void awaitDrops(FakeSmtpServer server, int drops) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (server.getDrops() < drops) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private MimeMessage message(String to) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom("noreply@example.com");
+        helper.setTo(to);
+        helper.setSubject("Xin chào");
+        helper.setText("<p>Nội dung</p>", true);
+        return message;
+    }
+
+    static JavaMailSenderImpl mailSender(int port) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        return mailSender;
+    }
+}
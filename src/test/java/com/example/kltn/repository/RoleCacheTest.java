@@ -0,0 +1,116 @@
+package com.example.kltn.repository;
+
+import com.example.kltn.config.HibernateCacheConfig;
+import com.example.kltn.entity.Role;
+import com.example.kltn.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cache cấp 2 chỉ được ghi khi transaction commit, nên test không chạy trong transaction bao ngoài.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RoleCacheTest {
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        Role userRole = roleRepository.save(Role.builder().name("ROLE_USER").build());
+        Role staffRole = roleRepository.save(Role.builder().name("ROLE_STAFF").build());
+        userRepository.save(User.builder()
+                .email("alice@example.com")
+                .fullName("Alice")
+                .roles(new HashSet<>(Set.of(userRole, staffRole)))
+                .build());
+        // Kết quả query cache chỉ hợp lệ khi mới hơn lần ghi cuối vào bảng roles
+        Thread.sleep(10);
+
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+    @Test
+    void roleLookupByNameHitsDatabaseOnlyOnce() {
+        roleRepository.findByName("ROLE_USER").orElseThrow();
+        long statementsAfterFirst = statistics.getPrepareStatementCount();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(roleRepository.findByName("ROLE_USER")).isPresent();
+        }
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsAfterFirst);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(5);
+    }
+
+    @Test
+    void userRolesAreServedFromCollectionCache() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                assertThat(userRepository.findByEmail("alice@example.com").orElseThrow().getRoles()).hasSize(2));
+        long statementsAfterFirst = statistics.getPrepareStatementCount();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                assertThat(userRepository.findByEmail("alice@example.com").orElseThrow().getRoles())
+                        .extracting(Role::getName)
+                        .containsExactlyInAnyOrder("ROLE_USER", "ROLE_STAFF"));
+
+        // Lần hai chỉ còn câu truy vấn users, roles lấy từ cache
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsAfterFirst + 1);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+    }
+
+    @Test
+    void roleChangeThroughHibernateInvalidatesCachedLookup() throws InterruptedException {
+        roleRepository.findByName("ROLE_STAFF").orElseThrow();
+
+        Role staff = roleRepository.findByName("ROLE_STAFF").orElseThrow();
+        staff.setDescription("Nhân viên");
+        roleRepository.save(staff);
+        Thread.sleep(10);
+
+        assertThat(roleRepository.findByName("ROLE_STAFF").orElseThrow().getDescription()).isEqualTo("Nhân viên");
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.kltn.repository;
+
+import com.example.kltn.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+class UserRepositoryKeysetTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void walksEveryRowOnceIncludingRowsWithoutCreatedAt() {
+        Long newest = persist("a", NOW);
+        Long sameTime = persist("b", NOW);
+        Long older = persist("c", NOW.minusDays(1));
+        Long undatedFirst = persist("d", null);
+        Long undatedSecond = persist("e", null);
+        entityManager.flush();
+        entityManager.clear();
+        List<Long> expected = List.of(sameTime, newest, older, undatedSecond, undatedFirst);
+
+        PageRequest two = PageRequest.of(0, 2);
+        List<Long> walked = new ArrayList<>(userRepository.findFirstPageIds(two));
+        while (walked.size() < expected.size()) {
+            User last = userRepository.findById(walked.get(walked.size() - 1)).orElseThrow();
+            List<Long> next = last.getCreatedAt() == null
+                    ? userRepository.findUndatedPageIdsAfter(last.getId(), two)
+                    : userRepository.findPageIdsAfter(last.getCreatedAt(), last.getId(), two);
+            assertThat(next).isNotEmpty();
+            walked.addAll(next);
+        }
+
+        assertThat(walked).containsExactlyElementsOf(expected);
+    }
+
+    private Long persist(String name, LocalDateTime createdAt) {
+        return entityManager.persist(User.builder()
+                .email(name + "@example.com")
+                .fullName(name)
+                .createdAt(createdAt)
+                .build()).getId();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.kltn.repository;
+
+import com.example.kltn.entity.Role;
+import com.example.kltn.entity.User;
+import com.example.kltn.repository.projection.UserResponseView;
+import com.example.kltn.security.RoleMaskBackfill;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Đếm số câu SQL và entity được nạp bằng Hibernate Statistics: mỗi truy vấn projection
+ * phải là đúng một câu SQL và không nạp entity nào; roles đọc từ {@code role_mask}.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+class UserRepositoryProjectionTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private Role userRole;
+    private Role adminRole;
+    private User alice;
+
+    @BeforeEach
+    void setUp() {
+        userRole = entityManager.persist(Role.builder().name("USER").build());
+        adminRole = entityManager.persist(Role.builder().name("ADMIN").build());
+        alice = entityManager.persist(user("alice@example.com", Set.of(userRole, adminRole)));
+        entityManager.persist(user("bob@example.com", Set.of(userRole)));
+        entityManager.persist(user("carol@example.com", Set.of(adminRole)));
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findsUsersByRoleWithAllRolesInOneStatement() {
+        List<UserResponseView> users = userRepository.findResponseViewsByRole("USER");
+
+        assertThat(users).extracting(UserResponseView::getEmail)
+                .containsExactly("alice@example.com", "bob@example.com");
+        assertThat(users.get(0).getRoleMask()).isEqualTo(Role.maskOf(Set.of(userRole, adminRole)));
+        assertThat(users.get(1).getRoleMask()).isEqualTo(Role.maskOf(Set.of(userRole)));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void findsSingleUserInOneStatement() {
+        UserResponseView byId = userRepository.findResponseViewById(alice.getId()).orElseThrow();
+        UserResponseView byEmail = userRepository.findResponseViewByEmail("bob@example.com").orElseThrow();
+
+        assertThat(byId.getEmail()).isEqualTo("alice@example.com");
+        assertThat(byEmail.getRoleMask()).isEqualTo(Role.maskOf(Set.of(userRole)));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void entityReadDoesNotTouchUserRoles() {
+        User user = userRepository.findByEmail("alice@example.com").orElseThrow();
+
+        // toString/equals/hashCode của Lombok không được chạm vào roles LAZY
+        assertThat(user.toString()).contains("alice@example.com");
+        assertThat(user).isEqualTo(user);
+        user.hashCode();
+
+        assertThat(Hibernate.isInitialized(user.getRoles())).isFalse();
+        assertThat(user.getRoleMask()).isEqualTo(Role.maskOf(Set.of(userRole, adminRole)));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void syncRoleMasksRepairsRowsThatDriftedFromUserRoles() {
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE users SET role_mask = 0 WHERE email <> 'bob@example.com'")
+                .executeUpdate();
+
+        // Khoảng id 2 dòng: ba user được xử lý qua hai câu UPDATE
+        RoleMaskBackfill backfill = new RoleMaskBackfill(userRepository, transactionManager, 2, false);
+        assertThat(backfill.run()).isEqualTo(2);
+        entityManager.clear();
+
+        assertThat(userRepository.findResponseViewById(alice.getId()).orElseThrow().getRoleMask())
+                .isEqualTo(Role.maskOf(Set.of(userRole, adminRole)));
+        assertThat(backfill.run()).isZero();
+    }
+
+    @Test
+    void startupBackfillRunsByDefaultWhenColumnWasJustAdded() {
+        assertThat(userRepository.existsByRoleMaskAndRolesIsNotEmpty(0L)).isFalse();
+        // Như ddl-auto=update thêm cột role_mask vào bảng users đã có dữ liệu
+        entityManager.getEntityManager().createNativeQuery("UPDATE users SET role_mask = 0").executeUpdate();
+        assertThat(userRepository.existsByRoleMaskAndRolesIsNotEmpty(0L)).isTrue();
+
+        new RoleMaskBackfill(userRepository, transactionManager, 2, false).afterSingletonsInstantiated();
+        entityManager.clear();
+
+        assertThat(userRepository.existsByRoleMaskAndRolesIsNotEmpty(0L)).isFalse();
+        assertThat(userRepository.findResponseViewById(alice.getId()).orElseThrow().getRoleMask())
+                .isEqualTo(Role.maskOf(Set.of(userRole, adminRole)));
+    }
+
+    private static User user(String email, Set<Role> roles) {
+        return User.builder()
+                .email(email)
+                .fullName(email.substring(0, email.indexOf('@')))
+                .roles(new HashSet<>(roles))
+                .build();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.kltn.security;
+
+import com.example.kltn.controller.AdminController;
+import com.example.kltn.dto.response.ApiResponse;
+import com.example.kltn.dto.response.AuthActivityResponse;
+import com.example.kltn.service.DashboardService;
+import com.example.kltn.service.DashboardStreamService;
+import com.example.kltn.service.UserService;
+import com.example.kltn.util.RingCounter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ResponseEntity;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class AuthActivityRecorderTest {
+
+    private static final int SNAPSHOT_MAGIC = 0x4B415541;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void snapshotAndRestoreRoundTrip() {
+        Path file = dir.resolve("nested").resolve("auth-activity.bin");
+        AuthActivityRecorder recorder = new AuthActivityRecorder(60, 24, file.toString());
+        record(recorder, AuthEvent.LOGIN, 3);
+        record(recorder, AuthEvent.LOGIN_FAILED, 2);
+        record(recorder, AuthEvent.REGISTER, 1);
+        recorder.snapshot();
+
+        assertThat(file).exists();
+        assertThat(file.resolveSibling("auth-activity.bin.tmp")).doesNotExist();
+
+        AuthActivityRecorder restarted = new AuthActivityRecorder(60, 24, file.toString());
+        restarted.restore();
+
+        for (AuthActivityRecorder.Resolution resolution : AuthActivityRecorder.Resolution.values()) {
+            assertThat(total(restarted, resolution, AuthEvent.LOGIN)).isEqualTo(3);
+            assertThat(total(restarted, resolution, AuthEvent.LOGIN_FAILED)).isEqualTo(2);
+            assertThat(total(restarted, resolution, AuthEvent.REGISTER)).isEqualTo(1);
+            assertThat(total(restarted, resolution, AuthEvent.TOKEN_REFRESH)).isZero();
+        }
+    }
+
+    @Test
+    void missingSnapshotStartsEmpty() {
+        AuthActivityRecorder recorder = new AuthActivityRecorder(60, 24, dir.resolve("missing.bin").toString());
+
+        recorder.restore();
+
+        assertThat(total(recorder, AuthActivityRecorder.Resolution.MINUTE, AuthEvent.LOGIN)).isZero();
+    }
+
+    @Test
+    void eventRemovedFromEnumIsSkippedWithoutShiftingTheRest() throws IOException {
+        Path file = dir.resolve("auth-activity.bin");
+        long now = System.currentTimeMillis();
+        // Snapshot của phiên bản cũ: REMOVED_EVENT nằm giữa hai sự kiện còn tồn tại
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(3);
+            writeEvent(out, "LOGIN", 4, now);
+            writeEvent(out, "REMOVED_EVENT", 9, now);
+            writeEvent(out, "REGISTER", 2, now);
+        }
+
+        AuthActivityRecorder recorder = new AuthActivityRecorder(60, 24, file.toString());
+        recorder.restore();
+
+        assertThat(total(recorder, AuthActivityRecorder.Resolution.MINUTE, AuthEvent.LOGIN)).isEqualTo(4);
+        assertThat(total(recorder, AuthActivityRecorder.Resolution.MINUTE, AuthEvent.REGISTER)).isEqualTo(2);
+        assertThat(total(recorder, AuthActivityRecorder.Resolution.HOUR, AuthEvent.REGISTER)).isEqualTo(2);
+        assertThat(recorder.series(AuthActivityRecorder.Resolution.MINUTE, 60)).doesNotContainKey("REMOVED_EVENT");
+    }
+
+    @Test
+    void counterWhoseCapacityChangedIsDroppedButOthersAreRestored() {
+        Path file = dir.resolve("auth-activity.bin");
+        AuthActivityRecorder recorder = new AuthActivityRecorder(60, 24, file.toString());
+        record(recorder, AuthEvent.LOGIN, 5);
+        recorder.snapshot();
+
+        // Đổi app.auth-activity.minutes, giữ nguyên số giờ
+        AuthActivityRecorder resized = new AuthActivityRecorder(120, 24, file.toString());
+        resized.restore();
+
+        assertThat(total(resized, AuthActivityRecorder.Resolution.MINUTE, AuthEvent.LOGIN)).isZero();
+        assertThat(total(resized, AuthActivityRecorder.Resolution.HOUR, AuthEvent.LOGIN)).isEqualTo(5);
+    }
+
+    @Test
+    void snapshotWithUnknownFormatIsIgnored() throws IOException {
+        Path file = dir.resolve("auth-activity.bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION + 1);
+            out.writeInt(1);
+            writeEvent(out, "LOGIN", 4, System.currentTimeMillis());
+        }
+
+        AuthActivityRecorder recorder = new AuthActivityRecorder(60, 24, file.toString());
+        recorder.restore();
+
+        assertThat(total(recorder, AuthActivityRecorder.Resolution.MINUTE, AuthEvent.LOGIN)).isZero();
+    }
+
+    @Test
+    void adminEndpointReturnsAlignedSeriesForEveryEvent() {
+        AuthActivityRecorder recorder = new AuthActivityRecorder(60, 24, dir.resolve("auth-activity.bin").toString());
+        record(recorder, AuthEvent.LOGIN, 2);
+        AdminController controller = new AdminController(mock(UserService.class), mock(DashboardService.class),
+                mock(DashboardStreamService.class), recorder);
+
+        long before = System.currentTimeMillis();
+        ResponseEntity<ApiResponse<AuthActivityResponse>> response = controller.getAuthActivity("hour", 500);
+        AuthActivityResponse body = response.getBody().getData();
+
+        assertThat(body.getResolution()).isEqualTo("HOUR");
+        assertThat(body.getBucketSeconds()).isEqualTo(3_600);
+        assertThat(body.getSeries()).containsOnlyKeys(
+                Arrays.stream(AuthEvent.values()).map(Enum::name).toArray(String[]::new));
+        // Số điểm bị giới hạn bởi dung lượng ring, điểm cuối là giờ hiện tại
+        long[] logins = body.getSeries().get("LOGIN");
+        assertThat(logins).hasSize(24);
+        assertThat(logins[23]).isEqualTo(2);
+        long hour = TimeUnit.HOURS.toMillis(1);
+        assertThat(body.getFrom().toEpochMilli() % hour).isZero();
+        assertThat(body.getFrom().toEpochMilli()).isEqualTo((before / hour - 23) * hour);
+
+        ResponseEntity<ApiResponse<AuthActivityResponse>> minutes = controller.getAuthActivity("minute", 0);
+        assertThat(minutes.getBody().getData().getBucketSeconds()).isEqualTo(60);
+        assertThat(minutes.getBody().getData().getSeries().get("LOGIN")).hasSize(1);
+    }
+
+    private static void record(AuthActivityRecorder recorder, AuthEvent event, int times) {
+        for (int i = 0; i < times; i++) {
+            recorder.record(event);
+        }
+    }
+
+    private static long total(AuthActivityRecorder recorder, AuthActivityRecorder.Resolution resolution,
+                              AuthEvent event) {
+        // Tổng cả cửa sổ nên không phụ thuộc việc vừa sang phút/giờ mới
+        return Arrays.stream(recorder.series(resolution, Integer.MAX_VALUE).get(event.name())).sum();
+    }
+
+    private static void writeEvent(DataOutputStream out, String name, int count, long now) throws IOException {
+        out.writeUTF(name);
+        for (RingCounter counter : new RingCounter[]{
+                new RingCounter(TimeUnit.MINUTES.toMillis(1), 60), new RingCounter(TimeUnit.HOURS.toMillis(1), 24)}) {
+            for (int i = 0; i < count; i++) {
+                counter.increment(now);
+            }
+            counter.writeTo(out);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.kltn.security;
+
+import com.example.kltn.entity.User;
+import com.example.kltn.exception.ErrorResponse;
+import com.example.kltn.exception.GlobalExceptionHandler;
+import com.example.kltn.exception.TooManyRequestsException;
+import com.example.kltn.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SlowPasswordEncoder slowDelegate = new SlowPasswordEncoder();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        slowDelegate.release.countDown();
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsImmediatelyWhenQueueIsFull() throws Exception {
+        encoder = new BoundedPasswordEncoder(slowDelegate, 1, 1, 10_000, meterRegistry);
+        // Một việc đang chạy trên thread duy nhất, một việc nằm trong hàng đợi
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        assertThat(slowDelegate.started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        waitForQueueDepth(1);
+
+        long startedAt = System.nanoTime();
+        assertThatThrownBy(() -> encoder.encode("c")).isInstanceOf(TooManyRequestsException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)).isLessThan(1_000);
+
+        slowDelegate.release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("{slow}a");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("{slow}b");
+    }
+
+    @Test
+    void timeoutDuringLoginIsAnsweredWith429AndRetryAfter() {
+        encoder = new BoundedPasswordEncoder(slowDelegate, 1, 1, 50, meterRegistry);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(email -> principal("{slow}secret"));
+        provider.setPasswordEncoder(encoder);
+        ProviderManager authenticationManager = new ProviderManager(provider);
+
+        // Không bị bọc thành AuthenticationException: đi thẳng tới GlobalExceptionHandler
+        TooManyRequestsException rejected = catchThrowableOfType(
+                () -> authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken("alice@example.com", "secret")),
+                TooManyRequestsException.class);
+        assertThat(rejected).isNotNull();
+
+        ResponseEntity<ErrorResponse> response = new GlobalExceptionHandler(mock(AuthActivityRecorder.class))
+                .handleTooManyRequestsException(rejected, new ServletWebRequest(new MockHttpServletRequest()));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void loginWithOutdatedHashUpgradesItThroughUpdatePassword() {
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(5);
+        encoder = new BoundedPasswordEncoder(bcrypt, 1, 1, 10_000, meterRegistry);
+        String outdatedHash = new BCryptPasswordEncoder(4).encode("secret");
+
+        UserRepository userRepository = mock(UserRepository.class);
+        UserDetailsCache userDetailsCache = mock(UserDetailsCache.class);
+        CustomUserDetails cached = principal(outdatedHash);
+        when(userDetailsCache.get(eq("alice@example.com"), any(Function.class))).thenReturn(cached);
+        CustomUserDetailsService userDetailsService =
+                new CustomUserDetailsService(userRepository, userDetailsCache, mock(RoleAuthorities.class));
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setUserDetailsPasswordService(userDetailsService);
+        provider.setPasswordEncoder(encoder);
+
+        new ProviderManager(provider).authenticate(
+                new UsernamePasswordAuthenticationToken("alice@example.com", "secret"));
+
+        verify(userRepository).updatePasswordByEmail(eq("alice@example.com"), startsWith("$2a$05$"));
+        verify(userDetailsCache).invalidate("alice@example.com");
+    }
+
+    private void waitForQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (meterRegistry.get("auth.password.queue.depth").gauge().value() < depth) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static CustomUserDetails principal(String passwordHash) {
+        User user = User.builder().id(7L).email("alice@example.com").fullName("Alice").password(passwordHash)
+                .isActive(true).emailVerified(true).roleMask(1L).build();
+        return new CustomUserDetails(user, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    /**
+     * Delegate cố ý chậm: giữ thread của pool cho tới khi test nhả latch.
+     */
+    private static class SlowPasswordEncoder implements PasswordEncoder {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            block();
+            return "{slow}" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            block();
+            return encodedPassword.equals("{slow}" + rawPassword);
+        }
+
+        private void block() {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
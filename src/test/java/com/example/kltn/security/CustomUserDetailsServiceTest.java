@@ -0,0 +1,58 @@
+package com.example.kltn.security;
+
+import com.example.kltn.entity.User;
+import com.example.kltn.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CustomUserDetailsServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserDetailsCache userDetailsCache = mock(UserDetailsCache.class);
+    private final RoleAuthorities roleAuthorities = mock(RoleAuthorities.class);
+    private final CustomUserDetailsService service =
+            new CustomUserDetailsService(userRepository, userDetailsCache, roleAuthorities);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cachesSnapshotDetachedFromEntity() {
+        User user = User.builder().id(7L).email("alice@example.com").fullName("Alice").password("old-hash")
+                .emailVerified(true).roleMask(1L).tokenVersion(3).build();
+        when(userRepository.findByEmail("alice@example.com")).thenReturn(Optional.of(user));
+        when(roleAuthorities.authorities(1L)).thenReturn(List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        when(userDetailsCache.get(eq("alice@example.com"), any()))
+                .thenAnswer(invocation -> invocation.getArgument(1, Function.class)
+                        .apply("alice@example.com"));
+
+        CustomUserDetails cached = (CustomUserDetails) service.loadUserByUsername("alice@example.com");
+        user.setPassword("changed-on-entity");
+        user.setIsActive(false);
+
+        assertThat(cached.getPassword()).isEqualTo("old-hash");
+        assertThat(cached.isEnabled()).isTrue();
+        assertThat(cached.getTokenVersion()).isEqualTo(3);
+    }
+
+    @Test
+    void passwordUpgradeReturnsNewPrincipalWithoutMutatingCachedOne() {
+        User user = User.builder().id(7L).email("alice@example.com").fullName("Alice").password("old-hash")
+                .emailVerified(true).roleMask(1L).build();
+        CustomUserDetails cached = new CustomUserDetails(user, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        CustomUserDetails upgraded = (CustomUserDetails) service.updatePassword(cached, "new-hash");
+
+        assertThat(upgraded.getPassword()).isEqualTo("new-hash");
+        assertThat(upgraded.getAuthorities()).isSameAs(cached.getAuthorities());
+        assertThat(cached.getPassword()).isEqualTo("old-hash");
+        verify(userRepository).updatePasswordByEmail("alice@example.com", "new-hash");
+        verify(userDetailsCache).invalidate("alice@example.com");
+    }
+}
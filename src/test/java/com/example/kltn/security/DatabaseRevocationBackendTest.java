@@ -0,0 +1,102 @@
+package com.example.kltn.security;
+
+import com.example.kltn.entity.RevokedToken;
+import com.example.kltn.repository.RevokedTokenRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+class DatabaseRevocationBackendTest {
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void nodePicksUpRevocationsWrittenByAnotherNode() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        UUID before = UUID.randomUUID();
+        DatabaseRevocationBackend nodeB = new DatabaseRevocationBackend(revokedTokenRepository, 60_000);
+        nodeB.append(before, expiresAt);
+        nodeB.append(UUID.randomUUID(), System.currentTimeMillis() - 1);
+
+        Map<UUID, Long> seenByA = new LinkedHashMap<>();
+        DatabaseRevocationBackend nodeA = new DatabaseRevocationBackend(revokedTokenRepository, 60_000);
+        nodeA.replay(seenByA::put);
+        assertThat(seenByA.keySet()).containsExactly(before);
+
+        // Hơn một trang 500 dòng để poll phải đọc tiếp
+        for (int i = 0; i < 501; i++) {
+            nodeB.append(new UUID(1, i), expiresAt);
+        }
+        Map<UUID, Long> polled = new LinkedHashMap<>();
+        nodeA.poll(polled::put);
+
+        assertThat(polled).hasSize(501);
+        assertThat(polled).containsKeys(new UUID(1, 0), new UUID(1, 500));
+        Map<UUID, Long> nothingNew = new LinkedHashMap<>();
+        nodeA.poll(nothingNew::put);
+        assertThat(nothingNew).isEmpty();
+    }
+
+    @Test
+    void rowCommittedAfterAHigherIdIsStillDelivered() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        DatabaseRevocationBackend nodeB = new DatabaseRevocationBackend(revokedTokenRepository, 60_000);
+        DatabaseRevocationBackend nodeA = new DatabaseRevocationBackend(revokedTokenRepository, 60_000);
+        nodeA.replay((tokenId, expiry) -> { });
+
+        nodeB.append(new UUID(2, 1), expiresAt);
+        nodeB.append(new UUID(2, 2), expiresAt);
+        nodeB.append(new UUID(2, 3), expiresAt);
+        RevokedToken late = revokedTokenRepository.findAll().stream()
+                .filter(token -> token.getTokenId().equals(new UUID(2, 2).toString()))
+                .findFirst()
+                .orElseThrow();
+        // Giả lập transaction của id ở giữa chưa commit khi node A poll
+        revokedTokenRepository.delete(late);
+        revokedTokenRepository.flush();
+
+        Map<UUID, Long> firstPoll = new LinkedHashMap<>();
+        nodeA.poll(firstPoll::put);
+        assertThat(firstPoll.keySet()).containsExactly(new UUID(2, 1), new UUID(2, 3));
+
+        entityManager.createNativeQuery("INSERT INTO revoked_tokens (id, token_id, expires_at) VALUES (?, ?, ?)")
+                .setParameter(1, late.getId())
+                .setParameter(2, late.getTokenId())
+                .setParameter(3, expiresAt)
+                .executeUpdate();
+
+        Map<UUID, Long> secondPoll = new LinkedHashMap<>();
+        nodeA.poll(secondPoll::put);
+        assertThat(secondPoll.keySet()).containsExactly(new UUID(2, 2));
+        Map<UUID, Long> thirdPoll = new LinkedHashMap<>();
+        nodeA.poll(thirdPoll::put);
+        assertThat(thirdPoll).isEmpty();
+    }
+
+    @Test
+    void purgeRemovesOnlyExpiredRows() {
+        DatabaseRevocationBackend backend = new DatabaseRevocationBackend(revokedTokenRepository, 60_000);
+        backend.append(UUID.randomUUID(), System.currentTimeMillis() + 60_000);
+        backend.append(UUID.randomUUID(), System.currentTimeMillis() - 1);
+
+        backend.purgeExpired();
+
+        assertThat(revokedTokenRepository.count()).isEqualTo(1);
+    }
+}
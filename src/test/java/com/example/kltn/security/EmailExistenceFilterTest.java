@@ -0,0 +1,59 @@
+package com.example.kltn.security;
+
+import com.example.kltn.entity.User;
+import com.example.kltn.repository.UserRepository;
+import com.example.kltn.util.UniqueConstraints;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+class EmailExistenceFilterTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void answersMaybeUntilLoadedThenDefinitelyNewForUnknownEmails() {
+        userRepository.saveAndFlush(user("Alice@Example.com"));
+        EmailExistenceFilter filter = new EmailExistenceFilter(userRepository, transactionManager,
+                new SimpleMeterRegistry(), 1_000);
+
+        assertThat(filter.mightExist("new@example.com")).isTrue();
+
+        filter.load();
+
+        assertThat(filter.isReady()).isTrue();
+        assertThat(filter.mightExist(" alice@example.COM ")).isTrue();
+        assertThat(filter.mightExist("new@example.com")).isFalse();
+
+        filter.add("new@example.com");
+        assertThat(filter.mightExist("new@example.com")).isTrue();
+    }
+
+    @Test
+    void duplicateEmailIsReportedAsUniqueViolation() {
+        userRepository.saveAndFlush(user("bob@example.com"));
+
+        assertThatThrownBy(() -> userRepository.saveAndFlush(user("bob@example.com")))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .satisfies(e -> assertThat(UniqueConstraints.isViolation(e)).isTrue());
+    }
+
+    private static User user(String email) {
+        return User.builder().email(email).fullName("Test").build();
+    }
+}
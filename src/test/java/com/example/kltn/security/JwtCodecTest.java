@@ -0,0 +1,97 @@
+package com.example.kltn.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtCodecTest {
+
+    private static final String SECRET = "ZHVjdGFtLWtsdG4tc3ByaW5nYm9vdC1qd3Qtc2VjcmV0LTIwMjU=";
+
+    private final JwtCodec codec = new JwtCodec(SECRET);
+    private final Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+
+    @Test
+    void roundTripsClaims() {
+        String token = codec.encode("a@b.com", 7L, "Trần \"Tâm\"", List.of("ROLE_USER", "ROLE_ADMIN"), 3, 60_000);
+
+        VerifiedToken verified = codec.decode(token, UUID.randomUUID());
+
+        assertThat(verified.getSubject()).isEqualTo("a@b.com");
+        assertThat(verified.getUserId()).isEqualTo(7L);
+        assertThat(verified.getFullName()).isEqualTo("Trần \"Tâm\"");
+        assertThat(verified.getRoles()).containsExactly("ROLE_USER", "ROLE_ADMIN");
+        assertThat(verified.getVersion()).isEqualTo(3);
+        assertThat(verified.isExpired()).isFalse();
+    }
+
+    @Test
+    void refreshTokensAreMarkedAndCarryVersion() {
+        VerifiedToken refresh = codec.decode(codec.encodeRefresh("a@b.com", 7L, 2, 60_000), UUID.randomUUID());
+        VerifiedToken access = codec.decode(codec.encode("a@b.com", 7L, "Tâm", List.of("ROLE_USER"), 2, 60_000),
+                UUID.randomUUID());
+
+        assertThat(refresh.isRefresh()).isTrue();
+        assertThat(refresh.getUserId()).isEqualTo(7L);
+        assertThat(refresh.getVersion()).isEqualTo(2);
+        assertThat(refresh.getRoles()).isEmpty();
+        assertThat(access.isRefresh()).isFalse();
+    }
+
+    @Test
+    void tokensAreReadableByJjwt() {
+        String token = codec.encode("a@b.com", 7L, "Tâm", List.of("ROLE_USER"), 0, 60_000);
+
+        Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+
+        assertThat(claims.getSubject()).isEqualTo("a@b.com");
+        assertThat(claims.get("userId", Long.class)).isEqualTo(7L);
+        assertThat(claims.getId()).isNotNull();
+    }
+
+    @Test
+    void decodesTokensIssuedByJjwt() {
+        UUID jti = UUID.randomUUID();
+        String token = Jwts.builder()
+                .setSubject("a@b.com")
+                .setId(jti.toString())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+
+        VerifiedToken verified = codec.decode(token, UUID.randomUUID());
+
+        assertThat(verified.getSubject()).isEqualTo("a@b.com");
+        assertThat(verified.getTokenId()).isEqualTo(jti);
+    }
+
+    @Test
+    void rejectsTamperedSignature() {
+        String token = codec.encode("a@b.com", 7L, "Tâm", List.of("ROLE_USER"), 0, 60_000);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> codec.decode(tampered, UUID.randomUUID()))
+                .isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        String token = codec.encode("a@b.com", 7L, "Tâm", List.of("ROLE_USER"), 0, -5_000);
+
+        assertThatThrownBy(() -> codec.decode(token, UUID.randomUUID()))
+                .isInstanceOf(ExpiredJwtException.class);
+    }
+}
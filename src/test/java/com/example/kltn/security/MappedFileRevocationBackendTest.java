@@ -0,0 +1,117 @@
+package com.example.kltn.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedFileRevocationBackendTest {
+
+    private static final int RECORD_SIZE = 24;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysLiveRecordsAfterRestartAndCompactsExpiredOnes() throws IOException {
+        Path file = dir.resolve("revoked.log");
+        long now = System.currentTimeMillis();
+        UUID live = UUID.randomUUID();
+        MappedFileRevocationBackend backend = open(file, new LinkedHashMap<>());
+        backend.append(live, now + 60_000);
+        backend.append(UUID.randomUUID(), now - 1);
+        backend.append(UUID.randomUUID(), now - 1);
+        backend.close();
+
+        Map<UUID, Long> replayed = new LinkedHashMap<>();
+        MappedFileRevocationBackend restarted = open(file, replayed);
+        // Bản ghi hết hạn chiếm đa số: log được nén, bản ghi mới nối tiếp ngay sau bản còn hạn
+        UUID next = UUID.randomUUID();
+        restarted.append(next, now + 60_000);
+        restarted.close();
+
+        assertThat(replayed).containsExactly(Map.entry(live, now + 60_000));
+        Map<UUID, Long> afterCompaction = new LinkedHashMap<>();
+        open(file, afterCompaction).close();
+        assertThat(afterCompaction.keySet()).containsExactly(live, next);
+    }
+
+    @Test
+    void ignoresAndOverwritesPartialTailRecord() throws IOException {
+        Path file = dir.resolve("revoked.log");
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        UUID first = UUID.randomUUID();
+        MappedFileRevocationBackend backend = open(file, new LinkedHashMap<>());
+        backend.append(first, expiresAt);
+        backend.close();
+        // Tiến trình chết giữa lúc ghi bản ghi thứ hai: có jti nhưng chưa có thời điểm hết hạn
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer partial = ByteBuffer.allocate(16).putLong(42L).putLong(43L).flip();
+            channel.write(partial, RECORD_SIZE);
+        }
+
+        Map<UUID, Long> replayed = new LinkedHashMap<>();
+        MappedFileRevocationBackend restarted = open(file, replayed);
+        UUID second = UUID.randomUUID();
+        restarted.append(second, expiresAt);
+        restarted.close();
+
+        assertThat(replayed.keySet()).containsExactly(first);
+        Map<UUID, Long> again = new LinkedHashMap<>();
+        open(file, again).close();
+        assertThat(again.keySet()).containsExactly(first, second);
+    }
+
+    @Test
+    void ignoresRecordCutOffByTruncatedFile() throws IOException {
+        Path file = dir.resolve("revoked.log");
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        UUID first = UUID.randomUUID();
+        MappedFileRevocationBackend backend = open(file, new LinkedHashMap<>());
+        backend.append(first, expiresAt);
+        backend.append(UUID.randomUUID(), expiresAt);
+        backend.close();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(RECORD_SIZE + 10);
+        }
+
+        Map<UUID, Long> replayed = new LinkedHashMap<>();
+        open(file, replayed).close();
+
+        assertThat(replayed.keySet()).containsExactly(first);
+    }
+
+    @Test
+    void remapsWhenLogOutgrowsInitialMapping() throws IOException {
+        Path file = dir.resolve("revoked.log");
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        int count = 65_536 + 100;
+        MappedFileRevocationBackend backend = open(file, new LinkedHashMap<>());
+        for (int i = 0; i < count; i++) {
+            backend.append(new UUID(0, i), expiresAt);
+        }
+        backend.flush();
+        backend.close();
+
+        Map<UUID, Long> replayed = new LinkedHashMap<>();
+        open(file, replayed).close();
+
+        assertThat(replayed).hasSize(count);
+        assertThat(replayed).containsKey(new UUID(0, count - 1));
+    }
+
+    private static MappedFileRevocationBackend open(Path file, Map<UUID, Long> replayed) {
+        MappedFileRevocationBackend backend = new MappedFileRevocationBackend(file);
+        backend.replay(replayed::put);
+        return backend;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.kltn.security;
+
+import com.example.kltn.entity.Role;
+import com.example.kltn.repository.RoleRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class RoleAuthoritiesTest {
+
+    private final RoleRepository roleRepository = mock(RoleRepository.class);
+    private final RoleAuthorities roleAuthorities = new RoleAuthorities(roleRepository);
+
+    @Test
+    void sameMaskReturnsSharedAuthorityList() {
+        when(roleRepository.findAll()).thenReturn(List.of(role(1L, "ROLE_USER"), role(2L, "ROLE_ADMIN")));
+
+        List<GrantedAuthority> first = roleAuthorities.authorities(3L);
+        List<GrantedAuthority> second = roleAuthorities.authorities(3L);
+
+        assertThat(first).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_USER", "ROLE_ADMIN");
+        assertThat(second).isSameAs(first);
+        assertThat(roleAuthorities.names(2L)).containsExactly("ROLE_ADMIN");
+        assertThat(roleAuthorities.names(null)).isEmpty();
+        verify(roleRepository, times(1)).findAll();
+    }
+
+    @Test
+    void reloadsOnceForRoleAddedAfterStartup() {
+        when(roleRepository.findAll())
+                .thenReturn(List.of(role(1L, "ROLE_USER")))
+                .thenReturn(List.of(role(1L, "ROLE_USER"), role(3L, "ROLE_STAFF")));
+
+        assertThat(roleAuthorities.names(1L)).containsExactly("ROLE_USER");
+        assertThat(roleAuthorities.names(Role.bitOf(3L) | 1L)).containsExactly("ROLE_USER", "ROLE_STAFF");
+        // Bit 2 (role id 2) không tồn tại: chỉ nạp lại một lần rồi bỏ qua
+        assertThat(roleAuthorities.names(2L)).isEmpty();
+        assertThat(roleAuthorities.names(2L)).isEmpty();
+        verify(roleRepository, times(3)).findAll();
+    }
+
+    private static Role role(Long id, String name) {
+        return Role.builder().id(id).name(name).build();
+    }
+}
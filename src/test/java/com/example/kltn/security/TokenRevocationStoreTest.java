@@ -0,0 +1,124 @@
+package com.example.kltn.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationStoreTest {
+
+    private static final long SECOND = 1000;
+    // 4096 ô, mỗi ô một giây: vòng quay của wheel dài 4096 giây
+    private static final long WHEEL_SPAN = 4096 * SECOND;
+
+    private final InMemoryRevocationBackend backend = new InMemoryRevocationBackend();
+    private TokenRevocationStore store;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        store = newStore(backend);
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    void entryStopsMatchingExactlyAtExpiry() {
+        UUID tokenId = UUID.randomUUID();
+        long expiresAt = now + 10 * SECOND;
+
+        store.revoke(tokenId, expiresAt, now);
+
+        assertThat(store.isRevoked(tokenId, expiresAt - 1)).isTrue();
+        assertThat(store.isRevoked(tokenId, expiresAt)).isFalse();
+        // Token đã hết hạn không được ghi vào store lẫn backend
+        UUID expired = UUID.randomUUID();
+        store.revoke(expired, now, now);
+        assertThat(store.isRevoked(expired, now - 1)).isFalse();
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    void sweepKeepsEntriesThatOutliveOneWheelRotation() {
+        UUID shortLived = UUID.randomUUID();
+        UUID longLived = UUID.randomUUID();
+        store.revoke(shortLived, now + 5 * SECOND, now);
+        // Cùng ô với shortLived nhưng hết hạn sau hơn một vòng quay
+        store.revoke(longLived, now + 5 * SECOND + WHEEL_SPAN, now);
+
+        store.sweep(now + 10 * SECOND);
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.isRevoked(longLived, now + 10 * SECOND)).isTrue();
+
+        // Quay hết một vòng nữa: ô được quét lại, entry còn hạn vẫn được giữ
+        store.sweep(now + WHEEL_SPAN);
+        assertThat(store.isRevoked(longLived, now + WHEEL_SPAN)).isTrue();
+
+        store.sweep(now + 10 * SECOND + WHEEL_SPAN);
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void noFalseNegativesWhileFilterIsRebuiltUnderConcurrentRevokes() throws Exception {
+        for (int i = 0; i < 25_000; i++) {
+            store.revoke(UUID.randomUUID(), now + 5 * SECOND, now);
+        }
+        List<UUID> survivors = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            UUID tokenId = UUID.randomUUID();
+            survivors.add(tokenId);
+            store.revoke(tokenId, now + 3_600 * SECOND, now);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<List<UUID>>> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            writers.add(executor.submit(() -> {
+                List<UUID> revoked = new ArrayList<>();
+                for (int i = 0; i < 5_000; i++) {
+                    UUID tokenId = UUID.randomUUID();
+                    store.revoke(tokenId, now + 3_600 * SECOND, now);
+                    revoked.add(tokenId);
+                }
+                return revoked;
+            }));
+        }
+        // Số entry hết hạn vượt số còn lại: sweep dựng lại Bloom filter trong lúc các luồng khác đang thu hồi
+        store.sweep(now + 10 * SECOND);
+        assertThat(ReflectionTestUtils.getField(store, "removedSinceRebuild")).isEqualTo(0L);
+        for (Future<List<UUID>> writer : writers) {
+            survivors.addAll(writer.get());
+        }
+        executor.shutdown();
+
+        assertThat(store.size()).isEqualTo(survivors.size());
+        assertThat(survivors).allMatch(tokenId -> store.isRevoked(tokenId, now + 10 * SECOND));
+    }
+
+    @Test
+    void replaysBackendOnStartup() {
+        UUID tokenId = UUID.randomUUID();
+        store.revoke(tokenId, now + 60 * SECOND, now);
+
+        TokenRevocationStore restarted = newStore(backend);
+
+        assertThat(restarted.isRevoked(tokenId)).isTrue();
+    }
+
+    private static TokenRevocationStore newStore(RevocationBackend backend) {
+        TokenRevocationStore store = new TokenRevocationStore(new SimpleMeterRegistry(), backend);
+        ReflectionTestUtils.setField(store, "maxTokenLifetime", 4095 * SECOND);
+        ReflectionTestUtils.setField(store, "expectedEntries", 10_000L);
+        store.init();
+        return store;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.kltn.security;
+
+import com.example.kltn.entity.User;
+import com.example.kltn.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Version được tăng trong transaction riêng nên test không chạy trong transaction bao ngoài.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserVersionRegistryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final LocalUserCacheInvalidationBus bus = new LocalUserCacheInvalidationBus();
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = userRepository.save(User.builder().email("alice@example.com").fullName("Alice").build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void bumpSurvivesRestartAndReachesOtherNodes() {
+        UserVersionRegistry nodeA = registry(bus);
+        UserVersionRegistry nodeB = registry(bus);
+        assertThat(nodeA.isCurrent(userId, 0)).isTrue();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> nodeB.bump(userId));
+
+        // Node A đã giữ version 0 trong cache nhưng nhận tín hiệu qua bus
+        assertThat(nodeA.isCurrent(userId, 0)).isFalse();
+        // Node khởi động lại (không chung bus, cache rỗng) đọc version từ DB
+        UserVersionRegistry restarted = registry(new LocalUserCacheInvalidationBus());
+        assertThat(restarted.currentVersion(userId)).isEqualTo(1);
+        assertThat(restarted.isCurrent(userId, 0)).isFalse();
+        assertThat(restarted.isCurrent(userId, 1)).isTrue();
+    }
+
+    @Test
+    void entitySaveDoesNotOverwriteBumpedVersion() {
+        UserVersionRegistry registry = registry(bus);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User user = userRepository.findById(userId).orElseThrow();
+            registry.bump(userId);
+            user.setFullName("Alice Nguyễn");
+            userRepository.save(user);
+        });
+
+        assertThat(userRepository.findTokenVersionById(userId)).contains(1);
+        assertThat(userRepository.findById(userId).orElseThrow().getFullName()).isEqualTo("Alice Nguyễn");
+    }
+
+    @Test
+    void tokensOfDeletedUserAreRejected() {
+        UserVersionRegistry registry = registry(bus);
+        userRepository.deleteById(userId);
+
+        assertThat(registry.isCurrent(userId, 0)).isFalse();
+    }
+
+    private UserVersionRegistry registry(UserCacheInvalidationBus invalidationBus) {
+        return new UserVersionRegistry(userRepository, invalidationBus, 1_000, Duration.ofMinutes(5));
+    }
+}
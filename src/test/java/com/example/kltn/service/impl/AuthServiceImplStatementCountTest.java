@@ -0,0 +1,163 @@
+package com.example.kltn.service.impl;
+
+import com.example.kltn.dto.request.LoginRequest;
+import com.example.kltn.dto.request.RegisterRequest;
+import com.example.kltn.entity.Role;
+import com.example.kltn.entity.User;
+import com.example.kltn.repository.PasswordResetTokenRepository;
+import com.example.kltn.repository.RoleRepository;
+import com.example.kltn.repository.UserRepository;
+import com.example.kltn.security.AuthActivityRecorder;
+import com.example.kltn.security.CustomUserDetailsService;
+import com.example.kltn.security.EmailExistenceFilter;
+import com.example.kltn.security.RoleAuthorities;
+import com.example.kltn.security.UserDetailsCache;
+import com.example.kltn.security.UserVersionRegistry;
+import com.example.kltn.security.VerifiedToken;
+import com.example.kltn.service.DashboardService;
+import com.example.kltn.service.EmailService;
+import com.example.kltn.service.JwtService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Đếm câu SQL thật mà Hibernate chuẩn bị cho mỗi luồng xác thực, với repository và
+ * {@link DaoAuthenticationProvider} thật; chỉ JWT, email, cache user details và dashboard được giả lập.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+class AuthServiceImplStatementCountTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PasswordResetTokenRepository passwordResetTokenRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+    private final JwtService jwtService = mock(JwtService.class);
+    private final UserDetailsCache userDetailsCache = mock(UserDetailsCache.class);
+    private final EmailExistenceFilter emailExistenceFilter = mock(EmailExistenceFilter.class);
+    private final UserVersionRegistry userVersionRegistry = mock(UserVersionRegistry.class);
+    private AuthServiceImpl authService;
+    private User user;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        Role userRole = roleRepository.save(Role.builder().name("ROLE_USER").build());
+        user = userRepository.save(User.builder()
+                .email("alice@example.com")
+                .password(passwordEncoder.encode("secret1"))
+                .fullName("Alice")
+                .isActive(true)
+                .emailVerified(true)
+                .roleMask(Role.bitOf(userRole.getId()))
+                .roles(new HashSet<>(Set.of(userRole)))
+                .build());
+
+        RoleAuthorities roleAuthorities = new RoleAuthorities(roleRepository);
+        roleAuthorities.names(user.getRoleMask());
+        when(userDetailsCache.get(anyString(), any())).thenAnswer(invocation ->
+                invocation.getArgument(1, Function.class).apply(invocation.getArgument(0)));
+        when(emailExistenceFilter.mightExist(anyString())).thenReturn(true);
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(new CustomUserDetailsService(userRepository, userDetailsCache, roleAuthorities));
+        provider.setPasswordEncoder(passwordEncoder);
+
+        authService = new AuthServiceImpl(userRepository, roleRepository, passwordResetTokenRepository,
+                passwordEncoder, jwtService, new ProviderManager(provider), mock(EmailService.class),
+                userVersionRegistry, userDetailsCache, mock(DashboardService.class),
+                mock(AuthActivityRecorder.class), mock(ApplicationEventPublisher.class), emailExistenceFilter,
+                roleAuthorities);
+        ReflectionTestUtils.setField(authService, "verificationTokenExpiryMinutes", 60);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void loginRunsOneSelect() {
+        LoginRequest request = new LoginRequest();
+        request.setEmail("alice@example.com");
+        request.setPassword("secret1");
+        Statistics statistics = statistics();
+
+        assertThat(authService.login(request).getRoles()).containsExactly("ROLE_USER");
+
+        // Chỉ đọc users theo email; roles lấy từ role_mask, không join user_roles
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void registerRunsFourStatements() {
+        RegisterRequest request = new RegisterRequest();
+        request.setEmail("new@example.com");
+        request.setPassword("secret1");
+        request.setFullName("Người Mới");
+        Statistics statistics = statistics();
+
+        authService.register(request);
+
+        // Kiểm tra email, đọc ROLE_USER, INSERT users, INSERT user_roles
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+    }
+
+    @Test
+    void refreshRunsOneSelect() {
+        VerifiedToken refresh = VerifiedToken.builder()
+                .subject("alice@example.com")
+                .userId(user.getId())
+                .refresh(true)
+                .build();
+        when(jwtService.verifyToken("refresh")).thenReturn(refresh);
+        when(jwtService.isTokenValid(refresh, "alice@example.com")).thenReturn(true);
+        when(userVersionRegistry.isCurrent(user.getId(), 0)).thenReturn(true);
+        Statistics statistics = statistics();
+
+        assertThat(authService.refreshToken("refresh").getRoles()).containsExactly("ROLE_USER");
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
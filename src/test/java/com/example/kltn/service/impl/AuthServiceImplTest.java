@@ -0,0 +1,192 @@
+package com.example.kltn.service.impl;
+
+import com.example.kltn.dto.request.LoginRequest;
+import com.example.kltn.dto.request.RegisterRequest;
+import com.example.kltn.entity.Role;
+import com.example.kltn.entity.User;
+import com.example.kltn.repository.RoleRepository;
+import com.example.kltn.repository.UserRepository;
+import com.example.kltn.security.AuthActivityRecorder;
+import com.example.kltn.security.CustomUserDetails;
+import com.example.kltn.security.EmailExistenceFilter;
+import com.example.kltn.security.RoleAuthorities;
+import com.example.kltn.security.UserVersionRegistry;
+import com.example.kltn.security.VerifiedToken;
+import com.example.kltn.service.DashboardService;
+import com.example.kltn.service.JwtService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Mỗi luồng xác thực chỉ được đọc user từ DB đúng một lần (hoặc không lần nào).
+ */
+@ExtendWith(MockitoExtension.class)
+class AuthServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private AuthenticationManager authenticationManager;
+
+    @Mock
+    private DashboardService dashboardService;
+
+    @Mock
+    private AuthActivityRecorder authActivityRecorder;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EmailExistenceFilter emailExistenceFilter;
+
+    @Mock
+    private RoleAuthorities roleAuthorities;
+
+    @Mock
+    private UserVersionRegistry userVersionRegistry;
+
+    @InjectMocks
+    private AuthServiceImpl authService;
+
+    private final Role userRole = Role.builder().id(1L).name("ROLE_USER").build();
+
+    @Test
+    void loginReusesUserLoadedDuringAuthentication() {
+        User user = user();
+        CustomUserDetails principal = new CustomUserDetails(user, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        when(authenticationManager.authenticate(any()))
+                .thenReturn(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        LoginRequest request = new LoginRequest();
+        request.setEmail(user.getEmail());
+        request.setPassword("secret1");
+
+        assertThat(authService.login(request).getEmail()).isEqualTo(user.getEmail());
+
+        verifyNoInteractions(userRepository);
+        verify(jwtService).generateToken(principal);
+        verify(jwtService, never()).generateToken(anyString());
+    }
+
+    @Test
+    void registerIssuesTokensFromSavedUser() {
+        when(emailExistenceFilter.mightExist("new@example.com")).thenReturn(true);
+        when(userRepository.existsByEmail("new@example.com")).thenReturn(false);
+        when(roleRepository.findByName("ROLE_USER")).thenReturn(Optional.of(userRole));
+
+        RegisterRequest request = new RegisterRequest();
+        request.setEmail("new@example.com");
+        request.setPassword("secret1");
+        request.setFullName("Người Mới");
+
+        authService.register(request);
+
+        verify(userRepository).existsByEmail("new@example.com");
+        verify(userRepository).saveAndFlush(any(User.class));
+        verifyNoMoreInteractions(userRepository);
+        verify(jwtService, never()).generateToken(anyString());
+    }
+
+    @Test
+    void refreshTokenReadsUserOnce() {
+        User user = user();
+        VerifiedToken refresh = refreshToken(user, true);
+        when(jwtService.verifyToken("refresh")).thenReturn(refresh);
+        when(jwtService.isTokenValid(refresh, user.getEmail())).thenReturn(true);
+        when(userVersionRegistry.isCurrent(user.getId(), 0)).thenReturn(true);
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+
+        authService.refreshToken("refresh");
+
+        verify(userRepository, times(1)).findByEmail(user.getEmail());
+        verifyNoMoreInteractions(userRepository);
+        verify(jwtService, never()).generateToken(anyString());
+    }
+
+    @Test
+    void refreshRejectsAccessToken() {
+        User user = user();
+        when(jwtService.verifyToken("access")).thenReturn(refreshToken(user, false));
+
+        assertThatThrownBy(() -> authService.refreshToken("access"))
+                .hasMessage("Refresh token không hợp lệ!");
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void refreshRejectsTokenIssuedBeforeVersionBump() {
+        User user = user();
+        VerifiedToken refresh = refreshToken(user, true);
+        when(jwtService.verifyToken("refresh")).thenReturn(refresh);
+        when(jwtService.isTokenValid(refresh, user.getEmail())).thenReturn(true);
+        when(userVersionRegistry.isCurrent(user.getId(), 0)).thenReturn(false);
+
+        assertThatThrownBy(() -> authService.refreshToken("refresh"))
+                .hasMessage("Refresh token đã bị thu hồi!");
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void refreshRejectsLockedUser() {
+        User user = user();
+        user.setIsActive(false);
+        VerifiedToken refresh = refreshToken(user, true);
+        when(jwtService.verifyToken("refresh")).thenReturn(refresh);
+        when(jwtService.isTokenValid(refresh, user.getEmail())).thenReturn(true);
+        when(userVersionRegistry.isCurrent(user.getId(), 0)).thenReturn(true);
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+
+        assertThatThrownBy(() -> authService.refreshToken("refresh"))
+                .hasMessage("Tài khoản đã bị khóa!");
+        verify(jwtService, never()).generateToken(any(User.class));
+    }
+
+    private VerifiedToken refreshToken(User user, boolean refresh) {
+        return VerifiedToken.builder()
+                .subject(user.getEmail())
+                .userId(user.getId())
+                .refresh(refresh)
+                .build();
+    }
+
+    private User user() {
+        return User.builder()
+                .id(7L)
+                .email("user@example.com")
+                .fullName("Người Dùng")
+                .isActive(true)
+                .emailVerified(true)
+                .roles(new HashSet<>(Set.of(userRole)))
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.kltn.service.impl;
+
+import com.example.kltn.entity.Role;
+import com.example.kltn.entity.User;
+import com.example.kltn.repository.RoleRepository;
+import com.example.kltn.repository.UserRepository;
+import com.example.kltn.security.EmailExistenceFilter;
+import com.example.kltn.security.UserDetailsCache;
+import com.example.kltn.service.DashboardService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomOAuth2UserServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @Mock
+    private UserDetailsCache userDetailsCache;
+
+    @Mock
+    private DashboardService dashboardService;
+
+    @Mock
+    private EmailExistenceFilter emailExistenceFilter;
+
+    @InjectMocks
+    private CustomOAuth2UserServiceImpl oAuth2UserService;
+
+    @Test
+    void conflictOnCreateLinksExistingLocalAccount() {
+        User local = User.builder().id(7L).email("alice@example.com").provider(User.AuthProvider.LOCAL).build();
+        // Filter chưa biết email (node khác vừa tạo): đi thẳng vào nhánh tạo mới rồi đụng unique constraint
+        when(emailExistenceFilter.mightExist("alice@example.com")).thenReturn(false);
+        when(roleRepository.findByName("ROLE_USER")).thenReturn(Optional.of(Role.builder().id(1L).name("ROLE_USER").build()));
+        when(userRepository.save(any(User.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate", new SQLException("Duplicate entry", "23000", 1062)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.findByEmail("alice@example.com")).thenReturn(Optional.of(local));
+
+        User user = oAuth2UserService.resolveUser("alice@example.com", "Alice", "https://img/alice.png",
+                "google", "google-123");
+
+        assertThat(user).isSameAs(local);
+        assertThat(user.getProvider()).isEqualTo(User.AuthProvider.GOOGLE);
+        assertThat(user.getProviderId()).isEqualTo("google-123");
+        assertThat(user.getAvatar()).isEqualTo("https://img/alice.png");
+        verify(userRepository).save(local);
+        verify(userDetailsCache).invalidate("alice@example.com");
+        verify(emailExistenceFilter).add("alice@example.com");
+        verifyNoInteractions(dashboardService);
+    }
+}
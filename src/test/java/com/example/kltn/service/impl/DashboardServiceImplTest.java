@@ -0,0 +1,148 @@
+package com.example.kltn.service.impl;
+
+import com.example.kltn.dto.response.DashboardResponse;
+import com.example.kltn.entity.User;
+import com.example.kltn.repository.UserRepository;
+import com.example.kltn.repository.projection.UserCountView;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private DashboardServiceImpl dashboardService;
+
+    @Test
+    void countsIncrementallyWithoutQueryingDatabase() {
+        dashboardService.onUserCreated(user(User.AuthProvider.LOCAL, false));
+        dashboardService.onUserCreated(user(User.AuthProvider.GOOGLE, true));
+        dashboardService.onActiveChanged(false);
+        dashboardService.onEmailVerified();
+
+        DashboardResponse dashboard = dashboardService.getDashboard();
+
+        assertThat(dashboard.getTotalUsers()).isEqualTo(2);
+        assertThat(dashboard.getNewUsersToday()).isEqualTo(2);
+        assertThat(dashboard.getActiveUsers()).isEqualTo(1);
+        assertThat(dashboard.getInactiveUsers()).isEqualTo(1);
+        assertThat(dashboard.getVerifiedUsers()).isEqualTo(2);
+        assertThat(dashboard.getUsersByProvider()).containsEntry("LOCAL", 1L).containsEntry("GOOGLE", 1L);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void reconcileCorrectsDrift() {
+        dashboardService.onUserCreated(user(User.AuthProvider.LOCAL, false));
+        when(userRepository.countByProviderAndStatus()).thenReturn(List.of(
+                row(User.AuthProvider.LOCAL, true, true, 7),
+                row(User.AuthProvider.LOCAL, false, false, 2),
+                row(User.AuthProvider.FACEBOOK, true, true, 1)));
+        when(userRepository.countByCreatedAtGreaterThanEqual(any())).thenReturn(3L);
+
+        dashboardService.reconcile();
+        DashboardResponse dashboard = dashboardService.getDashboard();
+
+        assertThat(dashboard.getTotalUsers()).isEqualTo(10);
+        assertThat(dashboard.getActiveUsers()).isEqualTo(8);
+        assertThat(dashboard.getUnverifiedUsers()).isEqualTo(2);
+        assertThat(dashboard.getNewUsersToday()).isEqualTo(3);
+        assertThat(dashboard.getUsersByProvider())
+                .containsEntry("LOCAL", 9L).containsEntry("FACEBOOK", 1L).containsEntry("GOOGLE", 0L);
+        assertThat(dashboard.getReconciledAt()).isNotNull();
+    }
+
+    @Test
+    void commitLandingDuringReconcileIsCountedOnce() {
+        when(userRepository.countByProviderAndStatus()).thenAnswer(invocation -> {
+            // Commit thấy được trong DB ngay sau khi đã đọc bộ đếm, và được cộng trong lúc truy vấn
+            inTransaction(() -> dashboardService.onUserCreated(user(User.AuthProvider.LOCAL, true))).run();
+            return List.of(row(User.AuthProvider.LOCAL, true, true, 1));
+        }).thenReturn(List.of(row(User.AuthProvider.LOCAL, true, true, 1)));
+        when(userRepository.countByCreatedAtGreaterThanEqual(any())).thenReturn(1L);
+
+        dashboardService.reconcile();
+
+        assertThat(dashboardService.getDashboard().getTotalUsers()).isEqualTo(1);
+        assertThat(dashboardService.getDashboard().getNewUsersToday()).isEqualTo(1);
+    }
+
+    @Test
+    void commitVisibleButNotYetCountedIsNotReconciledTwice() {
+        Runnable[] finishCommit = new Runnable[1];
+        when(userRepository.countByProviderAndStatus()).thenAnswer(invocation -> {
+            // Commit đã thấy trong DB nhưng afterCommit chỉ chạy sau khi đối soát kết thúc
+            finishCommit[0] = inTransaction(() -> dashboardService.onUserCreated(user(User.AuthProvider.LOCAL, true)));
+            return List.of(row(User.AuthProvider.LOCAL, true, true, 1));
+        });
+        when(userRepository.countByCreatedAtGreaterThanEqual(any())).thenReturn(1L);
+
+        dashboardService.reconcile();
+        finishCommit[0].run();
+
+        assertThat(dashboardService.getDashboard().getTotalUsers()).isEqualTo(1);
+        assertThat(dashboardService.getDashboard().getActiveUsers()).isEqualTo(1);
+    }
+
+    /**
+     * Chạy {@code work} trong một transaction giả lập tới bước beforeCommit; trả về phần còn lại của commit.
+     */
+    private static Runnable inTransaction(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> synchronizations;
+        try {
+            work.run();
+            synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        return () -> synchronizations.forEach(synchronization -> {
+            synchronization.afterCommit();
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        });
+    }
+
+    private static User user(User.AuthProvider provider, boolean verified) {
+        return User.builder().provider(provider).isActive(true).emailVerified(verified).build();
+    }
+
+    private static UserCountView row(User.AuthProvider provider, boolean active, boolean verified, long total) {
+        return new UserCountView() {
+            @Override
+            public User.AuthProvider getProvider() {
+                return provider;
+            }
+
+            @Override
+            public Boolean getIsActive() {
+                return active;
+            }
+
+            @Override
+            public Boolean getEmailVerified() {
+                return verified;
+            }
+
+            @Override
+            public Long getTotal() {
+                return total;
+            }
+        };
+    }
+}
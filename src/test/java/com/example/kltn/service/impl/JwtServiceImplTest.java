@@ -0,0 +1,105 @@
+package com.example.kltn.service.impl;
+
+import com.example.kltn.repository.RoleRepository;
+import com.example.kltn.repository.UserRepository;
+import com.example.kltn.security.InMemoryRevocationBackend;
+import com.example.kltn.security.JwtCodec;
+import com.example.kltn.security.RoleAuthorities;
+import com.example.kltn.security.TokenRevocationStore;
+import com.example.kltn.security.VerifiedToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class JwtServiceImplTest {
+
+    private static final String SECRET = "ZHVjdGFtLWtsdG4tc3ByaW5nYm9vdC1qd3Qtc2VjcmV0LTIwMjU=";
+    private static final String EMAIL = "user@example.com";
+
+    private JwtCodec jwtCodec;
+    private TokenRevocationStore tokenRevocationStore;
+    private JwtServiceImpl jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtCodec = spy(new JwtCodec(SECRET));
+
+        tokenRevocationStore = new TokenRevocationStore(new SimpleMeterRegistry(), new InMemoryRevocationBackend());
+        ReflectionTestUtils.setField(tokenRevocationStore, "maxTokenLifetime", 604_800_000L);
+        ReflectionTestUtils.setField(tokenRevocationStore, "expectedEntries", 1_000L);
+        tokenRevocationStore.init();
+
+        jwtService = new JwtServiceImpl(mock(UserRepository.class), tokenRevocationStore, jwtCodec,
+                new RoleAuthorities(mock(RoleRepository.class)));
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", 604_800_000L);
+        ReflectionTestUtils.setField(jwtService, "verificationCacheMaxSize", 100L);
+        jwtService.init();
+    }
+
+    @Test
+    void secondVerificationOfSameTokenIsServedFromCache() {
+        String token = jwtCodec.encode(EMAIL, 1L, "User", List.of("USER"), 0, 60_000);
+
+        VerifiedToken first = jwtService.verifyToken(token);
+        VerifiedToken second = jwtService.verifyToken(token);
+
+        assertThat(second).isSameAs(first);
+        verify(jwtCodec, times(1)).decode(anyString(), any());
+    }
+
+    @Test
+    void cacheEntryExpiresAtTheTokensOwnExpiry() {
+        String shortLived = jwtCodec.encode(EMAIL, 1L, "User", List.of("USER"), 0, 60_000);
+        String longLived = jwtCodec.encode(EMAIL, 1L, "User", List.of("USER"), 0, 3_600_000);
+
+        long before = System.currentTimeMillis();
+        VerifiedToken shortVerified = jwtService.verifyToken(shortLived);
+        VerifiedToken longVerified = jwtService.verifyToken(longLived);
+
+        // Mỗi entry có thời hạn riêng, bằng thời gian còn lại tới exp của chính token đó
+        assertThat(expiresAfterMillis(shortVerified))
+                .isBetween(shortVerified.getExpiresAt() - before - 1_000, shortVerified.getExpiresAt() - before);
+        assertThat(expiresAfterMillis(longVerified))
+                .isBetween(longVerified.getExpiresAt() - before - 1_000, longVerified.getExpiresAt() - before);
+    }
+
+    @Test
+    void revokedTokenIsRejectedEvenWhileCached() {
+        String token = jwtCodec.encode(EMAIL, 1L, "User", List.of("USER"), 0, 60_000);
+        assertThat(jwtService.isTokenValid(token, EMAIL)).isTrue();
+
+        jwtService.invalidateToken(token);
+
+        assertThat(jwtService.isTokenValid(token, EMAIL)).isFalse();
+        // Token vẫn nằm trong cache: việc thu hồi được kiểm tra sau cache, không phải nhờ cache bị xoá
+        verify(jwtCodec, times(1)).decode(anyString(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private long expiresAfterMillis(VerifiedToken token) {
+        Cache<String, VerifiedToken> cache =
+                (Cache<String, VerifiedToken>) ReflectionTestUtils.getField(jwtService, "verifiedTokens");
+        String digest = cache.asMap().entrySet().stream()
+                .filter(entry -> entry.getValue() == token)
+                .findFirst()
+                .orElseThrow()
+                .getKey();
+        return cache.policy().expireVariably().orElseThrow()
+                .getExpiresAfter(digest, TimeUnit.MILLISECONDS)
+                .orElseThrow();
+    }
+}
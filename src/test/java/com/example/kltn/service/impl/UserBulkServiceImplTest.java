@@ -0,0 +1,159 @@
+package com.example.kltn.service.impl;
+
+import com.example.kltn.config.HibernateCacheConfig;
+import com.example.kltn.dto.request.BulkUserRequest;
+import com.example.kltn.dto.response.BulkUpdateResponse;
+import com.example.kltn.entity.Role;
+import com.example.kltn.entity.User;
+import com.example.kltn.event.UserAccountEvent;
+import com.example.kltn.repository.RoleRepository;
+import com.example.kltn.repository.UserRepository;
+import com.example.kltn.security.LocalUserCacheInvalidationBus;
+import com.example.kltn.security.UserDetailsCache;
+import com.example.kltn.security.UserVersionRegistry;
+import com.example.kltn.service.DashboardService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Mỗi chunk chạy trong transaction riêng nên test không chạy trong transaction bao ngoài.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserBulkServiceImplTest {
+
+    private static final int CHUNK_SIZE = 20;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final UserDetailsCache userDetailsCache = mock(UserDetailsCache.class);
+    private final DashboardService dashboardService = mock(DashboardService.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private UserVersionRegistry userVersionRegistry;
+    private UserBulkServiceImpl userBulkService;
+    private Role userRole;
+    private Role staffRole;
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        userRole = roleRepository.save(Role.builder().name("ROLE_USER").build());
+        staffRole = roleRepository.save(Role.builder().name("ROLE_STAFF").build());
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            users.add(User.builder()
+                    .email("user" + i + (i % 2 == 0 ? "@spam.example" : "@example.com"))
+                    .fullName("User " + i)
+                    .roles(new HashSet<>(Set.of(userRole)))
+                    .build());
+        }
+        ids = userRepository.saveAll(users).stream().map(User::getId).toList();
+        userVersionRegistry = new UserVersionRegistry(userRepository, new LocalUserCacheInvalidationBus(),
+                1_000, Duration.ofMinutes(5));
+        userBulkService = new UserBulkServiceImpl(userRepository, roleRepository, userVersionRegistry,
+                userDetailsCache, dashboardService, eventPublisher, entityManagerFactory, transactionManager, CHUNK_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+    @Test
+    void deactivatesByIdsWithOneUpdatePerChunk() {
+        BulkUserRequest request = new BulkUserRequest();
+        request.setIds(new ArrayList<>(ids));
+        request.getIds().add(Long.MAX_VALUE);
+        Statistics statistics = statistics();
+
+        BulkUpdateResponse response = userBulkService.deactivate(request);
+
+        assertThat(response.getMatched()).isEqualTo(50);
+        assertThat(response.getAffected()).isEqualTo(50);
+        // 3 chunk, mỗi chunk một SELECT (id, email), một UPDATE trạng thái và một UPDATE token_version
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(9);
+        assertThat(userRepository.findByIsActive(true)).isEmpty();
+        verify(userDetailsCache, times(3)).invalidateAll(anyCollection());
+        verify(eventPublisher, times(50)).publishEvent(any(UserAccountEvent.class));
+        verify(dashboardService, times(2)).onActiveChanged(false, 20);
+        verify(dashboardService).onActiveChanged(false, 10);
+        assertThat(userVersionRegistry.currentVersion(ids.get(0))).isEqualTo(1);
+
+        // Lặp lại không đổi dòng nào
+        assertThat(userBulkService.deactivate(request).getAffected()).isZero();
+    }
+
+    @Test
+    void replacesRolesByFilterAndCachedRolesSeeTheChange() {
+        readRoles(ids.get(0));
+        BulkUserRequest request = new BulkUserRequest();
+        BulkUserRequest.Filter filter = new BulkUserRequest.Filter();
+        filter.setEmailDomain("@SPAM.example");
+        filter.setRole("user");
+        request.setFilter(filter);
+        request.setRoles(List.of("staff", "ROLE_USER"));
+
+        BulkUpdateResponse response = userBulkService.replaceRoles(request);
+
+        assertThat(response.getMatched()).isEqualTo(25);
+        assertThat(response.getAffected()).isEqualTo(25);
+        assertThat(readRoles(ids.get(0))).containsExactlyInAnyOrder("ROLE_USER", "ROLE_STAFF");
+        assertThat(readRoles(ids.get(1))).containsExactly("ROLE_USER");
+        User changed = userRepository.findById(ids.get(0)).orElseThrow();
+        assertThat(changed.getRoleMask()).isEqualTo(Role.maskOf(Set.of(userRole, staffRole)));
+        assertThat(changed.getUpdatedAt()).isNotNull();
+
+        assertThat(userBulkService.replaceRoles(request).getAffected()).isZero();
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private List<String> readRoles(Long userId) {
+        return new TransactionTemplate(transactionManager).execute(status ->
+                userRepository.findById(userId).orElseThrow().getRoles().stream().map(Role::getName).toList());
+    }
+}
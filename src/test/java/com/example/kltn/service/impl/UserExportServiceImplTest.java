@@ -0,0 +1,88 @@
+package com.example.kltn.service.impl;
+
+import com.example.kltn.entity.User;
+import com.example.kltn.repository.UserRepository;
+import com.example.kltn.repository.projection.UserSummaryView;
+import com.example.kltn.security.RoleAuthorities;
+import com.example.kltn.service.UserExportService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserExportServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RoleAuthorities roleAuthorities;
+
+    @InjectMocks
+    private UserExportServiceImpl userExportService;
+
+    @Test
+    void writesOneJsonObjectPerLineAndClosesStream() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(roleAuthorities.names(3L)).thenReturn(List.of("ROLE_USER", "ROLE_ADMIN"));
+        when(userRepository.streamAllSummaries()).thenReturn(Stream.of(
+                        row(1L, "a@b.com", "Tâm", 3L),
+                        row(2L, "c@d.com", "Minh", 0L))
+                .onClose(() -> closed.set(true)));
+
+        String output = export(UserExportService.Format.NDJSON);
+
+        assertThat(output.split("\n")).containsExactly(
+                "{\"id\":1,\"email\":\"a@b.com\",\"fullName\":\"Tâm\",\"phone\":null,\"provider\":\"LOCAL\","
+                        + "\"emailVerified\":true,\"isActive\":true,\"createdAt\":\"2025-01-01T12:00\","
+                        + "\"roles\":[\"ROLE_USER\",\"ROLE_ADMIN\"]}",
+                "{\"id\":2,\"email\":\"c@d.com\",\"fullName\":\"Minh\",\"phone\":null,\"provider\":\"LOCAL\","
+                        + "\"emailVerified\":true,\"isActive\":true,\"createdAt\":\"2025-01-01T12:00\",\"roles\":[]}");
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void quotesCsvFieldsWithSeparators() throws Exception {
+        when(roleAuthorities.names(5L)).thenReturn(List.of("ROLE_USER", "ROLE_STAFF"));
+        when(userRepository.streamAllSummaries()).thenReturn(Stream.of(
+                row(1L, "a@b.com", "Trần \"Tâm\", Jr", 5L)));
+
+        String output = export(UserExportService.Format.CSV);
+
+        assertThat(output).isEqualTo(
+                "id,email,fullName,phone,provider,emailVerified,isActive,createdAt,roles\r\n"
+                        + "1,a@b.com,\"Trần \"\"Tâm\"\", Jr\",,LOCAL,true,true,2025-01-01T12:00,ROLE_USER;ROLE_STAFF\r\n");
+    }
+
+    private String export(UserExportService.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userExportService.exportUsers(format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static UserSummaryView row(Long id, String email, String fullName, Long roleMask) {
+        return new UserSummaryView() {
+            public Long getId() { return id; }
+            public String getEmail() { return email; }
+            public String getFullName() { return fullName; }
+            public String getPhone() { return null; }
+            public User.AuthProvider getProvider() { return User.AuthProvider.LOCAL; }
+            public Boolean getEmailVerified() { return true; }
+            public Boolean getIsActive() { return true; }
+            public LocalDateTime getCreatedAt() { return LocalDateTime.of(2025, 1, 1, 12, 0); }
+            public Long getRoleMask() { return roleMask; }
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.kltn.service.impl;
+
+import com.example.kltn.entity.Role;
+import com.example.kltn.entity.User;
+import com.example.kltn.repository.RoleRepository;
+import com.example.kltn.repository.UserRepository;
+import com.example.kltn.security.EmailExistenceFilter;
+import com.example.kltn.service.DashboardService;
+import com.example.kltn.service.UserExportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Mỗi chunk chạy trong transaction riêng nên test không chạy trong transaction bao ngoài.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserImportServiceImplTest {
+
+    private static final int CHUNK_SIZE = 20;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final EmailExistenceFilter emailExistenceFilter = mock(EmailExistenceFilter.class);
+    private final DashboardService dashboardService = mock(DashboardService.class);
+    private UserImportServiceImpl userImportService;
+    private Role userRole;
+    private Role staffRole;
+
+    @BeforeEach
+    void setUp() {
+        userRole = roleRepository.save(Role.builder().name("ROLE_USER").build());
+        staffRole = roleRepository.save(Role.builder().name("ROLE_STAFF").build());
+        when(emailExistenceFilter.mightExist(anyString())).thenReturn(true);
+        userImportService = new UserImportServiceImpl(userRepository, roleRepository, emailExistenceFilter,
+                dashboardService, entityManager, transactionManager, new SimpleMeterRegistry(), CHUNK_SIZE, 2, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userImportService.shutdown();
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+    @Test
+    void importsCsvInJdbcBatchesAndReportsRowErrors() throws Exception {
+        StringBuilder csv = new StringBuilder("email,fullName,phone,password,roles\r\n");
+        for (int i = 0; i < 45; i++) {
+            csv.append("user").append(i).append("@example.com,\"Người, Thứ ").append(i).append("\",,secret").append(i)
+                    .append(i % 5 == 0 ? ",user;staff" : ",").append("\r\n");
+        }
+        csv.append("not-an-email,Sai Email,,,\r\n");
+        csv.append("user1@example.com,Trùng Dòng,,,\r\n");
+        csv.append("other@example.com,Sai Role,,,ROLE_UNKNOWN\r\n");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<String> output = importUsers(UserExportService.Format.CSV, csv.toString());
+
+        assertThat(output).filteredOn(line -> line.contains("\"type\":\"error\"")).hasSize(3);
+        assertThat(output.get(output.size() - 1))
+                .isEqualTo("{\"type\":\"done\",\"processed\":48,\"imported\":45,\"failed\":3}");
+        assertThat(userRepository.count()).isEqualTo(45);
+        // 3 chunk: mỗi chunk một truy vấn email, một batch users, một batch user_roles và vài lần cấp khối id
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(30);
+
+        User first = userRepository.findByEmail("user0@example.com").orElseThrow();
+        assertThat(first.getFullName()).isEqualTo("Người, Thứ 0");
+        assertThat(first.getRoleMask()).isEqualTo(Role.maskOf(Set.of(userRole, staffRole)));
+        assertThat(new BCryptPasswordEncoder().matches("secret0", first.getPassword())).isTrue();
+        verify(dashboardService, times(45)).onUserCreated(any(User.class));
+    }
+
+    @Test
+    void skipsExistingEmailsAndKeepsBcryptHashes() throws Exception {
+        userRepository.save(User.builder().email("taken@example.com").fullName("Đã Có").build());
+        String hash = new BCryptPasswordEncoder(4).encode("partner-password");
+        String ndjson = "{\"email\":\"taken@example.com\",\"fullName\":\"Trùng\"}\n"
+                + "{\"email\":\"new@example.com\",\"fullName\":\"Mới\",\"password\":\"" + hash + "\",\"roles\":[\"ROLE_STAFF\"]}\n"
+                + "{broken\n";
+
+        List<String> output = importUsers(UserExportService.Format.NDJSON, ndjson);
+
+        assertThat(output).contains(
+                "{\"type\":\"error\",\"line\":1,\"email\":\"taken@example.com\",\"message\":\"Email đã được sử dụng\"}",
+                "{\"type\":\"error\",\"line\":3,\"email\":null,\"message\":\"Dòng không phải JSON hợp lệ\"}");
+        User imported = userRepository.findByEmail("new@example.com").orElseThrow();
+        assertThat(imported.getPassword()).isEqualTo(hash);
+        assertThat(imported.getRoleMask()).isEqualTo(Role.maskOf(Set.of(staffRole)));
+        assertThat(imported.getEmailVerified()).isTrue();
+        verify(emailExistenceFilter).add("new@example.com");
+    }
+
+    private List<String> importUsers(UserExportService.Format format, String content) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userImportService.importUsers(format, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), out);
+        return List.of(out.toString(StandardCharsets.UTF_8).split("\n"));
+    }
+}
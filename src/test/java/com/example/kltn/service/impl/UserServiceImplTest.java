@@ -0,0 +1,105 @@
+package com.example.kltn.service.impl;
+
+import com.example.kltn.dto.response.CursorPage;
+import com.example.kltn.dto.response.UserResponse;
+import com.example.kltn.entity.User;
+import com.example.kltn.exception.BadRequestException;
+import com.example.kltn.repository.UserRepository;
+import com.example.kltn.security.RoleAuthorities;
+import com.example.kltn.util.KeysetCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RoleAuthorities roleAuthorities;
+
+    @InjectMocks
+    private UserServiceImpl userService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(userService, "maxPageSize", 100);
+    }
+
+    @Test
+    void returnsPageInKeysetOrderWithNextCursor() {
+        when(userRepository.findFirstPageIds(PageRequest.of(0, 3))).thenReturn(List.of(9L, 7L, 4L));
+        // Thứ tự trả về từ IN (...) không đảm bảo
+        when(userRepository.findAllById(List.of(9L, 7L)))
+                .thenReturn(List.of(user(7L, NOW.minusMinutes(1)), user(9L, NOW)));
+
+        CursorPage<UserResponse> page = userService.getUsers(null, null);
+
+        assertThat(page.getItems()).extracting(UserResponse::getId).containsExactly(9L, 7L);
+        assertThat(KeysetCursor.decode(page.getNextCursor()))
+                .isEqualTo(new KeysetCursor(NOW.minusMinutes(1), 7L));
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        KeysetCursor cursor = new KeysetCursor(NOW, 9L);
+        when(userRepository.findPageIdsAfter(NOW, 9L, PageRequest.of(0, 3))).thenReturn(List.of(4L));
+        when(userRepository.findAllById(any())).thenReturn(List.of(user(4L, NOW.minusDays(1))));
+
+        CursorPage<UserResponse> page = userService.getUsers(cursor.encode(), null);
+
+        assertThat(page.getItems()).extracting(UserResponse::getId).containsExactly(4L);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void cursorOfRowWithoutCreatedAtContinuesAmongUndatedRows() {
+        when(userRepository.findPageIdsAfter(NOW, 9L, PageRequest.of(0, 3))).thenReturn(List.of(5L, 3L, 2L));
+        when(userRepository.findAllById(List.of(5L, 3L)))
+                .thenReturn(List.of(user(5L, NOW.minusDays(1)), user(3L, null)));
+
+        CursorPage<UserResponse> page = userService.getUsers(new KeysetCursor(NOW, 9L).encode(), null);
+
+        KeysetCursor next = KeysetCursor.decode(page.getNextCursor());
+        assertThat(next).isEqualTo(new KeysetCursor(null, 3L));
+
+        when(userRepository.findUndatedPageIdsAfter(3L, PageRequest.of(0, 3))).thenReturn(List.of(2L));
+        when(userRepository.findAllById(List.of(2L))).thenReturn(List.of(user(2L, null)));
+
+        assertThat(userService.getUsers(page.getNextCursor(), null).getItems())
+                .extracting(UserResponse::getId).containsExactly(2L);
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThatThrownBy(() -> userService.getUsers("not-a-cursor", 10))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private static User user(Long id, LocalDateTime createdAt) {
+        return User.builder()
+                .id(id)
+                .email("user" + id + "@example.com")
+                .fullName("User " + id)
+                .createdAt(createdAt)
+                .build();
+    }
+}
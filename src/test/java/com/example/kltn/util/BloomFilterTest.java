@@ -0,0 +1,46 @@
+package com.example.kltn.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void neverReportsInsertedValueAsMissing() {
+        BloomFilter filter = new BloomFilter(10_000, 0.001);
+        SplittableRandom random = new SplittableRandom(42);
+        long[] hashes = new long[20_000];
+        // Chèn gấp đôi số dự kiến: tỉ lệ dương tính giả tăng nhưng âm tính giả thì không bao giờ
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = random.nextLong();
+            filter.put(BloomFilter.mix(hashes[i]), BloomFilter.mix(~hashes[i]) | 1L);
+        }
+
+        for (long hash : hashes) {
+            assertThat(filter.mightContain(BloomFilter.mix(hash), BloomFilter.mix(~hash) | 1L)).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextLong();
+            filter.put(BloomFilter.mix(value), BloomFilter.mix(~value) | 1L);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong();
+            if (filter.mightContain(BloomFilter.mix(value), BloomFilter.mix(~value) | 1L)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+}
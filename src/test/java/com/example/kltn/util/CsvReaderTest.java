@@ -0,0 +1,35 @@
+package com.example.kltn.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTest {
+
+    @Test
+    void readsQuotedFieldsWithSeparatorsAndLineBreaks() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader(
+                "a,\"b, \"\"c\"\"\",\r\n\r\n\"multi\nline\",x\ny,"));
+
+        assertThat(csv.next()).containsExactly("a", "b, \"c\"", "");
+        assertThat(csv.getRecordLine()).isEqualTo(1);
+        assertThat(csv.next()).containsExactly("multi\nline", "x");
+        assertThat(csv.getRecordLine()).isEqualTo(3);
+        assertThat(csv.next()).containsExactly("y", "");
+        assertThat(csv.getRecordLine()).isEqualTo(5);
+        assertThat(csv.next()).isNull();
+    }
+
+    @Test
+    void rejectsUnterminatedQuote() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("ok\n\"open,field"));
+
+        assertThat(csv.next()).isEqualTo(List.of("ok"));
+        assertThatThrownBy(csv::next).isInstanceOf(IOException.class);
+    }
+}
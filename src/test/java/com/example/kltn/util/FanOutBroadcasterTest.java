@@ -0,0 +1,238 @@
+package com.example.kltn.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FanOutBroadcasterTest {
+
+    @Test
+    void deliversInitialAndPublishedFramesInOrder() {
+        FanOutBroadcaster<String> broadcaster = new FanOutBroadcaster<>(Runnable::run, 4);
+        RecordingSink first = new RecordingSink();
+        RecordingSink second = new RecordingSink();
+
+        broadcaster.subscribe(first, "full");
+        broadcaster.subscribe(second, null);
+        broadcaster.publish("delta-1");
+        broadcaster.publish("delta-2");
+
+        assertThat(first.frames).containsExactly("full", "delta-1", "delta-2");
+        assertThat(second.frames).containsExactly("delta-1", "delta-2");
+    }
+
+    @Test
+    void dropsSlowSubscriberWithoutBlockingOthers() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch release = new CountDownLatch(1);
+        FanOutBroadcaster<String> broadcaster = new FanOutBroadcaster<>(executor, 2);
+        RecordingSink slow = new RecordingSink() {
+            @Override
+            public void send(String frame) throws Exception {
+                release.await();
+                super.send(frame);
+            }
+        };
+        RecordingSink fast = new RecordingSink();
+        broadcaster.subscribe(slow, null);
+        broadcaster.subscribe(fast, null);
+
+        for (int i = 0; i < 10; i++) {
+            broadcaster.publish("frame-" + i);
+            // Nhịp phát chậm hơn tốc độ gửi của client nhanh
+            Thread.sleep(5);
+        }
+        release.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(slow.closed).isTrue();
+        assertThat(fast.frames).hasSize(10);
+        assertThat(broadcaster.size()).isEqualTo(1);
+        assertThat(broadcaster.getDropped()).isEqualTo(1);
+    }
+
+    @Test
+    void closesStalledSubscriberSoOthersKeepReceivingOnSharedThread() throws Exception {
+        // Một thread gửi duy nhất: không có hạn ghi thì client nhanh phải chờ client bị kẹt mãi mãi
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch blocked = new CountDownLatch(1);
+        FanOutBroadcaster<String> broadcaster = new FanOutBroadcaster<>(executor, 16, 50);
+        RecordingSink stuck = new RecordingSink() {
+            @Override
+            public void send(String frame) throws Exception {
+                blocked.countDown();
+                new CountDownLatch(1).await();
+            }
+        };
+        RecordingSink healthy = new RecordingSink();
+        broadcaster.subscribe(stuck, null);
+        broadcaster.subscribe(healthy, null);
+
+        broadcaster.publish("frame-0");
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        broadcaster.publish("frame-1");
+        assertThat(broadcaster.closeStalled()).isZero();
+        Thread.sleep(100);
+
+        assertThat(broadcaster.closeStalled()).isEqualTo(1);
+        for (int i = 2; i < 5; i++) {
+            broadcaster.publish("frame-" + i);
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(stuck.closed).isTrue();
+        assertThat(healthy.frames).containsExactly("frame-0", "frame-1", "frame-2", "frame-3", "frame-4");
+        assertThat(broadcaster.size()).isEqualTo(1);
+        assertThat(broadcaster.getDropped()).isEqualTo(1);
+    }
+
+    @Test
+    void closeStalledDoesNotWaitForSinkCloseBlockedBySend() throws Exception {
+        // Như SseEmitter: send() giữ khóa ghi khi kẹt trên socket, complete() cũng phải lấy khóa đó
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ReentrantLock writeLock = new ReentrantLock();
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        AtomicReference<Thread> sentOn = new AtomicReference<>();
+        AtomicReference<Thread> closedOn = new AtomicReference<>();
+        FanOutBroadcaster<String> broadcaster = new FanOutBroadcaster<>(executor, 16, 50);
+        FanOutBroadcaster.Sink<String> stuck = new FanOutBroadcaster.Sink<>() {
+            @Override
+            public void send(String frame) {
+                writeLock.lock();
+                try {
+                    sentOn.set(Thread.currentThread());
+                    blocked.countDown();
+                    // Ghi socket không phản ứng với interrupt
+                    while (true) {
+                        try {
+                            release.await();
+                            return;
+                        } catch (InterruptedException ignored) {
+                        }
+                    }
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+
+            @Override
+            public void close() {
+                writeLock.lock();
+                try {
+                    closedOn.set(Thread.currentThread());
+                    closed.countDown();
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+        };
+        broadcaster.subscribe(stuck, "frame-0");
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+
+        CompletableFuture<Integer> check = CompletableFuture.supplyAsync(broadcaster::closeStalled);
+
+        assertThat(check.get(1, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(broadcaster.size()).isZero();
+        assertThat(closed.getCount()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(closed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(closedOn.get()).isSameAs(sentOn.get());
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void interruptibleStalledSendIsReleasedBeforeSinkIsClosed() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ReentrantLock writeLock = new ReentrantLock();
+        CountDownLatch blocked = new CountDownLatch(1);
+        FanOutBroadcaster<String> broadcaster = new FanOutBroadcaster<>(executor, 16, 50);
+        RecordingSink stuck = new RecordingSink() {
+            @Override
+            public void send(String frame) throws Exception {
+                writeLock.lockInterruptibly();
+                try {
+                    blocked.countDown();
+                    new CountDownLatch(1).await();
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+
+            @Override
+            public void close() {
+                writeLock.lock();
+                try {
+                    super.close();
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+        };
+        RecordingSink healthy = new RecordingSink();
+        broadcaster.subscribe(stuck, "frame-0");
+        broadcaster.subscribe(healthy, null);
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+
+        assertThat(broadcaster.closeStalled()).isEqualTo(1);
+        broadcaster.publish("frame-1");
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(stuck.closed).isTrue();
+        assertThat(healthy.frames).containsExactly("frame-1");
+    }
+
+    @Test
+    void removesSubscriberWhenSendFails() {
+        FanOutBroadcaster<String> broadcaster = new FanOutBroadcaster<>(Runnable::run, 4);
+        RecordingSink broken = new RecordingSink() {
+            @Override
+            public void send(String frame) throws Exception {
+                throw new IOException("Broken pipe");
+            }
+        };
+        broadcaster.subscribe(broken, null);
+
+        broadcaster.publish("frame");
+
+        assertThat(broken.closed).isTrue();
+        assertThat(broadcaster.size()).isZero();
+    }
+
+    private static class RecordingSink implements FanOutBroadcaster.Sink<String> {
+
+        final List<String> frames = new ArrayList<>();
+        volatile boolean closed;
+
+        @Override
+        public void send(String frame) throws Exception {
+            synchronized (frames) {
+                frames.add(frame);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.kltn.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RingCounterTest {
+
+    private static final long MINUTE = 60_000;
+
+    @Test
+    void countsPerBucketAndForgetsWrappedSlots() {
+        RingCounter counter = new RingCounter(MINUTE, 3);
+        long t0 = 100 * MINUTE;
+
+        counter.increment(t0);
+        counter.increment(t0 + 1);
+        counter.increment(t0 + MINUTE);
+        assertThat(counter.series(t0 + MINUTE, 3)).containsExactly(0, 2, 1);
+
+        // Ba phút sau, ô của t0 được dùng lại cho bucket mới
+        counter.increment(t0 + 3 * MINUTE);
+        assertThat(counter.series(t0 + 3 * MINUTE, 3)).containsExactly(1, 0, 1);
+        assertThat(counter.series(t0 + 5 * MINUTE, 3)).containsExactly(1, 0, 0);
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLost() throws Exception {
+        RingCounter counter = new RingCounter(MINUTE, 60);
+        long now = 100 * MINUTE;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.increment(now);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(counter.series(now, 1)).containsExactly(80_000);
+    }
+
+    @Test
+    void restoresFromSnapshot() throws Exception {
+        RingCounter counter = new RingCounter(MINUTE, 10);
+        long now = 100 * MINUTE;
+        counter.increment(now);
+        counter.increment(now - MINUTE);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        counter.writeTo(new DataOutputStream(bytes));
+
+        RingCounter restored = new RingCounter(MINUTE, 10);
+        assertThat(restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())))).isTrue();
+        assertThat(restored.series(now, 2)).containsExactly(1, 1);
+
+        RingCounter resized = new RingCounter(MINUTE, 20);
+        assertThat(resized.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())))).isFalse();
+        assertThat(resized.series(now, 2)).containsExactly(0, 0);
+    }
+}
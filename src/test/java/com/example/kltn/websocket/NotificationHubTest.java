@@ -0,0 +1,79 @@
+package com.example.kltn.websocket;
+
+import com.example.kltn.event.UserAccountEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationHubTest {
+
+    private final NotificationHub hub = new NotificationHub(new ObjectMapper(), new SimpleMeterRegistry(),
+            4, 1_000, 64 * 1024);
+
+    @Test
+    void pushesEventOnlyToSessionsOfThatUser() throws Exception {
+        WebSocketSession first = session("a", 1L);
+        WebSocketSession second = session("b", 1L);
+        WebSocketSession other = session("c", 2L);
+        hub.afterConnectionEstablished(first);
+        hub.afterConnectionEstablished(second);
+        hub.afterConnectionEstablished(other);
+
+        hub.onUserAccountEvent(UserAccountEvent.rolesChanged(1L, List.of("ROLE_STAFF")));
+
+        ArgumentCaptor<TextMessage> message = ArgumentCaptor.forClass(TextMessage.class);
+        verify(first).sendMessage(message.capture());
+        verify(second).sendMessage(any());
+        verify(other, never()).sendMessage(any());
+        assertThat(message.getValue().getPayload()).contains("\"type\":\"ROLES_CHANGED\"", "ROLE_STAFF");
+    }
+
+    @Test
+    void forcedLogoutClosesAndForgetsSessions() throws Exception {
+        WebSocketSession session = session("a", 1L);
+        hub.afterConnectionEstablished(session);
+
+        hub.onUserAccountEvent(UserAccountEvent.forcedLogout(1L));
+
+        verify(session).sendMessage(any());
+        verify(session).close(NotificationHub.FORCED_LOGOUT);
+        assertThat(hub.getRegistry().size()).isZero();
+    }
+
+    @Test
+    void closedConnectionIsUnregistered() throws Exception {
+        WebSocketSession session = session("a", 1L);
+        hub.afterConnectionEstablished(session);
+
+        hub.afterConnectionClosed(session, CloseStatus.NORMAL);
+        hub.onUserAccountEvent(UserAccountEvent.passwordChanged(1L));
+
+        verify(session, never()).sendMessage(any());
+        assertThat(hub.getRegistry().size()).isZero();
+    }
+
+    private static WebSocketSession session(String id, Long userId) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(JwtHandshakeInterceptor.USER_ID, userId);
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.getAttributes()).thenReturn(attributes);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+}